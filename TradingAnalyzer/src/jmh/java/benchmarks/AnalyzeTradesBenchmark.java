@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end parse of a whole export into monthly totals, file read included.
+ * Run with {@code -prof gc} for the allocation rate per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AnalyzeTradesBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private String inputFile;
+
+    @Setup
+    public void generateExport() throws Exception {
+        inputFile = TradeCsvGenerator.export(rows).toString();
+    }
+
+    @Benchmark
+    public Map<String, Double> analyzeTrades() throws Throwable {
+        return AnalyzerHandles.analyzeTrades(inputFile);
+    }
+}
@@ -0,0 +1,58 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+
+/**
+ * The analyzer lives in the unnamed package, which cannot be imported, and JMH needs its benchmarks
+ * in a named one. Method handles resolved once bridge the two without reflection cost per call.
+ */
+final class AnalyzerHandles {
+
+    static final MethodHandle ANALYZE_TRADES;
+    static final MethodHandle WRITE_RESULTS_TO_EXCEL;
+    static final MethodHandle NEW_PARSER;
+    static final MethodHandle PARSE_DATE_TIME;
+    static final MethodHandle PARSE_NUMBER;
+    static final MethodHandle LAST_NUMBER;
+
+    static {
+        try {
+            Class<?> analyzer = Class.forName("TradeProfitAnalyzer");
+            Class<?> parser = Class.forName("TradeCsvParser");
+            // Same module, so the package-private parsing helpers are accessible too
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(parser, MethodHandles.lookup());
+
+            ANALYZE_TRADES = lookup.findStatic(analyzer, "analyzeTrades", MethodType.methodType(Map.class, String.class));
+            WRITE_RESULTS_TO_EXCEL = lookup.findStatic(analyzer, "writeResultsToExcel",
+                    MethodType.methodType(void.class, Map.class, String.class, boolean.class));
+            NEW_PARSER = lookup.findConstructor(parser, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            PARSE_DATE_TIME = lookup.findVirtual(parser, "parseDateTime",
+                    MethodType.methodType(boolean.class, char[].class, int.class, int.class))
+                    .asType(MethodType.methodType(boolean.class, Object.class, char[].class, int.class, int.class));
+            PARSE_NUMBER = lookup.findVirtual(parser, "parseNumber",
+                    MethodType.methodType(boolean.class, char[].class, int.class, int.class))
+                    .asType(MethodType.methodType(boolean.class, Object.class, char[].class, int.class, int.class));
+            LAST_NUMBER = lookup.findVirtual(parser, "lastNumber", MethodType.methodType(double.class))
+                    .asType(MethodType.methodType(double.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private AnalyzerHandles() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Double> analyzeTrades(String inputFilePath) throws Throwable {
+        return (Map<String, Double>) ANALYZE_TRADES.invokeExact(inputFilePath);
+    }
+
+    static void writeResultsToExcel(Map<String, Double> monthlyProfits, String outputFilePath, boolean streaming)
+            throws Throwable {
+        WRITE_RESULTS_TO_EXCEL.invokeExact(monthlyProfits, outputFilePath, streaming);
+    }
+}
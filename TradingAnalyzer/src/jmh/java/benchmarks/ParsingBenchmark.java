@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The per-field helpers of the parser on their own: date-times and prices / profits as they appear
+ * in an export, decoded straight from a char buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+
+    static final int VALUES = 4096;
+
+    private Object parser;
+    private char[] dateTimes;
+    private int[] dateTimeEnds;
+    private char[] numbers;
+    private int[] numberEnds;
+
+    @Setup
+    public void createValues() throws Throwable {
+        parser = AnalyzerHandles.NEW_PARSER.invokeExact();
+
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder dates = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        dateTimeEnds = new int[VALUES];
+        numberEnds = new int[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            dates.append(String.format("%04d.%02d.%02d %02d:%02d:%02d", 2015 + random.nextInt(12), 1 + random.nextInt(12),
+                    1 + random.nextInt(28), random.nextInt(24), random.nextInt(60), random.nextInt(60)));
+            dateTimeEnds[i] = dates.length();
+
+            switch (random.nextInt(3)) {
+                case 0 -> values.append(String.format("%.2f", (random.nextDouble() - 0.5) * 400));
+                case 1 -> values.append(String.format("%.5f", 0.5 + random.nextDouble()));
+                default -> values.append(80000 + random.nextInt(20000));
+            }
+            numberEnds[i] = values.length();
+        }
+        dateTimes = dates.toString().toCharArray();
+        numbers = values.toString().toCharArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void parseDateTime(Blackhole blackhole) throws Throwable {
+        int from = 0;
+        for (int i = 0; i < VALUES; i++) {
+            blackhole.consume((boolean) AnalyzerHandles.PARSE_DATE_TIME.invokeExact(parser, dateTimes, from, dateTimeEnds[i]));
+            from = dateTimeEnds[i];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void parseNumber(Blackhole blackhole) throws Throwable {
+        int from = 0;
+        for (int i = 0; i < VALUES; i++) {
+            boolean parsed = (boolean) AnalyzerHandles.PARSE_NUMBER.invokeExact(parser, numbers, from, numberEnds[i]);
+            blackhole.consume(parsed ? (double) AnalyzerHandles.LAST_NUMBER.invokeExact(parser) : Double.NaN);
+            from = numberEnds[i];
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic trade exports in the layout of RoadToGreen2.csv (MT5 history: UTF-8 BOM, newest trade first,
+ * empty commission and swap, a Balance row now and then), reproducible from a fixed seed.
+ *
+ * Files are kept in target/benchmark-data and reused by later runs, so the 10M row export is written once.
+ */
+public final class TradeCsvGenerator {
+
+    static final String HEADER = "Time;Type;Volume;Symbol;Price;Volume;Time;Price;Commission;Swap;Profit";
+
+    private static final Path DATA_DIRECTORY = Paths.get("target", "benchmark-data");
+    private static final long SEED = 20260106L;
+
+    private static final String[] SYMBOLS = {"BTCUSD", "USDJPY", "EURJPY", "EURGBP", "EURUSD", "GBPAUD", "USDCAD", "AUDCHF"};
+    private static final double[] BASE_PRICES = {91894, 156.506, 183.897, 0.87209, 1.1553, 2.0141, 1.3812, 0.5241};
+    private static final int[] PRICE_DECIMALS = {0, 3, 3, 5, 4, 5, 5, 5};
+
+    // One Balance row (deposit or withdrawal) per this many trades
+    private static final int BALANCE_EVERY = 500;
+
+    private TradeCsvGenerator() {
+    }
+
+    /**
+     * @return export with the given number of data rows, written on first use
+     */
+    public static Path export(int rows) throws IOException {
+        Path file = DATA_DIRECTORY.resolve("trades-" + rows + ".csv");
+        if (Files.exists(file)) {
+            return file;
+        }
+        Files.createDirectories(DATA_DIRECTORY);
+        Path temporary = DATA_DIRECTORY.resolve("trades-" + rows + ".csv.tmp");
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(temporary, StandardCharsets.UTF_8), 1 << 16)) {
+            write(writer, rows);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    static void write(Writer writer, int rows) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder line = new StringBuilder(128);
+
+        writer.write('\uFEFF');
+        writer.write(HEADER);
+        writer.write('\n');
+
+        // Walks back in time from the newest close, like the platform lists the history
+        long closeTime = 1_767_720_966L;
+        for (int row = 0; row < rows; row++) {
+            closeTime -= 60 + random.nextInt(4 * 3600);
+            line.setLength(0);
+            if (row % BALANCE_EVERY == BALANCE_EVERY - 1) {
+                appendTime(line, closeTime);
+                line.append(";Balance;;;;;;;;;");
+                appendDecimal(line, 100 + random.nextInt(100_000) / 100.0, 2);
+            } else {
+                appendTrade(line, random, closeTime);
+            }
+            writer.append(line).write('\n');
+        }
+    }
+
+    private static void appendTrade(StringBuilder line, SplittableRandom random, long closeTime) {
+        int symbol = random.nextInt(SYMBOLS.length);
+        long openTime = closeTime - 30 - random.nextInt(3 * 24 * 3600);
+        double volume = (1 + random.nextInt(200)) / 100.0;
+        double openPrice = BASE_PRICES[symbol] * (0.9 + random.nextDouble() * 0.2);
+        double closePrice = openPrice * (0.99 + random.nextDouble() * 0.02);
+        double profit = (random.nextDouble() - 0.47) * 120;
+
+        appendTime(line, openTime);
+        line.append(random.nextBoolean() ? ";Buy;" : ";Sell;");
+        appendDecimal(line, volume, 2);
+        line.append(';').append(SYMBOLS[symbol]).append(';');
+        appendDecimal(line, openPrice, PRICE_DECIMALS[symbol]);
+        line.append(';');
+        appendDecimal(line, volume, 2);
+        line.append(';');
+        appendTime(line, closeTime);
+        line.append(';');
+        appendDecimal(line, closePrice, PRICE_DECIMALS[symbol]);
+        line.append(";;;");
+        appendDecimal(line, profit, 2);
+    }
+
+    // yyyy.MM.dd HH:mm:ss of a local epoch second, without java.time so generating 10M rows stays quick
+    private static void appendTime(StringBuilder line, long epochSecond) {
+        long days = Math.floorDiv(epochSecond, 86400L);
+        int secondOfDay = (int) Math.floorMod(epochSecond, 86400L);
+
+        // Civil from days, Howard Hinnant's algorithm
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        line.append(year).append('.');
+        appendTwoDigits(line, month);
+        line.append('.');
+        appendTwoDigits(line, day);
+        line.append(' ');
+        appendTwoDigits(line, secondOfDay / 3600);
+        line.append(':');
+        appendTwoDigits(line, secondOfDay / 60 % 60);
+        line.append(':');
+        appendTwoDigits(line, secondOfDay % 60);
+    }
+
+    private static void appendTwoDigits(StringBuilder line, int value) {
+        line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    // Like the platform, trailing zeros of the fraction are dropped
+    private static void appendDecimal(StringBuilder line, double value, int decimals) {
+        long scale = 1;
+        for (int i = 0; i < decimals; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0 && scaled != 0) {
+            line.append('-');
+        }
+        line.append(scaled / scale);
+        long fraction = scaled % scale;
+        int digits = decimals;
+        while (digits > 0 && fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        if (digits > 0) {
+            line.append('.');
+            String text = Long.toString(fraction);
+            for (int i = text.length(); i < digits; i++) {
+                line.append('0');
+            }
+            line.append(text);
+        }
+    }
+}
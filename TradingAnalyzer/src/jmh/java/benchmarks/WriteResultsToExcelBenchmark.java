@@ -0,0 +1,64 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering and saving the Monthly Profits workbook, with the streaming (SXSSF) and in-memory (XSSF) backends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class WriteResultsToExcelBenchmark {
+
+    @Param({"12", "120", "1200"})
+    public int months;
+
+    @Param({"true", "false"})
+    public boolean streaming;
+
+    private Map<String, Double> monthlyProfits;
+    private Path outputFile;
+
+    @Setup
+    public void createMonthlyProfits() throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        monthlyProfits = new TreeMap<>();
+        for (int month = 0; month < months; month++) {
+            int index = 2000 * 12 + month;
+            monthlyProfits.put(String.format("%d.%02d", index / 12, index % 12 + 1), (random.nextDouble() - 0.4) * 5000);
+        }
+        outputFile = Files.createTempFile("monthly-profits", ".xlsx");
+    }
+
+    @TearDown
+    public void deleteOutput() throws IOException {
+        Files.deleteIfExists(outputFile);
+    }
+
+    @Benchmark
+    public void writeResultsToExcel() throws Throwable {
+        AnalyzerHandles.writeResultsToExcel(monthlyProfits, outputFile.toString(), streaming);
+    }
+}
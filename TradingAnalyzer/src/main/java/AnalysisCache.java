@@ -0,0 +1,121 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-file aggregates of earlier runs, stored next to the exports in {@value #FILE_NAME}.
+ * Lets the analyzer skip unchanged exports and parse only the appended tail of growing ones.
+ */
+public final class AnalysisCache {
+
+    static final String FILE_NAME = ".trade-analysis-cache";
+
+    private static final int MAGIC = 0x54524143;
+    private static final int VERSION = 5;
+
+    static final class Entry {
+        final long size;
+        final long lastModified;
+        // CRC32C of the first size bytes
+        final long contentHash;
+        // Whether the parsed content ends with a line terminator, so appended lines start on a new line
+        final boolean endsWithNewLine;
+        final long linesRead;
+        final MonthlyProfits monthlyProfits;
+        // Only kept while a portfolio is written, null otherwise
+        final SymbolPerformance symbolPerformance;
+        // Lines rejected anywhere in the first size bytes, numbered from the first line of the file
+        final TradeRejects rejects;
+
+        Entry(long size, long lastModified, long contentHash, boolean endsWithNewLine, long linesRead,
+              MonthlyProfits monthlyProfits, SymbolPerformance symbolPerformance, TradeRejects rejects) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.contentHash = contentHash;
+            this.endsWithNewLine = endsWithNewLine;
+            this.linesRead = linesRead;
+            this.monthlyProfits = monthlyProfits;
+            this.symbolPerformance = symbolPerformance;
+            this.rejects = rejects;
+        }
+    }
+
+    private final Path path;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private AnalysisCache(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Loads the cache of a directory. A missing, outdated or unreadable cache starts empty.
+     */
+    public static AnalysisCache load(Path directory) {
+        AnalysisCache cache = new AnalysisCache(directory.resolve(FILE_NAME));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache.path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.err.println("Ignoring analysis cache with unknown format: " + cache.path);
+                return cache;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String fileName = in.readUTF();
+                Entry entry = new Entry(in.readLong(), in.readLong(), in.readLong(), in.readBoolean(), in.readLong(),
+                        MonthlyProfits.readFrom(in), in.readBoolean() ? SymbolPerformance.readFrom(in) : null,
+                        TradeRejects.readFrom(in));
+                cache.entries.put(fileName, entry);
+            }
+        } catch (NoSuchFileException e) {
+            // First incremental run in this directory
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable analysis cache " + cache.path + ": " + e.getMessage());
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    public Entry get(String fileName) {
+        return entries.get(fileName);
+    }
+
+    public void put(String fileName, Entry entry) {
+        entries.put(fileName, entry);
+    }
+
+    /**
+     * Writes the cache to a temporary file first, so an interrupted save never leaves a truncated cache.
+     */
+    public void save() throws IOException {
+        Path temporary = path.resolveSibling(FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, Entry> snapshot = Map.copyOf(entries);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> item : snapshot.entrySet()) {
+                Entry entry = item.getValue();
+                out.writeUTF(item.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastModified);
+                out.writeLong(entry.contentHash);
+                out.writeBoolean(entry.endsWithNewLine);
+                out.writeLong(entry.linesRead);
+                entry.monthlyProfits.writeTo(out);
+                out.writeBoolean(entry.symbolPerformance != null);
+                if (entry.symbolPerformance != null) {
+                    entry.symbolPerformance.writeTo(out);
+                }
+                entry.rejects.writeTo(out);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,206 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Command line of {@link TradeProfitAnalyzer}. Options start from the system properties
+ * ({@link AnalyzerOptions#fromSystemProperties()}) and every flag overrides its property, so existing
+ * scripts keep working. Arguments without a flag are input directories.
+ *
+ * The process exits with one of the {@code EXIT_} codes, for cron jobs and CI pipelines.
+ */
+public final class AnalyzerCommandLine {
+
+    // Every export was analysed, or nothing changed
+    static final int EXIT_SUCCESS = 0;
+    // At least one export failed, the others were written
+    static final int EXIT_FAILED_FILES = 1;
+    // Unknown flag or invalid value, nothing was read
+    static final int EXIT_USAGE = 2;
+    // No export matched in the input directories
+    static final int EXIT_NO_INPUT = 3;
+    // The run was aborted, for example an unreadable input directory
+    static final int EXIT_ERROR = 4;
+
+    private AnalyzerCommandLine() {
+    }
+
+    /**
+     * @return the options, null if only the usage was asked for
+     * @throws IllegalArgumentException on an unknown flag, a missing or an invalid value
+     */
+    static AnalyzerOptions parse(String[] args, AnalyzerOptions options) {
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                inputs.add(Paths.get(arg));
+                continue;
+            }
+            switch (arg) {
+                case "--help":
+                    return null;
+                case "--input":
+                    inputs.add(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "--output":
+                    options.outputDirectory = Paths.get(value(args, ++i, arg));
+                    break;
+                case "--glob":
+                    options.glob = value(args, ++i, arg);
+                    break;
+                case "--workers":
+                    options.workers = intValue(args, ++i, arg);
+                    break;
+                case "--format":
+                    options.outputFormats = EnumSet.noneOf(OutputFormat.class);
+                    for (String format : value(args, ++i, arg).split(",")) {
+                        options.outputFormats.add(OutputFormat.of(format));
+                    }
+                    break;
+                case "--stats":
+                    options.stats = true;
+                    break;
+                case "--formats":
+                    options.loadFormats(Paths.get(value(args, ++i, arg)));
+                    break;
+                case "--mapped":
+                    options.mapped = true;
+                    break;
+                case "--no-streaming":
+                    options.streamingWorkbook = false;
+                    break;
+                case "--incremental":
+                    options.incremental = true;
+                    break;
+                case "--watch":
+                    options.watch = true;
+                    break;
+                case "--breakdown":
+                    options.breakdown = true;
+                    break;
+                case "--equity-curve":
+                    options.equityCurve = true;
+                    break;
+                case "--monte-carlo":
+                    options.monteCarloSimulations = intValue(args, ++i, arg);
+                    break;
+                case "--seed":
+                    options.monteCarloSeed = longValue(args, ++i, arg);
+                    break;
+                case "--rolling":
+                    options.rollingWindow = RollingStatistics.Window.of(value(args, ++i, arg));
+                    break;
+                case "--symbol-performance":
+                    options.symbolPerformance = true;
+                    break;
+                case "--drill-down":
+                    options.drillDown = true;
+                    break;
+                case "--max-rejects":
+                    options.rejectBudget = TradeRejects.Budget.of(value(args, ++i, arg));
+                    break;
+                case "--snapshot":
+                    options.snapshot = true;
+                    break;
+                case "--portfolio":
+                    options.portfolio = true;
+                    break;
+                case "--buckets":
+                    options.granularity = TradeBuckets.Granularity.of(value(args, ++i, arg));
+                    break;
+                case "--source-zone": {
+                    // A target zone that followed the source zone keeps following it
+                    boolean followsSource = options.targetZone.equals(options.sourceZone);
+                    options.sourceZone = zoneValue(args, ++i, arg);
+                    if (followsSource) {
+                        options.targetZone = options.sourceZone;
+                    }
+                    break;
+                }
+                case "--target-zone":
+                    options.targetZone = zoneValue(args, ++i, arg);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (!inputs.isEmpty()) {
+            options.inputDirectories = inputs;
+        }
+        options.validate();
+        return options;
+    }
+
+    static String usage() {
+        return String.join(System.lineSeparator(),
+                "Usage: TradeProfitAnalyzer [options] [input directory...]",
+                "",
+                "  --input DIR             directory of trade exports, repeatable (default: analyzer.dir or .)",
+                "  --output DIR            directory of the results (default: next to each export)",
+                "  --glob PATTERN          file names of the exports (default: *.{csv,CSV})",
+                "  --workers N             exports analysed concurrently (default: 1)",
+                "  --format LIST           output formats, comma separated: xlsx, csv, jsonl, binary (default: xlsx)",
+                "  --stats                 print time and throughput of every phase",
+                "  --formats FILE          user-defined export layouts (properties)",
+                "  --mapped                parse each export memory mapped, in parallel chunks",
+                "  --no-streaming          keep the whole workbook in memory while writing",
+                "  --incremental           reuse the cache, parse only appended lines",
+                "  --watch                 keep running and analyse exports as they change",
+                "  --breakdown             add the Breakdown sheet",
+                "  --equity-curve          add the Equity Curve sheet",
+                "  --monte-carlo N         add the Monte Carlo sheet with N simulations",
+                "  --seed N                seed of the Monte Carlo simulations (default: 1)",
+                "  --rolling WINDOW        add the Rolling Statistics sheet over N trades or a duration (12h, 30d, 4w)",
+                "  --symbol-performance    add the Symbol Performance sheet",
+                "  --drill-down            add the Trades sheet, every trade grouped by month",
+                "  --max-rejects BUDGET    fail an export with more invalid lines, a number or a share such as 1%",
+                "  --snapshot              keep a binary snapshot of each export",
+                "  --portfolio             write " + Portfolio.FILE_NAME + " across all exports",
+                "  --buckets GRANULARITY   day, week, month, quarter or session (default: month)",
+                "  --source-zone ZONE      zone of the export's times (default: UTC)",
+                "  --target-zone ZONE      zone the buckets are counted in (default: source zone)",
+                "  --help                  print this help",
+                "",
+                "Exit codes: " + EXIT_SUCCESS + " success, " + EXIT_FAILED_FILES + " some exports failed, "
+                        + EXIT_USAGE + " usage error, " + EXIT_NO_INPUT + " no matching export, "
+                        + EXIT_ERROR + " aborted");
+    }
+
+    private static String value(String[] args, int i, String flag) {
+        if (i >= args.length || args[i].startsWith("--")) {
+            throw new IllegalArgumentException(flag + " needs a value");
+        }
+        return args[i];
+    }
+
+    private static int intValue(String[] args, int i, String flag) {
+        long value = longValue(args, i, flag);
+        if (value != (int) value) {
+            throw new IllegalArgumentException(flag + " is out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long longValue(String[] args, int i, String flag) {
+        String value = value(args, i, flag);
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(flag + " needs a number, got " + value);
+        }
+    }
+
+    private static ZoneId zoneValue(String[] args, int i, String flag) {
+        String value = value(args, i, flag);
+        try {
+            return ZoneId.of(value).normalized();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(flag + " needs a zone such as UTC or Europe/Athens, got " + value);
+        }
+    }
+}
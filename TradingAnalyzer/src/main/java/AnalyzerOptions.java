@@ -0,0 +1,244 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Run settings of {@link TradeProfitAnalyzer}, read from system properties
+ * (for example {@code -Danalyzer.workers=8}) and overridden by the command line, see {@link AnalyzerCommandLine}.
+ */
+public final class AnalyzerOptions {
+
+    static final String REJECTS_EXTENSION = ".rejects.txt";
+
+    // Directories whose exports are analysed, the working directory unless given
+    List<Path> inputDirectories = List.of(Paths.get("."));
+
+    // Where the results are written, next to each export when null
+    Path outputDirectory;
+
+    // File name pattern of the exports
+    String glob = "*.{csv,CSV}";
+
+    // Only XLSX has the optional sheets, the other formats hold the net profit per bucket
+    Set<OutputFormat> outputFormats = EnumSet.of(OutputFormat.XLSX);
+
+    // Prints the time and throughput of every phase after a batch run
+    boolean stats;
+
+    // 1 keeps the sequential file loop, more than 1 analyses files concurrently
+    int workers = 1;
+
+    // Parse each file from a memory mapping, in chunks on the common fork/join pool
+    boolean mapped;
+
+    // Write workbooks through SXSSF with a bounded row window, false keeps the whole XSSF workbook in memory
+    boolean streamingWorkbook = true;
+
+    // Skip unchanged exports and parse only appended lines, see AnalysisCache
+    boolean incremental;
+
+    // Keep running and re-analyse exports as they change, always incremental
+    boolean watch;
+
+    // Adds the Breakdown sheet (by symbol, weekday and hour) from the columnar trade store
+    boolean breakdown;
+
+    // Adds the Equity Curve sheet (drawdown statistics and chart) from the columnar trade store
+    boolean equityCurve;
+
+    // Bootstrap simulations of the trade sequence for the Monte Carlo sheet, 0 leaves the sheet out
+    int monteCarloSimulations;
+    long monteCarloSeed = 1;
+
+    // Adds the Rolling Statistics sheet over a window of trades or of close time, null leaves it out
+    RollingStatistics.Window rollingWindow;
+
+    // Adds the Symbol Performance sheet (win rate, profit factor, costs by symbol and type)
+    boolean symbolPerformance;
+
+    // Adds the Trades sheet with every trade grouped by month, written while parsing; the export is then
+    // parsed sequentially even with mapped, as rows are written in file order
+    boolean drillDown;
+
+    // Buckets of the first sheet, and the zones of the export's times and of the buckets (analyzer.buckets,
+    // analyzer.sourceZone, analyzer.targetZone). The target zone defaults to the source zone, which defaults to UTC
+    TradeBuckets.Granularity granularity = TradeBuckets.Granularity.MONTH;
+    ZoneId sourceZone = ZoneOffset.UTC;
+    ZoneId targetZone = ZoneOffset.UTC;
+
+    // Writes Portfolio_Analysis.xlsx from the monthly and per-symbol aggregates of every export, not in watch mode
+    boolean portfolio;
+
+    // Keep a binary snapshot of each export with its results and load it instead of parsing while the export is unchanged
+    boolean snapshot;
+
+    // Rejected lines a file may have before it fails, as a number or a share of its lines (analyzer.maxRejects)
+    TradeRejects.Budget rejectBudget = TradeRejects.Budget.UNLIMITED;
+
+    // Export layouts detected from the header line, user-defined ones (analyzer.formats) ahead of the built-in ones
+    List<TradeFormat> formats = TradeFormat.BUILT_IN;
+
+    /**
+     * @return whether a report needs every trade in the columnar store
+     */
+    boolean needsTradeColumns() {
+        return breakdown || equityCurve || monteCarloSimulations > 0 || rollingWindow != null || snapshot;
+    }
+
+    /**
+     * @return whether a report needs more than the monthly totals, which rules out the incremental cache
+     */
+    boolean needsFullParse() {
+        return needsTradeColumns() || symbolPerformance || customBuckets() || drillDown;
+    }
+
+    /**
+     * @return whether the first sheet is bucketed other than by calendar month of the export's times
+     */
+    boolean customBuckets() {
+        return granularity != TradeBuckets.Granularity.MONTH || !sourceZone.equals(targetZone);
+    }
+
+    /**
+     * @return new buckets of the configured granularity and zones, one per parsing thread
+     */
+    TradeBuckets buckets() {
+        return new TradeBuckets(granularity, sourceZone, targetZone);
+    }
+
+    public static AnalyzerOptions fromSystemProperties() {
+        AnalyzerOptions options = new AnalyzerOptions();
+        String directory = System.getProperty("analyzer.dir");
+        if (directory != null) {
+            options.inputDirectories = List.of(Paths.get(directory));
+        }
+        options.workers = Integer.getInteger("analyzer.workers", 1);
+        options.mapped = Boolean.getBoolean("analyzer.mapped");
+        options.streamingWorkbook = Boolean.parseBoolean(System.getProperty("analyzer.streaming", "true"));
+        options.incremental = Boolean.getBoolean("analyzer.incremental");
+        options.watch = Boolean.getBoolean("analyzer.watch");
+        options.breakdown = Boolean.getBoolean("analyzer.breakdown");
+        options.equityCurve = Boolean.getBoolean("analyzer.equityCurve");
+        options.monteCarloSimulations = Integer.getInteger("analyzer.monteCarlo", 0);
+        options.monteCarloSeed = Long.getLong("analyzer.monteCarloSeed", 1);
+        options.symbolPerformance = Boolean.getBoolean("analyzer.symbolPerformance");
+        options.snapshot = Boolean.getBoolean("analyzer.snapshot");
+        options.drillDown = Boolean.getBoolean("analyzer.drillDown");
+        String rolling = System.getProperty("analyzer.rolling");
+        if (rolling != null) {
+            options.rollingWindow = RollingStatistics.Window.of(rolling);
+        }
+        options.portfolio = Boolean.getBoolean("analyzer.portfolio");
+        options.granularity = TradeBuckets.Granularity.of(System.getProperty("analyzer.buckets", "month"));
+        options.sourceZone = ZoneId.of(System.getProperty("analyzer.sourceZone", "UTC")).normalized();
+        options.targetZone = ZoneId.of(System.getProperty("analyzer.targetZone", options.sourceZone.getId())).normalized();
+        String maxRejects = System.getProperty("analyzer.maxRejects");
+        if (maxRejects != null) {
+            options.rejectBudget = TradeRejects.Budget.of(maxRejects);
+        }
+        String formatsFile = System.getProperty("analyzer.formats");
+        if (formatsFile != null) {
+            options.loadFormats(Paths.get(formatsFile));
+        }
+        options.validate();
+        return options;
+    }
+
+    void loadFormats(Path formatsFile) {
+        try {
+            formats = TradeFormat.withBuiltIn(TradeFormat.load(formatsFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read export formats " + formatsFile, e);
+        }
+    }
+
+    void validate() {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1, was " + workers);
+        }
+        if (monteCarloSimulations < 0) {
+            throw new IllegalArgumentException("Monte Carlo simulations must not be negative, was " + monteCarloSimulations);
+        }
+        if (inputDirectories.isEmpty()) {
+            throw new IllegalArgumentException("No input directory");
+        }
+        if (watch && inputDirectories.size() > 1) {
+            throw new IllegalArgumentException("Watch mode takes a single input directory");
+        }
+        if (outputFormats.isEmpty()) {
+            throw new IllegalArgumentException("No output format");
+        }
+        // Throws on an invalid pattern
+        exportMatcher();
+    }
+
+    /**
+     * @return whether a file name matches {@link #glob} and is not a CSV result of an earlier run
+     */
+    PathMatcher exportMatcher() {
+        PathMatcher exports = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        return fileName -> exports.matches(fileName) && !fileName.toString().endsWith(OutputFormat.CSV.extension);
+    }
+
+    /**
+     * @return file of the given format for an export: next to it, in the output directory, or in a sub-directory
+     * named after its input directory when several are analysed into one output directory
+     */
+    Path outputFileFor(File csvFile, OutputFormat format) {
+        String name = baseName(csvFile) + format.extension;
+        Path directory = csvFile.getAbsoluteFile().toPath().getParent();
+        if (outputDirectory == null) {
+            return directory.resolve(name);
+        }
+        if (inputDirectories.size() > 1) {
+            return outputDirectory.resolve(directory.getFileName().toString()).resolve(name);
+        }
+        return outputDirectory.resolve(name);
+    }
+
+    /**
+     * @return plain text list of the rejected lines of an export, next to its other results
+     */
+    Path rejectsFileFor(File csvFile) {
+        Path first = outputFileFor(csvFile, OutputFormat.XLSX);
+        return first.resolveSibling(baseName(csvFile) + REJECTS_EXTENSION);
+    }
+
+    /**
+     * @return binary snapshot of an export, next to its other results
+     */
+    Path snapshotFileFor(File csvFile) {
+        Path first = outputFileFor(csvFile, OutputFormat.XLSX);
+        return first.resolveSibling(baseName(csvFile) + TradeSnapshot.FILE_EXTENSION);
+    }
+
+    /**
+     * @return files of all output formats for an export, in the order of {@link OutputFormat}
+     */
+    List<Path> outputFilesFor(File csvFile) {
+        List<Path> files = new ArrayList<>();
+        for (OutputFormat format : outputFormats) {
+            files.add(outputFileFor(csvFile, format));
+        }
+        return files;
+    }
+
+    /**
+     * @return file name of the export without its extension
+     */
+    static String baseName(File csvFile) {
+        String name = csvFile.getName();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+}
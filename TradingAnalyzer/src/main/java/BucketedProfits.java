@@ -0,0 +1,42 @@
+import java.util.Map;
+
+/**
+ * Net profit per bucket of {@link TradeBuckets} (day, week, month, quarter or session) of the close time.
+ * The sums are kept in a {@link MonthlyProfits}, whose dense slots work for any bucket index.
+ */
+public final class BucketedProfits implements TradeRowHandler {
+
+    private final TradeBuckets buckets;
+    private final MonthlyProfits totals = new MonthlyProfits();
+
+    public BucketedProfits(TradeBuckets buckets) {
+        this.buckets = buckets;
+    }
+
+    @Override
+    public void onTrade(TradeRow row) {
+        totals.add(buckets.index(row.closeTime()), row.profit());
+    }
+
+    public void add(long closeTime, double profit) {
+        totals.add(buckets.index(closeTime), profit);
+    }
+
+    /**
+     * Adds the totals of another accumulator with the same granularity.
+     */
+    public void merge(BucketedProfits other) {
+        totals.merge(other.totals);
+    }
+
+    public TradeBuckets.Granularity granularity() {
+        return buckets.granularity();
+    }
+
+    /**
+     * @return bucket label to net profit, in chronological order
+     */
+    public Map<String, Double> toMap() {
+        return totals.toMap(buckets::label);
+    }
+}
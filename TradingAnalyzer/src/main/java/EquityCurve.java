@@ -0,0 +1,208 @@
+import java.util.Arrays;
+
+/**
+ * Cumulative net profit of an export in close time order, with its drawdown statistics.
+ *
+ * The curve starts at 0 before the first trade. Everything is computed in one pass over primitive arrays,
+ * so multi-million trade histories cost two arrays of their length and no boxing.
+ */
+public final class EquityCurve {
+
+    // Close time and equity after each trade, in close time order
+    final long[] times;
+    final double[] equity;
+
+    private double maxDrawdown;
+    private long maxDrawdownPeakTime;
+    private long maxDrawdownTroughTime;
+    private long longestDrawdownSeconds;
+    private long longestDrawdownStart;
+    private int longestLosingStreak;
+    private double longestLosingStreakLoss;
+
+    private EquityCurve(long[] times, double[] equity) {
+        this.times = times;
+        this.equity = equity;
+    }
+
+    public static EquityCurve of(TradeColumns columns) {
+        int[] order = columns.orderByCloseTime();
+        long[] times = new long[order.length];
+        double[] equity = new double[order.length];
+        double balance = 0;
+        for (int i = 0; i < order.length; i++) {
+            times[i] = columns.closeTimes[order[i]];
+            balance += columns.profits[order[i]];
+            equity[i] = balance;
+        }
+
+        EquityCurve curve = new EquityCurve(times, equity);
+        curve.computeDrawdowns();
+        curve.computeLosingStreaks(columns.profits, order);
+        return curve;
+    }
+
+    public int size() {
+        return equity.length;
+    }
+
+    public double netProfit() {
+        return equity.length == 0 ? 0 : equity[equity.length - 1];
+    }
+
+    /**
+     * @return largest fall from a peak of the curve, positive or 0
+     */
+    public double maxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public long maxDrawdownPeakTime() {
+        return maxDrawdownPeakTime;
+    }
+
+    public long maxDrawdownTroughTime() {
+        return maxDrawdownTroughTime;
+    }
+
+    /**
+     * @return longest time from a peak until the curve is back at it, or until the last trade if it never is
+     */
+    public long longestDrawdownSeconds() {
+        return longestDrawdownSeconds;
+    }
+
+    public long longestDrawdownStart() {
+        return longestDrawdownStart;
+    }
+
+    /**
+     * @return most losing trades in a row
+     */
+    public int longestLosingStreak() {
+        return longestLosingStreak;
+    }
+
+    public double longestLosingStreakLoss() {
+        return longestLosingStreakLoss;
+    }
+
+    /**
+     * @return net profit / max drawdown, NaN without a drawdown
+     */
+    public double recoveryFactor() {
+        return maxDrawdown == 0 ? Double.NaN : netProfit() / maxDrawdown;
+    }
+
+    /**
+     * @param indices ascending point indices, as returned by {@link #downsample(int)}
+     * @return drawdown from the running peak at each of the points, 0 or negative
+     */
+    public double[] drawdownsAt(int[] indices) {
+        double[] drawdowns = new double[indices.length];
+        double peak = 0;
+        int next = 0;
+        for (int i = 0; i < equity.length && next < indices.length; i++) {
+            peak = Math.max(peak, equity[i]);
+            if (indices[next] == i) {
+                drawdowns[next++] = equity[i] - peak;
+            }
+        }
+        return drawdowns;
+    }
+
+    /**
+     * Picks the lowest and highest point of each of {@code buckets} equal slices, so peaks and troughs
+     * survive downsampling, plus the last point.
+     *
+     * @return indices of the kept points, ascending
+     */
+    public int[] downsample(int buckets) {
+        int n = equity.length;
+        if (n <= 2 * buckets) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] kept = new int[2 * buckets + 1];
+        int count = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int from = (int) ((long) bucket * n / buckets);
+            int to = (int) ((long) (bucket + 1) * n / buckets);
+            int low = from;
+            int high = from;
+            for (int i = from + 1; i < to; i++) {
+                if (equity[i] < equity[low]) {
+                    low = i;
+                }
+                if (equity[i] > equity[high]) {
+                    high = i;
+                }
+            }
+            kept[count++] = Math.min(low, high);
+            if (low != high) {
+                kept[count++] = Math.max(low, high);
+            }
+        }
+        // The final equity is always shown
+        if (kept[count - 1] != n - 1) {
+            kept[count++] = n - 1;
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    private void computeDrawdowns() {
+        double peak = 0;
+        long peakTime = times.length == 0 ? 0 : times[0];
+        boolean inDrawdown = false;
+        for (int i = 0; i < equity.length; i++) {
+            if (equity[i] >= peak) {
+                if (inDrawdown) {
+                    recordDrawdownDuration(peakTime, times[i]);
+                    inDrawdown = false;
+                }
+                peak = equity[i];
+                peakTime = times[i];
+                continue;
+            }
+            inDrawdown = true;
+            if (peak - equity[i] > maxDrawdown) {
+                maxDrawdown = peak - equity[i];
+                maxDrawdownPeakTime = peakTime;
+                maxDrawdownTroughTime = times[i];
+            }
+        }
+        if (inDrawdown) {
+            recordDrawdownDuration(peakTime, times[times.length - 1]);
+        }
+    }
+
+    private void recordDrawdownDuration(long start, long end) {
+        if (end - start > longestDrawdownSeconds) {
+            longestDrawdownSeconds = end - start;
+            longestDrawdownStart = start;
+        }
+    }
+
+    private void computeLosingStreaks(double[] profits, int[] order) {
+        int streak = 0;
+        double streakLoss = 0;
+        for (int i = 0; i < order.length; i++) {
+            double profit = profits[order[i]];
+            if (profit < 0) {
+                streak++;
+                streakLoss += profit;
+                if (streak > longestLosingStreak) {
+                    longestLosingStreak = streak;
+                    longestLosingStreakLoss = streakLoss;
+                }
+            } else {
+                streak = 0;
+                streakLoss = 0;
+            }
+        }
+    }
+}
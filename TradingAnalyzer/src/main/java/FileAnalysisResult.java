@@ -0,0 +1,72 @@
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Outcome of analysing one CSV export, successful or not.
+ */
+public final class FileAnalysisResult {
+
+    enum Outcome {
+        ANALYZED,
+        // Only lines appended since the cached run were parsed
+        APPENDED,
+        // Cached aggregates and workbook are still current, nothing was parsed or written
+        UNCHANGED
+    }
+
+    final File csvFile;
+    // One file per output format
+    final List<Path> outputFiles;
+    final long linesRead;
+    final long bytesRead;
+    final int tradeCount;
+    final long elapsedNanos;
+    // Parts of elapsedNanos spent reading the export and writing the results, for --stats
+    final long parseNanos;
+    final long writeNanos;
+    final Outcome outcome;
+    final Exception error;
+    // Aggregates of the account, kept for the portfolio workbook. Per-symbol statistics only when collected
+    final MonthlyProfits monthlyProfits;
+    final SymbolPerformance symbolPerformance;
+    // Lines the parser skipped, null when nothing was parsed
+    final TradeRejects rejects;
+
+    private FileAnalysisResult(File csvFile, List<Path> outputFiles, long linesRead, long bytesRead, int tradeCount,
+                               long elapsedNanos, long parseNanos, long writeNanos, Outcome outcome, Exception error,
+                               MonthlyProfits monthlyProfits, SymbolPerformance symbolPerformance,
+                               TradeRejects rejects) {
+        this.csvFile = csvFile;
+        this.outputFiles = outputFiles;
+        this.linesRead = linesRead;
+        this.bytesRead = bytesRead;
+        this.tradeCount = tradeCount;
+        this.elapsedNanos = elapsedNanos;
+        this.parseNanos = parseNanos;
+        this.writeNanos = writeNanos;
+        this.outcome = outcome;
+        this.error = error;
+        this.monthlyProfits = monthlyProfits;
+        this.symbolPerformance = symbolPerformance;
+        this.rejects = rejects;
+    }
+
+    static FileAnalysisResult success(File csvFile, List<Path> outputFiles, long linesRead, long bytesRead,
+                                      MonthlyProfits monthlyProfits, SymbolPerformance symbolPerformance,
+                                      TradeRejects rejects, long elapsedNanos, long parseNanos, long writeNanos,
+                                      Outcome outcome) {
+        return new FileAnalysisResult(csvFile, outputFiles, linesRead, bytesRead, monthlyProfits.getTradeCount(),
+                elapsedNanos, parseNanos, writeNanos, outcome, null, monthlyProfits, symbolPerformance, rejects);
+    }
+
+    static FileAnalysisResult failure(File csvFile, List<Path> outputFiles, long linesRead, long elapsedNanos,
+                                      Exception error) {
+        return new FileAnalysisResult(csvFile, outputFiles, linesRead, 0, 0, elapsedNanos, 0, 0, null, error,
+                null, null, null);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,203 @@
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Decides from the {@link AnalysisCache} how much of an export has to be parsed again:
+ * nothing when it is unchanged, only the new bytes when lines were appended, or all of it.
+ */
+final class IncrementalAnalysis {
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    final MonthlyProfits monthlyProfits;
+    // Null unless asked for
+    final SymbolPerformance symbolPerformance;
+    final FileAnalysisResult.Outcome outcome;
+    // Lines and bytes parsed by this run only
+    final long linesRead;
+    final long bytesRead;
+    // Lines rejected by this run, numbered from the first line it parsed; null if nothing was parsed
+    final TradeRejects rejects;
+    final AnalysisCache.Entry entry;
+
+    private IncrementalAnalysis(FileAnalysisResult.Outcome outcome, long linesRead, long bytesRead,
+                                TradeRejects rejects, AnalysisCache.Entry entry) {
+        this.monthlyProfits = entry.monthlyProfits;
+        this.symbolPerformance = entry.symbolPerformance;
+        this.outcome = outcome;
+        this.linesRead = linesRead;
+        this.bytesRead = bytesRead;
+        this.rejects = rejects;
+        this.entry = entry;
+    }
+
+    /**
+     * @param outputExists whether the workbook of an earlier run is still there, unchanged files are only skipped if so
+     * @param formats      formats to detect from the header line
+     * @param withSymbols  whether the per-symbol statistics are collected and cached as well
+     * @param rejectBudget rejected lines the parsed part may have
+     */
+    static IncrementalAnalysis analyze(Path csvFile, AnalysisCache.Entry cached, boolean outputExists,
+                                       List<TradeFormat> formats, boolean withSymbols,
+                                       TradeRejects.Budget rejectBudget) throws IOException {
+        // Later writes to the file are picked up by the next run, this one parses up to the current size
+        long size = Files.size(csvFile);
+        long lastModified = Files.getLastModifiedTime(csvFile).toMillis();
+
+        // Entries of runs without the per-symbol statistics cannot serve this one
+        if (withSymbols && cached != null && cached.symbolPerformance == null) {
+            cached = null;
+        }
+
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            CRC32C hash = new CRC32C();
+
+            if (cached != null && outputExists && cached.size == size) {
+                if (cached.lastModified == lastModified || hashPrefix(channel, size, hash) == cached.contentHash) {
+                    AnalysisCache.Entry entry = new AnalysisCache.Entry(size, lastModified, cached.contentHash,
+                            cached.endsWithNewLine, cached.linesRead, cached.monthlyProfits,
+                            withSymbols ? cached.symbolPerformance : null, cached.rejects);
+                    return new IncrementalAnalysis(FileAnalysisResult.Outcome.UNCHANGED, 0, 0, null, entry);
+                }
+                hash.reset();
+            }
+
+            // Append-only exports: the old content is untouched, so only the tail has to be parsed
+            if (cached != null && cached.endsWithNewLine && cached.linesRead > 0 && size > cached.size
+                    && hashPrefix(channel, cached.size, hash) == cached.contentHash) {
+                // Continue the cached sums in file order, which gives the same totals as a full parse. They are
+                // continued in copies: the cached entry must stay as it is if this run fails before replacing it
+                MonthlyProfits monthlyProfits = new MonthlyProfits();
+                monthlyProfits.merge(cached.monthlyProfits);
+                SymbolPerformance symbolPerformance = null;
+                if (withSymbols) {
+                    symbolPerformance = new SymbolPerformance();
+                    symbolPerformance.merge(cached.symbolPerformance);
+                }
+                // The tail has no header, the columns are those of the file's header
+                TradeCsvParser parser = new TradeCsvParser(false,
+                        TradeFormat.detect(csvFile, Charset.defaultCharset(), formats));
+                parser.setRejectBudget(rejectBudget);
+                parse(channel, cached.size, size, hash, parser, handler(monthlyProfits, symbolPerformance));
+                // The outputs list the rejects of the whole file, the tail's lines follow the cached ones
+                TradeRejects rejects = new TradeRejects(TradeRejects.Budget.UNLIMITED);
+                rejects.merge(cached.rejects, 0);
+                rejects.merge(parser.getRejects(), cached.linesRead);
+
+                AnalysisCache.Entry entry = new AnalysisCache.Entry(size, lastModified, hash.getValue(),
+                        endsWithNewLine(channel, size), cached.linesRead + parser.getLinesRead(), monthlyProfits,
+                        symbolPerformance, rejects);
+                return new IncrementalAnalysis(FileAnalysisResult.Outcome.APPENDED, parser.getLinesRead(),
+                        size - cached.size, parser.getRejects(), entry);
+            }
+
+            hash.reset();
+            MonthlyProfits monthlyProfits = new MonthlyProfits();
+            SymbolPerformance symbolPerformance = withSymbols ? new SymbolPerformance() : null;
+            TradeCsvParser parser = new TradeCsvParser(formats);
+            parser.setRejectBudget(rejectBudget);
+            parse(channel, 0, size, hash, parser, handler(monthlyProfits, symbolPerformance));
+
+            AnalysisCache.Entry entry = new AnalysisCache.Entry(size, lastModified, hash.getValue(),
+                    endsWithNewLine(channel, size), parser.getLinesRead(), monthlyProfits, symbolPerformance,
+                    parser.getRejects());
+            return new IncrementalAnalysis(FileAnalysisResult.Outcome.ANALYZED, parser.getLinesRead(), size,
+                    parser.getRejects(), entry);
+        }
+    }
+
+    private static TradeRowHandler handler(MonthlyProfits monthlyProfits, SymbolPerformance symbolPerformance) {
+        if (symbolPerformance == null) {
+            return monthlyProfits;
+        }
+        return row -> {
+            monthlyProfits.onTrade(row);
+            symbolPerformance.onTrade(row);
+        };
+    }
+
+    // Hashes while parsing, so a full or tail parse reads every byte only once
+    private static void parse(FileChannel channel, long from, long to, CRC32C hash, TradeCsvParser parser,
+                              TradeRowHandler handler) throws IOException {
+        channel.position(from);
+        InputStream bytes = new CheckedInputStream(new LimitedInputStream(Channels.newInputStream(channel), to - from), hash);
+        // Same platform charset FileReader uses for the regular parse
+        Reader reader = new InputStreamReader(bytes, Charset.defaultCharset());
+        parser.parse(reader, handler);
+    }
+
+    private static long hashPrefix(FileChannel channel, long length, CRC32C hash) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+        long position = 0;
+        while (position < length) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), length - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            hash.update(buffer);
+            position += read;
+        }
+        return hash.getValue();
+    }
+
+    private static boolean endsWithNewLine(FileChannel channel, long size) throws IOException {
+        if (size == 0) {
+            return false;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        byte value = last.get(0);
+        return value == '\n' || value == '\r';
+    }
+
+    // Stops at the size taken before parsing, even if the exporter keeps writing
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int value = super.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
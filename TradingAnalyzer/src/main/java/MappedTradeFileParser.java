@@ -0,0 +1,227 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Parses one large export on every core: the file is memory mapped, cut into
+ * line-aligned chunks and each chunk is parsed into its own handler, which are
+ * then merged pairwise by a fork/join task.
+ *
+ * Totals are summed per chunk before merging, so they can differ from the
+ * sequential parse in the last bits of a double.
+ *
+ * Every chunk collects its own rejected lines, numbered from its first line. Once all chunks are
+ * parsed they are renumbered in file order and the reject budget is checked over the whole file.
+ */
+public final class MappedTradeFileParser {
+
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 32L << 20;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private static final int BOUNDARY_PROBE_SIZE = 8 * 1024;
+
+    private final ForkJoinPool pool;
+    private final Charset charset;
+    private final List<TradeFormat> formats;
+    private TradeRejects.Budget rejectBudget = TradeRejects.Budget.UNLIMITED;
+
+    // Results of the last parsed file, each chunk task fills its own slot
+    private long[] chunkLines = new long[0];
+    private TradeRejects[] chunkRejects = new TradeRejects[0];
+    private long linesRead;
+    private TradeRejects rejects = new TradeRejects(TradeRejects.Budget.UNLIMITED);
+
+    public MappedTradeFileParser(ForkJoinPool pool) {
+        // FileReader decodes with the platform charset, keep the same bytes to chars mapping
+        this(pool, Charset.defaultCharset());
+    }
+
+    public MappedTradeFileParser(ForkJoinPool pool, Charset charset) {
+        this(pool, charset, TradeFormat.BUILT_IN);
+    }
+
+    /**
+     * @param formats formats to detect from the header line, the detected columns are used by every chunk
+     */
+    public MappedTradeFileParser(ForkJoinPool pool, Charset charset, List<TradeFormat> formats) {
+        this.pool = pool;
+        this.charset = charset;
+        this.formats = formats;
+    }
+
+    /**
+     * @param handlers creates the handler filled by one chunk
+     * @param merger   adds the second handler into the first one
+     * @return the merged handler of all chunks, in file order
+     */
+    public <H extends TradeRowHandler> H parse(Path file, Supplier<H> handlers, BiConsumer<H, H> merger) throws IOException {
+        // Only the first chunk sees the header, so the format is detected up front
+        TradeFormat.Mapping mapping = TradeFormat.detect(file, charset, formats);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel);
+            chunkLines = new long[boundaries.length - 1];
+            chunkRejects = new TradeRejects[boundaries.length - 1];
+            H result;
+            try {
+                result = pool.invoke(new ChunkTask<>(channel, boundaries, 0, boundaries.length - 1, mapping, handlers, merger));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            linesRead = 0;
+            rejects = new TradeRejects(rejectBudget);
+            for (int chunk = 0; chunk < chunkLines.length; chunk++) {
+                if (chunkRejects[chunk] != null) {
+                    rejects.merge(chunkRejects[chunk], linesRead);
+                }
+                linesRead += chunkLines[chunk];
+            }
+            rejects.checkBudget(linesRead);
+            return result;
+        }
+    }
+
+    /**
+     * @return number of physical lines of the last parsed file, header and blank lines included
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * Budget of rejected lines for the following files, see {@link TradeRejects}.
+     */
+    void setRejectBudget(TradeRejects.Budget budget) {
+        rejectBudget = budget;
+    }
+
+    /**
+     * @return lines rejected in the last parsed file, numbered in file order
+     */
+    TradeRejects getRejects() {
+        return rejects;
+    }
+
+    /**
+     * Splits the file at the first line feed after every nominal chunk size.
+     */
+    private long[] chunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkSize = size / ((long) pool.getParallelism() * CHUNKS_PER_WORKER);
+        chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, chunkSize));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(BOUNDARY_PROBE_SIZE);
+        long position = chunkSize;
+        while (position < size) {
+            long lineEnd = nextLineStart(channel, position, probe);
+            if (lineEnd >= size) {
+                break;
+            }
+            boundaries.add(lineEnd);
+            position = lineEnd + chunkSize;
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    // A line feed byte never occurs inside a multi-byte character, so the split is safe to decode
+    private static long nextLineStart(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private final class ChunkTask<H extends TradeRowHandler> extends RecursiveTask<H> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long[] boundaries;
+        private final int from;
+        private final int to;
+        private final TradeFormat.Mapping mapping;
+        private final Supplier<H> handlers;
+        private final BiConsumer<H, H> merger;
+
+        ChunkTask(FileChannel channel, long[] boundaries, int from, int to, TradeFormat.Mapping mapping,
+                  Supplier<H> handlers, BiConsumer<H, H> merger) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+            this.from = from;
+            this.to = to;
+            this.mapping = mapping;
+            this.handlers = handlers;
+            this.merger = merger;
+        }
+
+        @Override
+        protected H compute() {
+            if (to - from <= 1) {
+                return parseChunk(from);
+            }
+
+            int middle = (from + to) >>> 1;
+            ChunkTask<H> left = new ChunkTask<>(channel, boundaries, from, middle, mapping, handlers, merger);
+            ChunkTask<H> right = new ChunkTask<>(channel, boundaries, middle, to, mapping, handlers, merger);
+            left.fork();
+            H rightResult = right.compute();
+            H leftResult = left.join();
+            merger.accept(leftResult, rightResult);
+            return leftResult;
+        }
+
+        private H parseChunk(int chunk) {
+            H handler = handlers.get();
+            long start = boundaries[chunk];
+            long length = boundaries[chunk + 1] - start;
+            if (length == 0) {
+                return handler;
+            }
+
+            try {
+                // Decoded straight from the mapping, so only the chars of the chunk are held on the heap
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                CharBuffer chars = charset.decode(mapped);
+
+                // Only the first chunk starts with the header line
+                TradeCsvParser parser = new TradeCsvParser(chunk == 0, mapping);
+                parser.setRejectBudget(rejectBudget);
+                parser.parse(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining(), handler);
+                chunkLines[chunk] = parser.getLinesRead();
+                chunkRejects[chunk] = parser.getRejects();
+                return handler;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
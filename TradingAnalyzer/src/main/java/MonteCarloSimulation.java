@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Bootstrap resampling of a trade history: every simulation draws as many trades as the history has,
+ * with replacement, and records the final equity and max drawdown of that sequence.
+ *
+ * Simulations are split into a fixed number of slices, each with its own {@link SplittableRandom} split
+ * from the seed, and the pool runs the slices on its workers. The slices do not depend on the pool, so
+ * a run is reproducible for a given seed on any machine. The inner loop only reads the profit array and
+ * writes the two result slots of its simulation.
+ */
+public final class MonteCarloSimulation {
+
+    static final double[] PERCENTILES = {1, 5, 10, 25, 50, 75, 90, 95, 99};
+
+    // Enough slices to keep the workers of any usual machine busy
+    private static final int SLICES = 64;
+
+    private final int simulations;
+    private final int tradesPerSimulation;
+    // Sorted ascending once all simulations are done
+    private final double[] finalEquities;
+    private final double[] maxDrawdowns;
+
+    private MonteCarloSimulation(int simulations, int tradesPerSimulation) {
+        this.simulations = simulations;
+        this.tradesPerSimulation = tradesPerSimulation;
+        this.finalEquities = new double[simulations];
+        this.maxDrawdowns = new double[simulations];
+    }
+
+    /**
+     * @param profits     net profit of each trade of the history
+     * @param simulations number of resampled sequences
+     * @param pool        runs the slices of simulations
+     */
+    public static MonteCarloSimulation run(double[] profits, int simulations, long seed, ForkJoinPool pool) {
+        MonteCarloSimulation result = new MonteCarloSimulation(simulations, profits.length);
+        if (profits.length == 0 || simulations == 0) {
+            return result;
+        }
+
+        int slices = Math.min(simulations, SLICES);
+        SplittableRandom root = new SplittableRandom(seed);
+        List<Callable<Void>> tasks = new ArrayList<>(slices);
+        for (int slice = 0; slice < slices; slice++) {
+            int from = (int) ((long) slice * simulations / slices);
+            int to = (int) ((long) (slice + 1) * simulations / slices);
+            SplittableRandom random = root.split();
+            tasks.add(() -> {
+                result.simulate(profits, from, to, random);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> task : pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Monte Carlo simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+
+        Arrays.sort(result.finalEquities);
+        Arrays.sort(result.maxDrawdowns);
+        return result;
+    }
+
+    public int simulations() {
+        return simulations;
+    }
+
+    public int tradesPerSimulation() {
+        return tradesPerSimulation;
+    }
+
+    /**
+     * @param percentile 0 to 100
+     */
+    public double finalEquityPercentile(double percentile) {
+        return percentile(finalEquities, percentile);
+    }
+
+    /**
+     * @param percentile 0 to 100, high percentiles are the deep drawdowns
+     */
+    public double maxDrawdownPercentile(double percentile) {
+        return percentile(maxDrawdowns, percentile);
+    }
+
+    /**
+     * @return share of simulations that end below 0, 0 to 1
+     */
+    public double lossProbability() {
+        if (simulations == 0) {
+            return 0;
+        }
+        int losing = 0;
+        while (losing < simulations && finalEquities[losing] < 0) {
+            losing++;
+        }
+        return (double) losing / simulations;
+    }
+
+    private void simulate(double[] profits, int from, int to, SplittableRandom random) {
+        int trades = profits.length;
+        for (int simulation = from; simulation < to; simulation++) {
+            double equity = 0;
+            double peak = 0;
+            double maxDrawdown = 0;
+            for (int trade = 0; trade < trades; trade++) {
+                equity += profits[random.nextInt(trades)];
+                if (equity > peak) {
+                    peak = equity;
+                } else if (peak - equity > maxDrawdown) {
+                    maxDrawdown = peak - equity;
+                }
+            }
+            finalEquities[simulation] = equity;
+            maxDrawdowns[simulation] = maxDrawdown;
+        }
+    }
+
+    // Linear interpolation between the closest ranks
+    private static double percentile(double[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        double rank = percentile / 100 * (sorted.length - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+    }
+}
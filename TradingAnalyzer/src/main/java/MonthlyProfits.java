@@ -0,0 +1,176 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+
+/**
+ * Net profit per close month, kept in primitive arrays indexed by year * 12 + (month - 1).
+ */
+public final class MonthlyProfits implements TradeRowHandler {
+
+    private static final int INITIAL_CAPACITY = 24;
+
+    private int firstMonth;
+    private double[] totals = new double[0];
+    private int[] tradeCounts = new int[0];
+
+    @Override
+    public void onTrade(TradeRow row) {
+        add(row.closeMonthIndex(), row.profit());
+    }
+
+    public void add(int monthIndex, double profit) {
+        int slot = slotFor(monthIndex);
+        // The first trade of a month is stored as is, like Map.merge does
+        totals[slot] = tradeCounts[slot] == 0 ? profit : totals[slot] + profit;
+        tradeCounts[slot]++;
+    }
+
+    /**
+     * Adds the totals of another accumulator, month by month.
+     */
+    public void merge(MonthlyProfits other) {
+        for (int i = 0; i < other.tradeCounts.length; i++) {
+            if (other.tradeCounts[i] == 0) {
+                continue;
+            }
+            int slot = slotFor(other.firstMonth + i);
+            totals[slot] = tradeCounts[slot] == 0 ? other.totals[i] : totals[slot] + other.totals[i];
+            tradeCounts[slot] += other.tradeCounts[i];
+        }
+    }
+
+    public int getTradeCount() {
+        int count = 0;
+        for (int tradeCount : tradeCounts) {
+            count += tradeCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return index of the oldest month with a trade, -1 without trades
+     */
+    public int firstTradeMonth() {
+        for (int i = 0; i < tradeCounts.length; i++) {
+            if (tradeCounts[i] > 0) {
+                return firstMonth + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the newest month with a trade, -1 without trades
+     */
+    public int lastTradeMonth() {
+        for (int i = tradeCounts.length - 1; i >= 0; i--) {
+            if (tradeCounts[i] > 0) {
+                return firstMonth + i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return net profit of every month from fromMonth to toMonth inclusive, 0 for months without trades
+     */
+    public double[] totals(int fromMonth, int toMonth) {
+        double[] dense = new double[toMonth - fromMonth + 1];
+        for (int i = 0; i < tradeCounts.length; i++) {
+            int month = firstMonth + i;
+            if (tradeCounts[i] > 0 && month >= fromMonth && month <= toMonth) {
+                dense[month - fromMonth] = totals[i];
+            }
+        }
+        return dense;
+    }
+
+    /**
+     * @return month key (yyyy.MM) to net profit, in chronological order
+     */
+    public Map<String, Double> toMap() {
+        Map<String, Double> monthlyProfits = new TreeMap<>();
+        for (int i = 0; i < tradeCounts.length; i++) {
+            if (tradeCounts[i] > 0) {
+                monthlyProfits.put(monthKey(firstMonth + i), totals[i]);
+            }
+        }
+        return monthlyProfits;
+    }
+
+    /**
+     * The slots work for any ascending int index, see {@link BucketedProfits}.
+     *
+     * @return label of each index with trades to its net profit, in index order
+     */
+    public Map<String, Double> toMap(IntFunction<String> labels) {
+        Map<String, Double> profits = new LinkedHashMap<>();
+        for (int i = 0; i < tradeCounts.length; i++) {
+            if (tradeCounts[i] > 0) {
+                profits.put(labels.apply(firstMonth + i), totals[i]);
+            }
+        }
+        return profits;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(firstMonth);
+        out.writeInt(totals.length);
+        for (int i = 0; i < totals.length; i++) {
+            out.writeDouble(totals[i]);
+            out.writeInt(tradeCounts[i]);
+        }
+    }
+
+    public static MonthlyProfits readFrom(DataInput in) throws IOException {
+        MonthlyProfits monthlyProfits = new MonthlyProfits();
+        monthlyProfits.firstMonth = in.readInt();
+        int length = in.readInt();
+        monthlyProfits.totals = new double[length];
+        monthlyProfits.tradeCounts = new int[length];
+        for (int i = 0; i < length; i++) {
+            monthlyProfits.totals[i] = in.readDouble();
+            monthlyProfits.tradeCounts[i] = in.readInt();
+        }
+        return monthlyProfits;
+    }
+
+    public static String monthKey(int monthIndex) {
+        return String.format("%04d.%02d", monthIndex / 12, monthIndex % 12 + 1);
+    }
+
+    private int slotFor(int monthIndex) {
+        if (totals.length == 0) {
+            firstMonth = monthIndex;
+            totals = new double[INITIAL_CAPACITY];
+            tradeCounts = new int[INITIAL_CAPACITY];
+        }
+
+        int slot = monthIndex - firstMonth;
+        if (slot < 0) {
+            // Grow towards older months
+            int shift = Math.max(-slot, INITIAL_CAPACITY);
+            double[] grownTotals = new double[totals.length + shift];
+            int[] grownCounts = new int[tradeCounts.length + shift];
+            System.arraycopy(totals, 0, grownTotals, shift, totals.length);
+            System.arraycopy(tradeCounts, 0, grownCounts, shift, tradeCounts.length);
+            totals = grownTotals;
+            tradeCounts = grownCounts;
+            firstMonth -= shift;
+            slot += shift;
+        } else if (slot >= totals.length) {
+            int capacity = Math.max(slot + 1, totals.length * 2);
+            double[] grownTotals = new double[capacity];
+            int[] grownCounts = new int[capacity];
+            System.arraycopy(totals, 0, grownTotals, 0, totals.length);
+            System.arraycopy(tradeCounts, 0, grownCounts, 0, tradeCounts.length);
+            totals = grownTotals;
+            tradeCounts = grownCounts;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,30 @@
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * File formats the analysis of an export can be written in, chosen with {@code --format}.
+ */
+public enum OutputFormat {
+    // Workbook with the Monthly Profits sheet and the enabled optional sheets
+    XLSX(".xlsx"),
+    // Net profit per bucket only, written by ProfitsFileWriter without POI
+    CSV(".profits.csv"),
+    JSONL(".profits.jsonl"),
+    BINARY(".profits");
+
+    final String extension;
+
+    OutputFormat(String extension) {
+        this.extension = extension;
+    }
+
+    static OutputFormat of(String name) {
+        for (OutputFormat format : values()) {
+            if (format.name().equals(name.trim().toUpperCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format " + name + ", expected one of "
+                + Arrays.toString(values()).toLowerCase(Locale.ROOT));
+    }
+}
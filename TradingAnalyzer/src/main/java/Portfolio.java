@@ -0,0 +1,269 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consolidation of several accounts, one export each, from their monthly and per-symbol aggregates.
+ *
+ * Monthly totals of every account are laid out on one dense month range, so the combined equity,
+ * contributions and correlations are plain array arithmetic: hundreds of accounts over decades
+ * cost a few thousand doubles each, and no export is parsed again.
+ */
+final class Portfolio {
+
+    static final String FILE_NAME = "Portfolio_Analysis.xlsx";
+
+    // Fewer common months than this leave a correlation undefined
+    static final int MIN_CORRELATION_MONTHS = 3;
+
+    private final List<String> accounts = new ArrayList<>();
+    private final List<MonthlyProfits> monthlyProfits = new ArrayList<>();
+    private final SymbolPerformance symbolPerformance = new SymbolPerformance();
+    private final List<SymbolPerformance> accountTotals = new ArrayList<>();
+
+    // Dense monthly net profit of every account from firstMonth to lastMonth, built on first use
+    private int firstMonth = -1;
+    private int lastMonth = -1;
+    private double[][] returns;
+    private double[] combined;
+
+    /**
+     * @param symbolPerformance per-symbol statistics of the account, null if they were not collected
+     */
+    void add(String account, MonthlyProfits profits, SymbolPerformance symbolPerformance) {
+        accounts.add(account);
+        monthlyProfits.add(profits);
+        accountTotals.add(symbolPerformance == null ? null : symbolPerformance.total());
+        if (symbolPerformance != null) {
+            this.symbolPerformance.merge(symbolPerformance);
+        }
+        returns = null;
+    }
+
+    int accountCount() {
+        return accounts.size();
+    }
+
+    String account(int account) {
+        return accounts.get(account);
+    }
+
+    /**
+     * @return the per-symbol statistics of all accounts merged
+     */
+    SymbolPerformance symbolPerformance() {
+        return symbolPerformance;
+    }
+
+    /**
+     * @return month index of the first portfolio month, -1 without trades
+     */
+    int firstMonth() {
+        layOut();
+        return firstMonth;
+    }
+
+    int monthCount() {
+        layOut();
+        return combined.length;
+    }
+
+    /**
+     * @return net profit of all accounts in each month from {@link #firstMonth()}
+     */
+    double[] combinedProfits() {
+        layOut();
+        return combined;
+    }
+
+    /**
+     * @return cumulative net profit of all accounts at the end of each month
+     */
+    double[] combinedEquity() {
+        layOut();
+        double[] equity = new double[combined.length];
+        double balance = 0;
+        for (int month = 0; month < combined.length; month++) {
+            balance += combined[month];
+            equity[month] = balance;
+        }
+        return equity;
+    }
+
+    int trades(int account) {
+        return monthlyProfits.get(account).getTradeCount();
+    }
+
+    double netProfit(int account) {
+        layOut();
+        double total = 0;
+        for (double profit : returns[account]) {
+            total += profit;
+        }
+        return total;
+    }
+
+    double netProfit() {
+        layOut();
+        double total = 0;
+        for (double profit : combined) {
+            total += profit;
+        }
+        return total;
+    }
+
+    /**
+     * @return share of the portfolio net profit made by the account, NaN if the portfolio broke even
+     */
+    double contribution(int account) {
+        double total = netProfit();
+        return total == 0 ? Double.NaN : netProfit(account) / total;
+    }
+
+    /**
+     * @return all trades of the account as one group, null if the per-symbol statistics were not collected
+     */
+    SymbolPerformance totals(int account) {
+        return accountTotals.get(account);
+    }
+
+    /**
+     * @return largest fall of the month-end equity of the account from its peak, positive or 0
+     */
+    double maxDrawdown(int account) {
+        layOut();
+        return maxDrawdown(returns[account]);
+    }
+
+    double maxDrawdown() {
+        layOut();
+        return maxDrawdown(combined);
+    }
+
+    /**
+     * @return highest monthly net profit of the account while it was trading, NaN without trades
+     */
+    double bestMonth(int account) {
+        double best = Double.NaN;
+        for (double profit : activeMonths(account)) {
+            best = Double.isNaN(best) ? profit : Math.max(best, profit);
+        }
+        return best;
+    }
+
+    double worstMonth(int account) {
+        double worst = Double.NaN;
+        for (double profit : activeMonths(account)) {
+            worst = Double.isNaN(worst) ? profit : Math.min(worst, profit);
+        }
+        return worst;
+    }
+
+    /**
+     * Pearson correlation of the monthly net profits of two accounts over the months both were trading,
+     * from the later first trade to the earlier last trade. Months without trades in that span count as 0.
+     *
+     * @return -1 to 1, NaN with fewer than {@value #MIN_CORRELATION_MONTHS} common months or a constant series
+     */
+    double correlation(int first, int second) {
+        layOut();
+        if (trades(first) == 0 || trades(second) == 0) {
+            return Double.NaN;
+        }
+        int from = Math.max(monthlyProfits.get(first).firstTradeMonth(), monthlyProfits.get(second).firstTradeMonth());
+        int to = Math.min(monthlyProfits.get(first).lastTradeMonth(), monthlyProfits.get(second).lastTradeMonth());
+        return correlation(returns[first], returns[second], from - firstMonth, to - firstMonth);
+    }
+
+    /**
+     * @return correlation of the account with all other accounts combined, over the months it was trading
+     */
+    double correlationToRest(int account) {
+        layOut();
+        double[] rest = new double[combined.length];
+        for (int month = 0; month < combined.length; month++) {
+            rest[month] = combined[month] - returns[account][month];
+        }
+        MonthlyProfits profits = monthlyProfits.get(account);
+        if (profits.getTradeCount() == 0) {
+            return Double.NaN;
+        }
+        return correlation(returns[account], rest, profits.firstTradeMonth() - firstMonth,
+                profits.lastTradeMonth() - firstMonth);
+    }
+
+    private double[] activeMonths(int account) {
+        MonthlyProfits profits = monthlyProfits.get(account);
+        if (profits.getTradeCount() == 0) {
+            return new double[0];
+        }
+        return profits.totals(profits.firstTradeMonth(), profits.lastTradeMonth());
+    }
+
+    private void layOut() {
+        if (returns != null) {
+            return;
+        }
+        firstMonth = -1;
+        lastMonth = -1;
+        for (MonthlyProfits profits : monthlyProfits) {
+            if (profits.getTradeCount() == 0) {
+                continue;
+            }
+            firstMonth = firstMonth < 0 ? profits.firstTradeMonth() : Math.min(firstMonth, profits.firstTradeMonth());
+            lastMonth = Math.max(lastMonth, profits.lastTradeMonth());
+        }
+
+        int months = firstMonth < 0 ? 0 : lastMonth - firstMonth + 1;
+        returns = new double[monthlyProfits.size()][];
+        combined = new double[months];
+        for (int account = 0; account < returns.length; account++) {
+            returns[account] = months == 0 ? new double[0] : monthlyProfits.get(account).totals(firstMonth, lastMonth);
+            for (int month = 0; month < months; month++) {
+                combined[month] += returns[account][month];
+            }
+        }
+    }
+
+    private static double maxDrawdown(double[] profits) {
+        double equity = 0;
+        double peak = 0;
+        double maxDrawdown = 0;
+        for (double profit : profits) {
+            equity += profit;
+            peak = Math.max(peak, equity);
+            maxDrawdown = Math.max(maxDrawdown, peak - equity);
+        }
+        return maxDrawdown;
+    }
+
+    // Over the slots from to to inclusive
+    private static double correlation(double[] x, double[] y, int from, int to) {
+        int n = to - from + 1;
+        if (n < MIN_CORRELATION_MONTHS) {
+            return Double.NaN;
+        }
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = from; i <= to; i++) {
+            meanX += x[i];
+            meanY += y[i];
+        }
+        meanX /= n;
+        meanY /= n;
+
+        double covariance = 0;
+        double varianceX = 0;
+        double varianceY = 0;
+        for (int i = from; i <= to; i++) {
+            double dx = x[i] - meanX;
+            double dy = y[i] - meanY;
+            covariance += dx * dy;
+            varianceX += dx * dx;
+            varianceY += dy * dy;
+        }
+        if (varianceX == 0 || varianceY == 0) {
+            return Double.NaN;
+        }
+        return covariance / Math.sqrt(varianceX * varianceY);
+    }
+}
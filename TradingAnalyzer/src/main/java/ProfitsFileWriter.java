@@ -0,0 +1,129 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes the net profit per bucket of one account without Apache POI, for tools that only need the numbers.
+ *
+ * <ul>
+ *   <li>CSV: {@code Account,<Bucket>,Net Profit} header, then one row per bucket</li>
+ *   <li>JSON lines: {@code {"account":...,"<bucket>":...,"netProfit":...}} per bucket</li>
+ *   <li>Binary, all little-endian: magic, version, granularity ordinal, bucket count, the label column
+ *       (length-prefixed UTF-8 each), then the net profit column (one double each)</li>
+ * </ul>
+ * Profits are written with full double precision, the workbook rounds them for display only.
+ */
+final class ProfitsFileWriter {
+
+    static final int MAGIC = 0x46525054;
+    static final int VERSION = 1;
+
+    private ProfitsFileWriter() {
+    }
+
+    /**
+     * @param format  any format but {@link OutputFormat#XLSX}
+     * @param account name of the account, the export's file name without extension
+     * @param profits bucket label to net profit, in chronological order
+     */
+    static void write(OutputFormat format, String account, TradeBuckets.Granularity granularity,
+                      Map<String, Double> profits, Path path) throws IOException {
+        switch (format) {
+            case CSV:
+                writeCsv(account, granularity, profits, path);
+                break;
+            case JSONL:
+                writeJsonLines(account, granularity, profits, path);
+                break;
+            case BINARY:
+                writeBinary(granularity, profits, path);
+                break;
+            default:
+                throw new IllegalArgumentException("Not a plain output format: " + format);
+        }
+    }
+
+    private static void writeCsv(String account, TradeBuckets.Granularity granularity, Map<String, Double> profits,
+                                 Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("Account," + granularity.columnName + ",Net Profit\n");
+            String quotedAccount = csvValue(account);
+            for (Map.Entry<String, Double> entry : profits.entrySet()) {
+                writer.write(quotedAccount);
+                writer.write(',');
+                writer.write(csvValue(entry.getKey()));
+                writer.write(',');
+                writer.write(Double.toString(entry.getValue()));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static void writeJsonLines(String account, TradeBuckets.Granularity granularity,
+                                       Map<String, Double> profits, Path path) throws IOException {
+        String prefix = "{\"account\":" + jsonString(account) + ",\""
+                + granularity.columnName.toLowerCase(Locale.ROOT) + "\":";
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Double> entry : profits.entrySet()) {
+                writer.write(prefix);
+                writer.write(jsonString(entry.getKey()));
+                writer.write(",\"netProfit\":");
+                writer.write(Double.toString(entry.getValue()));
+                writer.write("}\n");
+            }
+        }
+    }
+
+    private static void writeBinary(TradeBuckets.Granularity granularity, Map<String, Double> profits, Path path)
+            throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path))) {
+            ByteBuffer buffer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(granularity.ordinal()).putInt(profits.size());
+            out.write(buffer.array());
+
+            for (String label : profits.keySet()) {
+                byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+                buffer.clear();
+                buffer.putShort((short) bytes.length);
+                out.write(buffer.array(), 0, 2);
+                out.write(bytes);
+            }
+            for (double profit : profits.values()) {
+                buffer.clear();
+                buffer.putDouble(profit);
+                out.write(buffer.array(), 0, 8);
+            }
+        }
+    }
+
+    private static String csvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String value) {
+        StringBuilder json = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+}
@@ -0,0 +1,304 @@
+import java.util.Locale;
+
+/**
+ * Statistics of the trades in a sliding window: the last N trades, or the trades closed in the last
+ * N seconds before the newest one.
+ *
+ * The profits and close times of the window are kept in ring buffers of primitives, with running sums
+ * of everything the statistics need, so adding a trade and dropping the ones that left the window is O(1)
+ * amortised. To keep the rounding of the running sums from drifting over millions of updates they are
+ * recomputed from the buffer once as many trades have been dropped as the window holds, which keeps the
+ * whole pass linear.
+ *
+ * Sharpe and Sortino ratios are per trade (mean over standard or downside deviation), not annualised.
+ */
+public final class RollingStatistics {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final double RELATIVE_ROUNDING = 1e-12;
+
+    /**
+     * Window length in trades or in seconds of close time.
+     */
+    public static final class Window {
+        final int trades;
+        final long seconds;
+        private final String description;
+
+        private Window(int trades, long seconds, String description) {
+            this.trades = trades;
+            this.seconds = seconds;
+            this.description = description;
+        }
+
+        public static Window ofTrades(int trades) {
+            if (trades < 2) {
+                throw new IllegalArgumentException("A rolling window needs at least 2 trades, was " + trades);
+            }
+            return new Window(trades, 0, trades + " trades");
+        }
+
+        public static Window ofSeconds(long seconds, String description) {
+            if (seconds < 1) {
+                throw new IllegalArgumentException("A rolling window needs a positive length, was " + seconds);
+            }
+            return new Window(0, seconds, description);
+        }
+
+        /**
+         * @param spec a trade count ({@code 100}) or a duration in hours, days or weeks ({@code 12h}, {@code 30d}, {@code 4w})
+         */
+        public static Window of(String spec) {
+            String value = spec.trim().toLowerCase(Locale.ROOT);
+            try {
+                char unit = value.isEmpty() ? ' ' : value.charAt(value.length() - 1);
+                switch (unit) {
+                    case 'h':
+                        return ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)) * 3600, value);
+                    case 'd':
+                        return ofSeconds(Long.parseLong(value.substring(0, value.length() - 1))
+                                * TradeTime.SECONDS_PER_DAY, value);
+                    case 'w':
+                        return ofSeconds(Long.parseLong(value.substring(0, value.length() - 1))
+                                * 7 * TradeTime.SECONDS_PER_DAY, value);
+                    default:
+                        return ofTrades(Integer.parseInt(value));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unknown rolling window " + spec
+                        + ", expected a trade count or a duration such as 12h, 30d or 4w");
+            }
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Statistics after selected trades, in close time order.
+     */
+    public static final class Series {
+        final long[] times;
+        final int[] counts;
+        final double[] means;
+        final double[] standardDeviations;
+        final double[] sharpeRatios;
+        final double[] sortinoRatios;
+        final double[] winRates;
+        final double[] profitFactors;
+        int size;
+
+        private Series(int capacity) {
+            times = new long[capacity];
+            counts = new int[capacity];
+            means = new double[capacity];
+            standardDeviations = new double[capacity];
+            sharpeRatios = new double[capacity];
+            sortinoRatios = new double[capacity];
+            winRates = new double[capacity];
+            profitFactors = new double[capacity];
+        }
+
+        private void add(long time, RollingStatistics statistics) {
+            times[size] = time;
+            counts[size] = statistics.count;
+            means[size] = statistics.mean();
+            standardDeviations[size] = statistics.standardDeviation();
+            sharpeRatios[size] = statistics.sharpeRatio();
+            sortinoRatios[size] = statistics.sortinoRatio();
+            winRates[size] = statistics.winRate();
+            profitFactors[size] = statistics.profitFactor();
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    private final Window window;
+
+    // Ring buffers of the trades in the window, oldest at head
+    private double[] profits = new double[INITIAL_CAPACITY];
+    private long[] closeTimes = new long[INITIAL_CAPACITY];
+    private int head;
+    private int count;
+
+    private double sum;
+    private double sumOfSquares;
+    private double downsideSquares;
+    private double grossProfit;
+    private double grossLoss;
+    private int wins;
+    private int losses;
+    private int droppedSinceResync;
+
+    public RollingStatistics(Window window) {
+        this.window = window;
+    }
+
+    /**
+     * Computes the statistics after every trade of an export in close time order and keeps those after
+     * about {@code points} evenly spaced trades and the last one. A trade-count window is reported once full.
+     */
+    public static Series of(TradeColumns columns, Window window, int points) {
+        int[] order = columns.orderByCloseTime();
+        int first = window.trades > 0 ? window.trades - 1 : 0;
+        int reported = Math.max(order.length - first, 0);
+        int stride = Math.max(1, (reported + points - 1) / Math.max(points, 1));
+
+        Series series = new Series(reported == 0 ? 0 : (reported - 1) / stride + 2);
+        RollingStatistics statistics = new RollingStatistics(window);
+        for (int i = 0; i < order.length; i++) {
+            long closeTime = columns.closeTimes[order[i]];
+            statistics.add(closeTime, columns.profits[order[i]]);
+            if (i >= first && ((i - first) % stride == 0 || i == order.length - 1)) {
+                series.add(closeTime, statistics);
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Adds a trade and drops the ones that left the window. Trades are expected in close time order.
+     */
+    public void add(long closeTime, double profit) {
+        if (count == profits.length) {
+            grow();
+        }
+        int tail = (head + count) % profits.length;
+        profits[tail] = profit;
+        closeTimes[tail] = closeTime;
+        count++;
+        include(profit, 1);
+
+        if (window.trades > 0) {
+            while (count > window.trades) {
+                dropOldest();
+            }
+        } else {
+            while (closeTime - closeTimes[head] >= window.seconds) {
+                dropOldest();
+            }
+        }
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public double mean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * @return sample standard deviation of the profits in the window, NaN with fewer than 2 trades
+     */
+    public double standardDeviation() {
+        if (count < 2) {
+            return Double.NaN;
+        }
+        double variance = (sumOfSquares - sum * sum / count) / (count - 1);
+        // Equal profits leave only rounding noise of the running sums
+        if (variance <= RELATIVE_ROUNDING * sumOfSquares / count) {
+            return 0;
+        }
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * @return mean / standard deviation, NaN if the profits do not vary
+     */
+    public double sharpeRatio() {
+        double deviation = standardDeviation();
+        return deviation > 0 ? mean() / deviation : Double.NaN;
+    }
+
+    /**
+     * @return mean / downside deviation (root mean square of the losses), NaN without losses
+     */
+    public double sortinoRatio() {
+        if (losses == 0 || downsideSquares <= 0) {
+            return Double.NaN;
+        }
+        return mean() / Math.sqrt(downsideSquares / count);
+    }
+
+    /**
+     * @return share of trades with a profit, NaN for an empty window
+     */
+    public double winRate() {
+        return count == 0 ? Double.NaN : (double) wins / count;
+    }
+
+    /**
+     * @return gross profit / gross loss, NaN without losses
+     */
+    public double profitFactor() {
+        return losses == 0 || grossLoss <= 0 ? Double.NaN : grossProfit / grossLoss;
+    }
+
+    private void dropOldest() {
+        double profit = profits[head];
+        head = (head + 1) % profits.length;
+        count--;
+        include(profit, -1);
+        if (++droppedSinceResync >= Math.max(count, INITIAL_CAPACITY)) {
+            resync();
+        }
+    }
+
+    // Adds (sign 1) or removes (sign -1) a profit from the running sums
+    private void include(double profit, int sign) {
+        sum += sign * profit;
+        sumOfSquares += sign * profit * profit;
+        if (profit > 0) {
+            wins += sign;
+            grossProfit += sign * profit;
+        } else if (profit < 0) {
+            losses += sign;
+            grossLoss -= sign * profit;
+            downsideSquares += sign * profit * profit;
+        }
+        // Sums of groups that left the window are exactly 0, not rounding noise
+        if (wins == 0) {
+            grossProfit = 0;
+        }
+        if (losses == 0) {
+            grossLoss = 0;
+            downsideSquares = 0;
+        }
+        if (wins == 0 && losses == 0) {
+            sum = 0;
+            sumOfSquares = 0;
+        }
+    }
+
+    private void resync() {
+        sum = 0;
+        sumOfSquares = 0;
+        downsideSquares = 0;
+        grossProfit = 0;
+        grossLoss = 0;
+        wins = 0;
+        losses = 0;
+        for (int i = 0; i < count; i++) {
+            include(profits[(head + i) % profits.length], 1);
+        }
+        droppedSinceResync = 0;
+    }
+
+    private void grow() {
+        double[] grownProfits = new double[profits.length * 2];
+        long[] grownTimes = new long[profits.length * 2];
+        for (int i = 0; i < count; i++) {
+            grownProfits[i] = profits[(head + i) % profits.length];
+            grownTimes[i] = closeTimes[(head + i) % profits.length];
+        }
+        profits = grownProfits;
+        closeTimes = grownTimes;
+        head = 0;
+    }
+}
@@ -0,0 +1,66 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Time and throughput of the phases of a batch run, printed with {@code --stats}.
+ *
+ * Parse and write are summed over the files, so with several workers they can exceed the wall time of the run.
+ */
+final class RunStatistics {
+
+    private static final class Phase {
+        final String name;
+        final long nanos;
+        final int files;
+        final long rows;
+        final long bytes;
+
+        Phase(String name, long nanos, int files, long rows, long bytes) {
+            this.name = name;
+            this.nanos = nanos;
+            this.files = files;
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+    }
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    void add(String phase, long nanos, int files, long rows, long bytes) {
+        phases.add(new Phase(phase, nanos, files, rows, bytes));
+    }
+
+    /**
+     * Adds the parse and write phases of the analysed files.
+     */
+    void addFiles(List<FileAnalysisResult> results) {
+        long parseNanos = 0;
+        long writeNanos = 0;
+        long rows = 0;
+        long bytes = 0;
+        int written = 0;
+        for (FileAnalysisResult result : results) {
+            parseNanos += result.parseNanos;
+            writeNanos += result.writeNanos;
+            rows += result.linesRead;
+            bytes += result.bytesRead;
+            if (result.isSuccess() && result.outcome != FileAnalysisResult.Outcome.UNCHANGED) {
+                written++;
+            }
+        }
+        add("parse", parseNanos, results.size(), rows, bytes);
+        add("write", writeNanos, written, 0, 0);
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n%-10s %10s %6s %12s %10s %12s %9s%n", "Phase", "Time (ms)", "Files", "Rows", "MB", "Rows/s", "MB/s");
+        for (Phase phase : phases) {
+            double seconds = Math.max(phase.nanos, 1) / 1_000_000_000.0;
+            double megabytes = phase.bytes / (1024.0 * 1024.0);
+            out.printf("%-10s %10.1f %6d %12d %10.2f %12.0f %9.1f%n", phase.name, phase.nanos / 1_000_000.0,
+                    phase.files, phase.rows, megabytes, phase.rows / seconds, megabytes / seconds);
+        }
+        out.println("Parse and write are summed over the workers.");
+    }
+}
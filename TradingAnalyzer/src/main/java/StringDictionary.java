@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+/**
+ * Dictionary encoding for repetitive text columns such as Symbol and Type.
+ * Values are looked up straight from a char buffer, a String is only created the first time a value is seen.
+ */
+public final class StringDictionary {
+
+    private static final int EMPTY = -1;
+
+    private String[] values = new String[16];
+    private int[] hashes = new int[16];
+    // Open addressing table of ids, EMPTY marks a free slot
+    private int[] table = newTable(32);
+    private int size;
+
+    /**
+     * @return id of the value with surrounding whitespace removed, added to the dictionary if new
+     */
+    public int idOf(char[] buf, int from, int to) {
+        while (from < to && buf[from] <= ' ') {
+            from++;
+        }
+        while (to > from && buf[to - 1] <= ' ') {
+            to--;
+        }
+
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + buf[i];
+        }
+
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = table[slot];
+            if (id == EMPTY) {
+                return add(new String(buf, from, to - from), hash, slot);
+            }
+            if (hashes[id] == hash && matches(values[id], buf, from, to)) {
+                return id;
+            }
+        }
+    }
+
+    public int idOf(String value) {
+        char[] chars = value.toCharArray();
+        return idOf(chars, 0, chars.length);
+    }
+
+    public String valueOf(int id) {
+        return values[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int add(String value, int hash, int slot) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        values[id] = value;
+        hashes[id] = hash;
+        table[slot] = id;
+
+        // Keep the table at most half full
+        if (size * 2 > table.length) {
+            int[] grown = newTable(table.length * 2);
+            int mask = grown.length - 1;
+            for (int i = 0; i < size; i++) {
+                int free = mix(hashes[i]) & mask;
+                while (grown[free] != EMPTY) {
+                    free = (free + 1) & mask;
+                }
+                grown[free] = i;
+            }
+            table = grown;
+        }
+        return id;
+    }
+
+    private static boolean matches(String value, char[] buf, int from, int to) {
+        if (value.length() != to - from) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) != buf[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Win/loss statistics per symbol and trade type (Buy, Sell, ...), collected during the parse.
+ *
+ * Every (symbol, type) pair is a group with its sums in primitive arrays, so a trade costs two
+ * dictionary lookups and a few additions. Commission and swap are summed as exported, costs being negative.
+ */
+public final class SymbolPerformance implements TradeRowHandler {
+
+    static final String ALL = "All";
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    final StringDictionary symbols = new StringDictionary();
+    final StringDictionary types = new StringDictionary();
+
+    // Group + 1 by symbol id and type id, 0 while the pair has no trade
+    private int[][] groupIndex = new int[INITIAL_CAPACITY][];
+
+    int[] groupSymbols = new int[INITIAL_CAPACITY];
+    int[] groupTypes = new int[INITIAL_CAPACITY];
+    int[] trades = new int[INITIAL_CAPACITY];
+    int[] wins = new int[INITIAL_CAPACITY];
+    int[] losses = new int[INITIAL_CAPACITY];
+    double[] grossProfits = new double[INITIAL_CAPACITY];
+    double[] grossLosses = new double[INITIAL_CAPACITY];
+    double[] commissions = new double[INITIAL_CAPACITY];
+    double[] swaps = new double[INITIAL_CAPACITY];
+    int groupCount;
+
+    @Override
+    public void onTrade(TradeRow row) {
+        int group = groupOf(row.symbol(symbols), row.type(types));
+        add(group, row.profit(), row.commission(), row.swap());
+    }
+
+    /**
+     * Same statistics from the columnar store, for trades loaded from a {@link TradeSnapshot}.
+     */
+    public static SymbolPerformance of(TradeColumns columns) {
+        SymbolPerformance performance = new SymbolPerformance();
+        // Same first-appearance order as the parse, so the ids carry over
+        for (int id = 0; id < columns.symbols.size(); id++) {
+            performance.symbols.idOf(columns.symbol(id));
+        }
+        for (int id = 0; id < columns.types.size(); id++) {
+            performance.types.idOf(columns.type(id));
+        }
+        for (int i = 0; i < columns.size; i++) {
+            int group = performance.groupOf(columns.symbolIds[i], columns.typeIds[i]);
+            performance.add(group, columns.profits[i], columns.commissions[i], columns.swaps[i]);
+        }
+        return performance;
+    }
+
+    /**
+     * Adds the statistics of another accumulator, re-encoding its dictionary ids.
+     */
+    public void merge(SymbolPerformance other) {
+        for (int from = 0; from < other.groupCount; from++) {
+            addGroup(groupOf(symbols.idOf(other.symbol(from)), types.idOf(other.type(from))), other, from);
+        }
+    }
+
+    /**
+     * @return the statistics of every symbol over all its trade types, with type {@value #ALL}
+     */
+    public SymbolPerformance bySymbol() {
+        SymbolPerformance bySymbol = new SymbolPerformance();
+        for (int from = 0; from < groupCount; from++) {
+            bySymbol.addGroup(bySymbol.groupOf(bySymbol.symbols.idOf(symbol(from)), bySymbol.types.idOf(ALL)), this, from);
+        }
+        return bySymbol;
+    }
+
+    /**
+     * @return a single group over all trades, symbol and type {@value #ALL}
+     */
+    public SymbolPerformance total() {
+        SymbolPerformance total = new SymbolPerformance();
+        int group = total.groupOf(total.symbols.idOf(ALL), total.types.idOf(ALL));
+        for (int from = 0; from < groupCount; from++) {
+            total.addGroup(group, this, from);
+        }
+        return total;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            out.writeUTF(symbol(group));
+            out.writeUTF(type(group));
+            out.writeInt(trades[group]);
+            out.writeInt(wins[group]);
+            out.writeInt(losses[group]);
+            out.writeDouble(grossProfits[group]);
+            out.writeDouble(grossLosses[group]);
+            out.writeDouble(commissions[group]);
+            out.writeDouble(swaps[group]);
+        }
+    }
+
+    public static SymbolPerformance readFrom(DataInput in) throws IOException {
+        SymbolPerformance performance = new SymbolPerformance();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int group = performance.groupOf(performance.symbols.idOf(in.readUTF()), performance.types.idOf(in.readUTF()));
+            performance.trades[group] = in.readInt();
+            performance.wins[group] = in.readInt();
+            performance.losses[group] = in.readInt();
+            performance.grossProfits[group] = in.readDouble();
+            performance.grossLosses[group] = in.readDouble();
+            performance.commissions[group] = in.readDouble();
+            performance.swaps[group] = in.readDouble();
+        }
+        return performance;
+    }
+
+    public int groupCount() {
+        return groupCount;
+    }
+
+    public String symbol(int group) {
+        return symbols.valueOf(groupSymbols[group]);
+    }
+
+    public String type(int group) {
+        return types.valueOf(groupTypes[group]);
+    }
+
+    public int trades(int group) {
+        return trades[group];
+    }
+
+    /**
+     * @return share of trades with a positive profit, 0 to 1
+     */
+    public double winRate(int group) {
+        return trades[group] == 0 ? 0 : (double) wins[group] / trades[group];
+    }
+
+    public double grossProfit(int group) {
+        return grossProfits[group];
+    }
+
+    /**
+     * @return sum of the losing trades, negative or 0
+     */
+    public double grossLoss(int group) {
+        return grossLosses[group];
+    }
+
+    /**
+     * @return gross profit / |gross loss|, NaN if there is no losing trade
+     */
+    public double profitFactor(int group) {
+        return grossLosses[group] == 0 ? Double.NaN : grossProfits[group] / -grossLosses[group];
+    }
+
+    public double averageWin(int group) {
+        return wins[group] == 0 ? 0 : grossProfits[group] / wins[group];
+    }
+
+    public double averageLoss(int group) {
+        return losses[group] == 0 ? 0 : grossLosses[group] / losses[group];
+    }
+
+    public double commission(int group) {
+        return commissions[group];
+    }
+
+    public double swap(int group) {
+        return swaps[group];
+    }
+
+    /**
+     * @return profit after commission and swap
+     */
+    public double netProfit(int group) {
+        return grossProfits[group] + grossLosses[group] + commissions[group] + swaps[group];
+    }
+
+    /**
+     * @return groups ordered by symbol, then type, in order of first appearance
+     */
+    int[] groupsBySymbol() {
+        Integer[] order = new Integer[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            order[group] = group;
+        }
+        Arrays.sort(order, (a, b) -> groupSymbols[a] != groupSymbols[b]
+                ? Integer.compare(groupSymbols[a], groupSymbols[b])
+                : Integer.compare(groupTypes[a], groupTypes[b]));
+        int[] groups = new int[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            groups[i] = order[i];
+        }
+        return groups;
+    }
+
+    private void addGroup(int group, SymbolPerformance from, int fromGroup) {
+        trades[group] += from.trades[fromGroup];
+        wins[group] += from.wins[fromGroup];
+        losses[group] += from.losses[fromGroup];
+        grossProfits[group] += from.grossProfits[fromGroup];
+        grossLosses[group] += from.grossLosses[fromGroup];
+        commissions[group] += from.commissions[fromGroup];
+        swaps[group] += from.swaps[fromGroup];
+    }
+
+    private void add(int group, double profit, double commission, double swap) {
+        trades[group]++;
+        if (profit > 0) {
+            wins[group]++;
+            grossProfits[group] += profit;
+        } else if (profit < 0) {
+            losses[group]++;
+            grossLosses[group] += profit;
+        }
+        // Exports leave both empty on trades without costs
+        if (!Double.isNaN(commission)) {
+            commissions[group] += commission;
+        }
+        if (!Double.isNaN(swap)) {
+            swaps[group] += swap;
+        }
+    }
+
+    private int groupOf(int symbol, int type) {
+        if (symbol >= groupIndex.length) {
+            groupIndex = Arrays.copyOf(groupIndex, Math.max(symbol + 1, groupIndex.length * 2));
+        }
+        int[] byType = groupIndex[symbol];
+        if (byType == null) {
+            byType = new int[Math.max(type + 1, 2)];
+            groupIndex[symbol] = byType;
+        } else if (type >= byType.length) {
+            byType = Arrays.copyOf(byType, Math.max(type + 1, byType.length * 2));
+            groupIndex[symbol] = byType;
+        }
+        if (byType[type] == 0) {
+            ensureCapacity(groupCount + 1);
+            groupSymbols[groupCount] = symbol;
+            groupTypes[groupCount] = type;
+            byType[type] = ++groupCount;
+        }
+        return byType[type] - 1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= trades.length) {
+            return;
+        }
+        int grown = Math.max(capacity, trades.length * 2);
+        groupSymbols = Arrays.copyOf(groupSymbols, grown);
+        groupTypes = Arrays.copyOf(groupTypes, grown);
+        trades = Arrays.copyOf(trades, grown);
+        wins = Arrays.copyOf(wins, grown);
+        losses = Arrays.copyOf(losses, grown);
+        grossProfits = Arrays.copyOf(grossProfits, grown);
+        grossLosses = Arrays.copyOf(grossLosses, grown);
+        commissions = Arrays.copyOf(commissions, grown);
+        swaps = Arrays.copyOf(swaps, grown);
+    }
+}
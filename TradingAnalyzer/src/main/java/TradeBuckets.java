@@ -0,0 +1,195 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.IsoFields;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+
+/**
+ * Groups trades by a calendar period or trading session of their close time.
+ *
+ * Exports hold broker local times ({@link TradeRow}), read here as times in the source zone and
+ * bucketed in the target zone. Bucket indices are computed from the epoch seconds with integer
+ * arithmetic: zone offsets come from a cache of the current offset period, so only a trade in
+ * another daylight saving period looks the zone rules up again. Labels are formatted once per
+ * bucket, by {@link #label(int)}.
+ *
+ * An instance keeps those caches, use one per thread.
+ */
+public final class TradeBuckets {
+
+    public enum Granularity {
+        DAY("Daily Profits", "Day"),
+        WEEK("Weekly Profits", "Week"),
+        MONTH("Monthly Profits", "Month"),
+        QUARTER("Quarterly Profits", "Quarter"),
+        SESSION("Session Profits", "Session");
+
+        final String sheetName;
+        final String columnName;
+
+        Granularity(String sheetName, String columnName) {
+            this.sheetName = sheetName;
+            this.columnName = columnName;
+        }
+
+        static Granularity of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown bucket granularity " + name
+                        + ", expected day, week, month, quarter or session");
+            }
+        }
+    }
+
+    /**
+     * A trade belongs to the session that opened last before it closed, until the next one opens.
+     * Each opens at 08:00 or 09:00 local time of its market, daylight saving time included.
+     */
+    static final String[] SESSIONS = {"Asia", "London", "New York"};
+    private static final ZoneId[] SESSION_ZONES = {ZoneId.of("Asia/Tokyo"), ZoneId.of("Europe/London"),
+            ZoneId.of("America/New_York")};
+    private static final int[] SESSION_OPENS = {9 * 3600, 8 * 3600, 8 * 3600};
+
+    private final Granularity granularity;
+
+    // Null without conversion (same source and target zone, not by session), local times are bucketed as they are
+    private final OffsetCache source;
+    private final OffsetCache target;
+    private final OffsetCache[] sessions;
+
+    /**
+     * @param sourceZone zone of the export's times
+     * @param targetZone zone the periods are counted in, sessions always follow their own markets
+     */
+    public TradeBuckets(Granularity granularity, ZoneId sourceZone, ZoneId targetZone) {
+        this.granularity = granularity;
+        boolean convert = granularity == Granularity.SESSION || !sourceZone.equals(targetZone);
+        this.source = convert ? new OffsetCache(sourceZone) : null;
+        this.target = convert ? new OffsetCache(targetZone) : null;
+        if (granularity == Granularity.SESSION) {
+            sessions = new OffsetCache[SESSION_ZONES.length];
+            for (int session = 0; session < sessions.length; session++) {
+                sessions[session] = new OffsetCache(SESSION_ZONES[session]);
+            }
+        } else {
+            sessions = null;
+        }
+    }
+
+    public Granularity granularity() {
+        return granularity;
+    }
+
+    /**
+     * @param localEpochSecond close time as read by the parser
+     * @return bucket index, ascending in time; sessions are 0 to 2 in the order of {@link #SESSIONS}
+     */
+    public int index(long localEpochSecond) {
+        if (granularity == Granularity.SESSION) {
+            return session(toUtc(localEpochSecond));
+        }
+        long time = source == null ? localEpochSecond : toTarget(toUtc(localEpochSecond));
+        switch (granularity) {
+            case DAY:
+                return (int) Math.floorDiv(time, TradeTime.SECONDS_PER_DAY);
+            case WEEK:
+                // ISO weeks start on Monday, 1970-01-01 was a Thursday
+                return (int) Math.floorDiv(Math.floorDiv(time, TradeTime.SECONDS_PER_DAY) + 3, 7L);
+            case QUARTER:
+                return Math.floorDiv(TradeTime.monthIndex(time), 3);
+            default:
+                return TradeTime.monthIndex(time);
+        }
+    }
+
+    /**
+     * @return label of a bucket index: yyyy.MM.dd, yyyy-Www (ISO week), yyyy.MM, yyyy Qn or the session name
+     */
+    public String label(int index) {
+        switch (granularity) {
+            case DAY: {
+                LocalDate day = LocalDate.ofEpochDay(index);
+                return String.format("%04d.%02d.%02d", day.getYear(), day.getMonthValue(), day.getDayOfMonth());
+            }
+            case WEEK: {
+                // The Thursday decides the week-based year
+                LocalDate thursday = LocalDate.ofEpochDay(index * 7L);
+                return String.format("%04d-W%02d", thursday.get(IsoFields.WEEK_BASED_YEAR),
+                        thursday.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            }
+            case QUARTER:
+                return String.format("%04d Q%d", index / 4, index % 4 + 1);
+            case SESSION:
+                return SESSIONS[index];
+            default:
+                return MonthlyProfits.monthKey(index);
+        }
+    }
+
+    private long toUtc(long localEpochSecond) {
+        // The offset of the local time itself is the one before or after a transition, the second guess settles it
+        long guess = localEpochSecond - source.offsetAt(localEpochSecond);
+        return localEpochSecond - source.offsetAt(guess);
+    }
+
+    private long toTarget(long utcEpochSecond) {
+        return utcEpochSecond + target.offsetAt(utcEpochSecond);
+    }
+
+    private int session(long utcEpochSecond) {
+        long day = Math.floorDiv(utcEpochSecond, TradeTime.SECONDS_PER_DAY);
+        int latest = -1;
+        long latestOpen = Long.MIN_VALUE;
+        // Sessions open on the same UTC date as their local date, before that the last one of the day before runs
+        for (long date = day; date >= day - 1 && latest < 0; date--) {
+            for (int session = 0; session < sessions.length; session++) {
+                long open = sessionOpen(session, date);
+                if (open <= utcEpochSecond && open > latestOpen) {
+                    latest = session;
+                    latestOpen = open;
+                }
+            }
+        }
+        return latest < 0 ? SESSIONS.length - 1 : latest;
+    }
+
+    private long sessionOpen(int session, long epochDay) {
+        long local = epochDay * TradeTime.SECONDS_PER_DAY + SESSION_OPENS[session];
+        long guess = local - sessions[session].offsetAt(local);
+        return local - sessions[session].offsetAt(guess);
+    }
+
+    /**
+     * Offset of a zone at an instant, remembered with the period it is valid for.
+     */
+    private static final class OffsetCache {
+        private final ZoneRules rules;
+        private long validFrom = Long.MAX_VALUE;
+        private long validTo = Long.MIN_VALUE;
+        private int offset;
+
+        OffsetCache(ZoneId zone) {
+            this.rules = zone.getRules();
+            if (rules.isFixedOffset()) {
+                offset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+                validFrom = Long.MIN_VALUE;
+                validTo = Long.MAX_VALUE;
+            }
+        }
+
+        int offsetAt(long epochSecond) {
+            if (epochSecond < validFrom || epochSecond >= validTo) {
+                Instant instant = Instant.ofEpochSecond(epochSecond);
+                offset = rules.getOffset(instant).getTotalSeconds();
+                ZoneOffsetTransition previous = rules.previousTransition(instant.plusSeconds(1));
+                ZoneOffsetTransition next = rules.nextTransition(instant);
+                validFrom = previous == null ? Long.MIN_VALUE : previous.toEpochSecond();
+                validTo = next == null ? Long.MAX_VALUE : next.toEpochSecond();
+            }
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import java.util.Arrays;
+
+/**
+ * Columnar in-memory store of the closed trades of one export, in file order.
+ *
+ * Each column is a primitive array and Symbol / Type are dictionary encoded, so a parse is kept
+ * at about 72 bytes per trade and every aggregation is a single loop over one or two arrays.
+ */
+public final class TradeColumns implements TradeRowHandler {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    final StringDictionary symbols = new StringDictionary();
+    final StringDictionary types = new StringDictionary();
+
+    long[] openTimes = new long[INITIAL_CAPACITY];
+    long[] closeTimes = new long[INITIAL_CAPACITY];
+    double[] profits = new double[INITIAL_CAPACITY];
+    double[] volumes = new double[INITIAL_CAPACITY];
+    double[] openPrices = new double[INITIAL_CAPACITY];
+    double[] closePrices = new double[INITIAL_CAPACITY];
+    double[] commissions = new double[INITIAL_CAPACITY];
+    double[] swaps = new double[INITIAL_CAPACITY];
+    int[] symbolIds = new int[INITIAL_CAPACITY];
+    int[] typeIds = new int[INITIAL_CAPACITY];
+    int size;
+
+    /**
+     * Per-group totals, indexed by group (dictionary id, weekday or hour).
+     */
+    public static final class Totals {
+        public final double[] profits;
+        public final int[] counts;
+
+        Totals(int groups) {
+            this.profits = new double[groups];
+            this.counts = new int[groups];
+        }
+    }
+
+    @Override
+    public void onTrade(TradeRow row) {
+        ensureCapacity(size + 1);
+        openTimes[size] = row.openTime();
+        closeTimes[size] = row.closeTime();
+        profits[size] = row.profit();
+        volumes[size] = row.volume();
+        openPrices[size] = row.openPrice();
+        closePrices[size] = row.closePrice();
+        commissions[size] = row.commission();
+        swaps[size] = row.swap();
+        symbolIds[size] = row.symbol(symbols);
+        typeIds[size] = row.type(types);
+        size++;
+    }
+
+    /**
+     * Appends the trades of another store, re-encoding its dictionary ids.
+     */
+    public void merge(TradeColumns other) {
+        int[] symbolMapping = remap(other.symbols, symbols);
+        int[] typeMapping = remap(other.types, types);
+
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.openTimes, 0, openTimes, size, other.size);
+        System.arraycopy(other.closeTimes, 0, closeTimes, size, other.size);
+        System.arraycopy(other.profits, 0, profits, size, other.size);
+        System.arraycopy(other.volumes, 0, volumes, size, other.size);
+        System.arraycopy(other.openPrices, 0, openPrices, size, other.size);
+        System.arraycopy(other.closePrices, 0, closePrices, size, other.size);
+        System.arraycopy(other.commissions, 0, commissions, size, other.size);
+        System.arraycopy(other.swaps, 0, swaps, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            symbolIds[size + i] = symbolMapping[other.symbolIds[i]];
+            typeIds[size + i] = typeMapping[other.typeIds[i]];
+        }
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String symbol(int id) {
+        return symbols.valueOf(id);
+    }
+
+    public String type(int id) {
+        return types.valueOf(id);
+    }
+
+    /**
+     * Group by close month, summed in file order so the totals equal the direct {@link MonthlyProfits} parse.
+     */
+    public MonthlyProfits byMonth() {
+        MonthlyProfits monthlyProfits = new MonthlyProfits();
+        for (int i = 0; i < size; i++) {
+            monthlyProfits.add(TradeTime.monthIndex(closeTimes[i]), profits[i]);
+        }
+        return monthlyProfits;
+    }
+
+    /**
+     * @return totals indexed by symbol dictionary id
+     */
+    public Totals bySymbol() {
+        Totals totals = new Totals(symbols.size());
+        for (int i = 0; i < size; i++) {
+            int symbol = symbolIds[i];
+            totals.profits[symbol] += profits[i];
+            totals.counts[symbol]++;
+        }
+        return totals;
+    }
+
+    /**
+     * @return totals by close weekday, 0 is Monday
+     */
+    public Totals byWeekday() {
+        Totals totals = new Totals(7);
+        for (int i = 0; i < size; i++) {
+            int day = TradeTime.dayOfWeek(closeTimes[i]);
+            totals.profits[day] += profits[i];
+            totals.counts[day]++;
+        }
+        return totals;
+    }
+
+    /**
+     * @return totals by close hour of day, 0 to 23
+     */
+    public Totals byHour() {
+        Totals totals = new Totals(24);
+        for (int i = 0; i < size; i++) {
+            int hour = TradeTime.hourOfDay(closeTimes[i]);
+            totals.profits[hour] += profits[i];
+            totals.counts[hour]++;
+        }
+        return totals;
+    }
+
+    /**
+     * Stable merge sort of the row indices by close time, without boxing. Exports are usually close to
+     * that order already, so runs that are in order are not merged again.
+     *
+     * @return row indices in close time order
+     */
+    public int[] orderByCloseTime() {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] buffer = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int from = 0; from + width < size; from += 2 * width) {
+                int middle = from + width;
+                int to = Math.min(from + 2 * width, size);
+                if (closeTimes[order[middle - 1]] > closeTimes[order[middle]]) {
+                    mergeByCloseTime(order, buffer, from, middle, to);
+                }
+            }
+        }
+        return order;
+    }
+
+    private void mergeByCloseTime(int[] order, int[] buffer, int from, int middle, int to) {
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && closeTimes[buffer[left]] <= closeTimes[buffer[right]])) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * Appends one trade, used when loading a {@link TradeSnapshot}.
+     */
+    void add(long openTime, long closeTime, double profit, double volume, double openPrice, double closePrice,
+             double commission, double swap, int symbolId, int typeId) {
+        ensureCapacity(size + 1);
+        openTimes[size] = openTime;
+        closeTimes[size] = closeTime;
+        profits[size] = profit;
+        volumes[size] = volume;
+        openPrices[size] = openPrice;
+        closePrices[size] = closePrice;
+        commissions[size] = commission;
+        swaps[size] = swap;
+        symbolIds[size] = symbolId;
+        typeIds[size] = typeId;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= profits.length) {
+            return;
+        }
+        int grown = Math.max(capacity, profits.length * 2);
+        openTimes = Arrays.copyOf(openTimes, grown);
+        closeTimes = Arrays.copyOf(closeTimes, grown);
+        profits = Arrays.copyOf(profits, grown);
+        volumes = Arrays.copyOf(volumes, grown);
+        openPrices = Arrays.copyOf(openPrices, grown);
+        closePrices = Arrays.copyOf(closePrices, grown);
+        commissions = Arrays.copyOf(commissions, grown);
+        swaps = Arrays.copyOf(swaps, grown);
+        symbolIds = Arrays.copyOf(symbolIds, grown);
+        typeIds = Arrays.copyOf(typeIds, grown);
+    }
+
+    private static int[] remap(StringDictionary from, StringDictionary to) {
+        int[] mapping = new int[from.size()];
+        for (int id = 0; id < mapping.length; id++) {
+            mapping[id] = to.idOf(from.valueOf(id));
+        }
+        return mapping;
+    }
+}
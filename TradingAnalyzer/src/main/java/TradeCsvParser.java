@@ -0,0 +1,548 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Single-pass reader for the semicolon separated trade exports.
+ * Lines are split and decoded straight from the char buffer, only rows that
+ * cannot be read on the fast path fall back to String based parsing.
+ *
+ * When the header matches a {@link TradeFormat}, every row is read through the compiled column
+ * indices of that format. Otherwise the columns are probed per row: open time in field 0,
+ * close time in fields 6 to 8 and profit in fields 10 to 12.
+ *
+ * Lines that cannot be read are skipped and counted in {@link TradeRejects}, which aborts the parse
+ * once they exceed its budget.
+ */
+public final class TradeCsvParser {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy.MM.dd HH:mm:ss");
+
+    // Only the leading columns are inspected, the remaining ones are just counted
+    private static final int MAX_TRACKED_FIELDS = 16;
+    private static final int MIN_FIELDS = 8;
+    private static final int DATE_TIME_LENGTH = 19;
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final char[] BALANCE = "Balance".toCharArray();
+    private static final char[] BUY_LIMIT = "Buy Limit".toCharArray();
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private char[] buffer = new char[64 * 1024];
+    private int[] fieldEnds = new int[MAX_TRACKED_FIELDS];
+    private final TradeRow row = new TradeRow(this, fieldEnds);
+
+    private boolean firstLine;
+    // Formats the header is matched against, null to keep the probing of the first layout
+    private final List<TradeFormat> formats;
+    private TradeFormat.Mapping mapping;
+    private char delimiter = ';';
+    private DateTimeFormatter dateTimeFormatter = DATE_FORMATTER;
+    private long linesRead;
+    private TradeRejects rejects = new TradeRejects(TradeRejects.Budget.UNLIMITED);
+
+    // Tokenizer state of the line being scanned, offsets are relative to the line start
+    private int fieldCount;
+    private int lastNonEmptyField = -1;
+    private int fieldStart;
+    private boolean skipLineFeed;
+
+    // Results of the last parseDateTime / parseNumber call
+    private long parsedTime;
+    private int parsedYear;
+    private int parsedMonth;
+    private double parsedNumber;
+
+    public TradeCsvParser() {
+        this(TradeFormat.BUILT_IN);
+    }
+
+    /**
+     * @param formats formats to detect from the header line, in order of preference
+     */
+    public TradeCsvParser(List<TradeFormat> formats) {
+        this.firstLine = true;
+        this.formats = formats;
+    }
+
+    /**
+     * @param skipHeader whether the first line is a header, false when parsing a slice that starts mid-file
+     */
+    public TradeCsvParser(boolean skipHeader) {
+        this(skipHeader, null);
+    }
+
+    /**
+     * @param mapping columns detected from the header of the whole file, null to probe the columns per row
+     */
+    public TradeCsvParser(boolean skipHeader, TradeFormat.Mapping mapping) {
+        this.firstLine = skipHeader;
+        this.formats = null;
+        useMapping(mapping);
+    }
+
+    /**
+     * @return columns of the detected format, null if the header matched none
+     */
+    public TradeFormat.Mapping getMapping() {
+        return mapping;
+    }
+
+    /**
+     * Starts a new reject collector with the given budget, call before parsing.
+     */
+    void setRejectBudget(TradeRejects.Budget budget) {
+        rejects = new TradeRejects(budget);
+    }
+
+    /**
+     * @return lines rejected so far, line numbers counted from the first line this parser read
+     */
+    TradeRejects getRejects() {
+        return rejects;
+    }
+
+    private void useMapping(TradeFormat.Mapping mapping) {
+        this.mapping = mapping;
+        if (mapping == null) {
+            return;
+        }
+        delimiter = mapping.format.delimiter;
+        if (mapping.format.dateTimeFormatter != null) {
+            dateTimeFormatter = mapping.format.dateTimeFormatter;
+        }
+        if (mapping.lastField >= fieldEnds.length) {
+            fieldEnds = new int[mapping.lastField + 1];
+            row.fieldEnds = fieldEnds;
+        }
+        row.typeField = mapping.type;
+        row.volumeField = mapping.volume;
+        row.symbolField = mapping.symbol;
+        row.openPriceField = mapping.openPrice;
+        row.closePriceField = mapping.closePrice;
+        row.commissionField = mapping.commission;
+        row.swapField = mapping.swap;
+    }
+
+    /**
+     * Reads the whole export and hands every closed trade to the handler.
+     */
+    public void parse(Reader reader, TradeRowHandler handler) throws IOException {
+        char[] buf = buffer;
+        int length = 0;
+
+        while (true) {
+            int read = reader.read(buf, length, buf.length - length);
+            if (read < 0) {
+                break;
+            }
+            int lineStart = scan(buf, 0, length, length + read, handler);
+            length += read;
+
+            // Keep the unfinished line, field offsets are relative to its start so they stay valid
+            int pending = length - lineStart;
+            if (lineStart == 0 && length == buf.length) {
+                char[] grown = new char[buf.length * 2];
+                System.arraycopy(buf, 0, grown, 0, length);
+                buf = grown;
+                buffer = grown;
+            } else if (lineStart > 0) {
+                System.arraycopy(buf, lineStart, buf, 0, pending);
+            }
+            length = pending;
+        }
+
+        finish(buf, 0, length, handler);
+        rejects.checkBudget(linesRead);
+    }
+
+    /**
+     * Parses a complete, already decoded slice of an export, for example one chunk of a mapped file.
+     * Only the budget's number of lines is checked, the caller checks the share over the whole export.
+     */
+    public void parse(char[] chars, int offset, int length, TradeRowHandler handler) {
+        int lineStart = scan(chars, offset, offset, offset + length, handler);
+        finish(chars, lineStart, offset + length, handler);
+    }
+
+    /**
+     * Tokenizes buf[from, to) in one pass, emitting every line that ends inside the range.
+     *
+     * @return start of the unfinished last line
+     */
+    private int scan(char[] buf, int lineStart, int from, int to, TradeRowHandler handler) {
+        for (int i = from; i < to; i++) {
+            char c = buf[i];
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (c == '\n') {
+                    lineStart = i + 1;
+                    continue;
+                }
+            }
+            if (c == delimiter) {
+                endField(i - lineStart);
+                fieldCount++;
+                fieldStart = i - lineStart + 1;
+            } else if (c == '\n' || c == '\r') {
+                endField(i - lineStart);
+                onLine(buf, lineStart, i, lastNonEmptyField + 1, handler);
+
+                lineStart = i + 1;
+                fieldCount = 0;
+                lastNonEmptyField = -1;
+                fieldStart = 0;
+                skipLineFeed = c == '\r';
+            }
+        }
+        return lineStart;
+    }
+
+    // The input may end without a line terminator
+    private void finish(char[] buf, int lineStart, int end, TradeRowHandler handler) {
+        if (end > lineStart) {
+            endField(end - lineStart);
+            onLine(buf, lineStart, end, lastNonEmptyField + 1, handler);
+        }
+        fieldCount = 0;
+        lastNonEmptyField = -1;
+        fieldStart = 0;
+        skipLineFeed = false;
+    }
+
+    private void endField(int end) {
+        // Trailing empty fields are not counted, like String.split
+        if (end > fieldStart) {
+            lastNonEmptyField = fieldCount;
+        }
+        if (fieldCount < fieldEnds.length) {
+            fieldEnds[fieldCount] = end;
+        }
+    }
+
+    /**
+     * @return number of physical lines seen so far, header and blank lines included
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    private void onLine(char[] buf, int start, int end, int splitFieldCount, TradeRowHandler handler) {
+        linesRead++;
+
+        // Skip empty lines and header
+        if (firstLine || isBlank(buf, start, end)) {
+            if (firstLine && formats != null) {
+                useMapping(TradeFormat.detect(new String(buf, start, end - start), formats));
+            }
+            firstLine = false;
+            return;
+        }
+
+        if (mapping != null) {
+            onMappedLine(buf, start, end, splitFieldCount, handler);
+            return;
+        }
+
+        // Skip balance operations, buy limits, and invalid lines
+        if (fieldCount >= 1 && (equalsField(buf, start, 1, BALANCE) || equalsField(buf, start, 1, BUY_LIMIT))) {
+            return;
+        }
+        if (splitFieldCount < MIN_FIELDS) {
+            // Rows with the trailing columns left empty are not trades, truncated ones are rejected
+            if (fieldCount + 1 < MIN_FIELDS) {
+                reject(TradeRejects.Reason.TOO_FEW_FIELDS, buf, start, end, -1);
+            }
+            return;
+        }
+
+        // Parse open time (field 0 is always open time)
+        if (!parseDateTime(buf, start + fieldStart(0), start + fieldEnds[0])) {
+            reject(TradeRejects.Reason.INVALID_OPEN_TIME, buf, start, end, 0);
+            return;
+        }
+        long openTime = parsedTime;
+
+        // Find the close time - look for a field that matches the date pattern
+        int closeField = -1;
+        for (int i = 6; i < Math.min(splitFieldCount, 9); i++) {
+            if (parseDateTime(buf, start + fieldStart(i), start + fieldEnds[i])) {
+                closeField = i;
+                break;
+            }
+        }
+
+        // Skip if we couldn't find close time
+        if (closeField < 0) {
+            return;
+        }
+
+        // Find the profit - look for a numeric field in the profit position range
+        double profit = 0.0;
+        for (int i = 10; i < Math.min(splitFieldCount, 13); i++) {
+            if (parseNumber(buf, start + fieldStart(i), start + fieldEnds[i])) {
+                profit = parsedNumber;
+                break;
+            }
+        }
+
+        row.line = buf;
+        row.lineStart = start;
+        row.fieldCount = Math.min(splitFieldCount, MAX_TRACKED_FIELDS);
+        row.closePriceField = closeField + 1;
+        row.commissionField = closeField + 2;
+        row.swapField = closeField + 3;
+        row.openTime = openTime;
+        row.closeTime = parsedTime;
+        row.closeYear = parsedYear;
+        row.closeMonth = parsedMonth;
+        row.profit = profit;
+        handler.onTrade(row);
+    }
+
+    // Every column is read from its compiled index, nothing is probed
+    private void onMappedLine(char[] buf, int start, int end, int splitFieldCount, TradeRowHandler handler) {
+        TradeFormat.Mapping columns = mapping;
+        if (columns.type >= 0 && columns.type < splitFieldCount
+                && (equalsField(buf, start, columns.type, BALANCE) || equalsField(buf, start, columns.type, BUY_LIMIT))) {
+            return;
+        }
+        int timeFields = Math.max(columns.openTime, columns.closeTime);
+        if (splitFieldCount <= timeFields) {
+            // Open positions leave the trailing columns empty, truncated rows are rejected
+            if (fieldCount < timeFields) {
+                reject(TradeRejects.Reason.TOO_FEW_FIELDS, buf, start, end, -1);
+            }
+            return;
+        }
+
+        if (!parseDateTime(buf, start + fieldStart(columns.openTime), start + fieldEnds[columns.openTime])) {
+            reject(TradeRejects.Reason.INVALID_OPEN_TIME, buf, start, end, columns.openTime);
+            return;
+        }
+        long openTime = parsedTime;
+
+        // Open positions and other rows without a close time are not trades yet
+        if (!parseDateTime(buf, start + fieldStart(columns.closeTime), start + fieldEnds[columns.closeTime])) {
+            if (!isBlank(buf, start + fieldStart(columns.closeTime), start + fieldEnds[columns.closeTime])) {
+                reject(TradeRejects.Reason.INVALID_CLOSE_TIME, buf, start, end, columns.closeTime);
+            }
+            return;
+        }
+
+        double profit = 0.0;
+        int closeYear = parsedYear;
+        int closeMonth = parsedMonth;
+        long closeTime = parsedTime;
+        if (columns.profit < splitFieldCount
+                && parseNumber(buf, start + fieldStart(columns.profit), start + fieldEnds[columns.profit])) {
+            profit = parsedNumber;
+        }
+
+        row.line = buf;
+        row.lineStart = start;
+        row.fieldCount = Math.min(splitFieldCount, fieldEnds.length);
+        row.openTime = openTime;
+        row.closeTime = closeTime;
+        row.closeYear = closeYear;
+        row.closeMonth = closeMonth;
+        row.profit = profit;
+        handler.onTrade(row);
+    }
+
+    private int fieldStart(int field) {
+        return field == 0 ? 0 : fieldEnds[field - 1] + 1;
+    }
+
+    private boolean equalsField(char[] buf, int lineStart, int field, char[] expected) {
+        int from = lineStart + fieldStart(field);
+        int to = lineStart + fieldEnds[field];
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buf[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a {@code yyyy.MM.dd HH:mm:ss} value into parsedTime, parsedYear and parsedMonth.
+     * Values that do not fit the fixed layout are handed to {@link DateTimeFormatter} so the
+     * accepted input stays exactly the same as {@link LocalDateTime#parse}. Formats with their
+     * own date pattern always go through the formatter.
+     */
+    boolean parseDateTime(char[] buf, int from, int to) {
+        while (from < to && buf[from] <= ' ') {
+            from++;
+        }
+        while (to > from && buf[to - 1] <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return false;
+        }
+
+        if (dateTimeFormatter == DATE_FORMATTER && to - from == DATE_TIME_LENGTH
+                && buf[from + 4] == '.' && buf[from + 7] == '.' && buf[from + 10] == ' '
+                && buf[from + 13] == ':' && buf[from + 16] == ':') {
+            int year = digits(buf, from, 4);
+            int month = digits(buf, from + 5, 2);
+            int day = digits(buf, from + 8, 2);
+            int hour = digits(buf, from + 11, 2);
+            int minute = digits(buf, from + 14, 2);
+            int second = digits(buf, from + 17, 2);
+
+            if (year > 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59) {
+                // Same as the SMART resolver: an overflowing day is moved to the last day of the month
+                day = Math.min(day, TradeTime.lengthOfMonth(year, month));
+                parsedTime = TradeTime.epochDay(year, month, day) * TradeTime.SECONDS_PER_DAY
+                        + hour * 3600L + minute * 60L + second;
+                parsedYear = year;
+                parsedMonth = month;
+                return true;
+            }
+        }
+
+        return parseDateTimeSlow(new String(buf, from, to - from));
+    }
+
+    private boolean parseDateTimeSlow(String value) {
+        try {
+            LocalDateTime dateTime = parseDateTime(value, dateTimeFormatter);
+            // Month buckets are kept in a dense array, years beyond four digits are not supported
+            if (dateTime.getYear() < 0 || dateTime.getYear() > 9999) {
+                return false;
+            }
+            parsedTime = dateTime.toEpochSecond(ZoneOffset.UTC);
+            parsedYear = dateTime.getYear();
+            parsedMonth = dateTime.getMonthValue();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Decodes a plain decimal into parsedNumber. Anything beyond sign, digits and a single
+     * dot, or too many digits to be rounded exactly, is handed to {@link Double#parseDouble}.
+     */
+    boolean parseNumber(char[] buf, int from, int to) {
+        while (from < to && buf[from] <= ' ') {
+            from++;
+        }
+        while (to > from && buf[to - 1] <= ' ') {
+            to--;
+        }
+        if (from == to) {
+            return false;
+        }
+
+        int i = from;
+        boolean negative = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            negative = buf[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        boolean fast = i < to;
+        for (; i < to; i++) {
+            char c = buf[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                fast = false;
+                break;
+            }
+        }
+
+        // Needs at least one digit, and both the mantissa and the power of ten must be exact doubles
+        if (fast && to - from > (negative || buf[from] == '+' ? 1 : 0) + (scale >= 0 ? 1 : 0)
+                && digits <= MAX_FAST_DIGITS && scale < POWERS_OF_TEN.length) {
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            parsedNumber = negative ? -value : value;
+            return true;
+        }
+
+        try {
+            parsedNumber = Double.parseDouble(new String(buf, from, to - from));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    double lastNumber() {
+        return parsedNumber;
+    }
+
+    // Off the fast path: the line's text and the message are only built for the sample
+    private void reject(TradeRejects.Reason reason, char[] buf, int start, int end, int field) {
+        if (!rejects.isSampling()) {
+            rejects.add(reason, linesRead, null, null);
+            return;
+        }
+        String line = new String(buf, start, end - start);
+        String message;
+        if (field < 0) {
+            message = (fieldCount + 1) + " field(s)";
+        } else {
+            try {
+                parseDateTime(line.substring(fieldStart(field), fieldEnds[field]), dateTimeFormatter);
+                message = "Year out of range";
+            } catch (Exception e) {
+                message = e.getMessage();
+            }
+        }
+        rejects.add(reason, linesRead, message, line);
+    }
+
+    private static LocalDateTime parseDateTime(String dateTimeStr, DateTimeFormatter formatter) {
+        if (dateTimeStr == null || dateTimeStr.trim().isEmpty()) {
+            throw new IllegalArgumentException("Empty date time string");
+        }
+        return LocalDateTime.parse(dateTimeStr.trim(), formatter);
+    }
+
+    private static boolean isBlank(char[] buf, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digits(char[] buf, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
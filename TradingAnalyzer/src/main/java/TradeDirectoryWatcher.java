@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running mode: watches the input directory and re-analyses every export shortly after it changes.
+ *
+ * Bursts of events for one file (an exporter writing in several steps) are collapsed until the file
+ * has been quiet for {@link #DEBOUNCE_MILLIS}. Analysis goes through the {@link AnalysisCache}, so a
+ * growing export only has its new lines parsed and nothing else in the directory is touched.
+ */
+public final class TradeDirectoryWatcher {
+
+    static final long DEBOUNCE_MILLIS = 300;
+
+    private final Path directory;
+    private final AnalyzerOptions options;
+    private final AnalysisCache cache;
+    private final PathMatcher exports;
+    private final ExecutorService workers;
+
+    // File to the System.nanoTime() at which it is considered quiet
+    private final Map<Path, Long> pending = new ConcurrentHashMap<>();
+    private final Set<Path> running = ConcurrentHashMap.newKeySet();
+
+    public TradeDirectoryWatcher(Path directory, AnalyzerOptions options) {
+        this.directory = directory;
+        this.options = options;
+        this.cache = AnalysisCache.load(directory);
+        this.exports = options.exportMatcher();
+        this.workers = Executors.newFixedThreadPool(options.workers);
+    }
+
+    /**
+     * Blocks until the thread is interrupted or the directory can no longer be watched.
+     */
+    public void run() throws IOException, InterruptedException {
+        try (WatchService watchService = directory.getFileSystem().newWatchService()) {
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            System.out.println("Watching " + directory + " for trade exports, press Ctrl+C to stop");
+
+            // Catch up on exports that changed while nobody was watching, cheap thanks to the cache
+            queueAllExports();
+
+            while (true) {
+                WatchKey key = watchService.poll(nextWakeUpMillis(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            queueAllExports();
+                        } else {
+                            queue(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    if (!key.reset()) {
+                        throw new IOException("Directory is no longer accessible: " + directory);
+                    }
+                }
+                dispatchQuietFiles();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed on shutdown
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void queueAllExports() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                queue(file);
+            }
+        }
+    }
+
+    private void queue(Path file) {
+        if (exports.matches(file.getFileName())) {
+            pending.put(file, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS));
+        }
+    }
+
+    private long nextWakeUpMillis() {
+        long now = System.nanoTime();
+        long next = DEBOUNCE_MILLIS;
+        for (Map.Entry<Path, Long> entry : pending.entrySet()) {
+            // A file queued again while it is analysed waits for that analysis, not for its deadline
+            if (!running.contains(entry.getKey())) {
+                next = Math.min(next, TimeUnit.NANOSECONDS.toMillis(entry.getValue() - now));
+            }
+        }
+        return Math.max(next, 1);
+    }
+
+    private void dispatchQuietFiles() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            Path file = entry.getKey();
+            // Still being written, or its previous analysis has not finished yet
+            if (entry.getValue() - now > 0 || running.contains(file)) {
+                continue;
+            }
+            iterator.remove();
+            if (Files.isRegularFile(file)) {
+                running.add(file);
+                workers.execute(() -> analyze(file));
+            }
+        }
+    }
+
+    private void analyze(Path file) {
+        try {
+            FileAnalysisResult result = TradeProfitAnalyzer.analyzeFile(file.toFile(), options, cache);
+            if (result.outcome != FileAnalysisResult.Outcome.UNCHANGED || !result.isSuccess()) {
+                report(result);
+            }
+            saveCache();
+        } finally {
+            // A change during the analysis is picked up once the file has been quiet since the analysis ended
+            long quietAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEBOUNCE_MILLIS);
+            pending.computeIfPresent(file, (queued, deadline) -> Math.max(deadline, quietAt));
+            running.remove(file);
+        }
+    }
+
+    private synchronized void report(FileAnalysisResult result) {
+        System.out.printf("Processing: %s (%d ms)%n", result.csvFile.getName(),
+                TimeUnit.NANOSECONDS.toMillis(result.elapsedNanos));
+        TradeProfitAnalyzer.printResult(result);
+    }
+
+    private synchronized void saveCache() {
+        try {
+            cache.save();
+        } catch (IOException e) {
+            System.err.println("Could not save analysis cache: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+
+/**
+ * The Trades sheet: every closed trade behind the monthly totals, written while the export is parsed.
+ *
+ * Consecutive trades closed in the same month form an outline group (level 1) followed by a summary
+ * row with the month's trade count and net profit, so Excel can collapse the sheet to one row per month.
+ * Exports list their history in time order, newest or oldest first, so each month is one group.
+ *
+ * Rows go straight to the workbook: with the streaming backend only {@link TradeWorkbook#ROW_WINDOW}
+ * rows are in memory, and no trade is kept once written. An account with more rows than a sheet holds
+ * continues on "Trades (2)" and so on.
+ */
+final class TradeDrillDownSheet implements TradeRowHandler {
+
+    static final String SHEET_NAME = "Trades";
+
+    private static final String[] COLUMNS = {"Close Time", "Open Time", "Type", "Symbol", "Volume", "Open Price",
+            "Close Price", "Commission", "Swap", "Profit"};
+    private static final int TYPE = 2;
+    private static final int SYMBOL = 3;
+    private static final int PROFIT = 9;
+
+    // Keeps room for the summary row of the month in progress
+    private static final int LAST_TRADE_ROW = SpreadsheetVersion.EXCEL2007.getLastRowIndex() - 1;
+
+    private final TradeWorkbook workbook;
+    private final WorkbookStyles styles;
+    private final List<String> sheetNames = new ArrayList<>();
+    // Only the distinct symbol and type names are kept, for the rows of the current line
+    private final StringDictionary symbols = new StringDictionary();
+    private final StringDictionary types = new StringDictionary();
+
+    private Sheet sheet;
+    private int rowNum;
+
+    // Month of the current group, -1 before the first trade
+    private int month = -1;
+    private int groupStart;
+    private int groupTrades;
+    private double groupProfit;
+
+    TradeDrillDownSheet(TradeWorkbook workbook) {
+        this.workbook = workbook;
+        this.styles = workbook.styles();
+        startSheet();
+    }
+
+    @Override
+    public void onTrade(TradeRow trade) {
+        writeTrade(trade.closeMonthIndex(), trade.closeTime(), trade.openTime(), types.valueOf(trade.type(types)),
+                symbols.valueOf(trade.symbol(symbols)), trade.volume(), trade.openPrice(), trade.closePrice(),
+                trade.commission(), trade.swap(), trade.profit());
+    }
+
+    /**
+     * Writes trades already in memory, for a report loaded from a {@link TradeSnapshot}.
+     */
+    void addAll(TradeColumns columns) {
+        for (int i = 0; i < columns.size(); i++) {
+            writeTrade(TradeTime.monthIndex(columns.closeTimes[i]), columns.closeTimes[i], columns.openTimes[i],
+                    columns.types.valueOf(columns.typeIds[i]), columns.symbols.valueOf(columns.symbolIds[i]),
+                    columns.volumes[i], columns.openPrices[i], columns.closePrices[i], columns.commissions[i],
+                    columns.swaps[i], columns.profits[i]);
+        }
+    }
+
+    /**
+     * Closes the last month. Call once all trades are written.
+     */
+    void finish() {
+        if (groupTrades > 0) {
+            writeSummary();
+        }
+    }
+
+    /**
+     * @return names of the sheets written, "Trades" first
+     */
+    List<String> sheetNames() {
+        return sheetNames;
+    }
+
+    private void writeTrade(int tradeMonth, long closeTime, long openTime, String type, String symbol, double volume,
+                            double openPrice, double closePrice, double commission, double swap, double profit) {
+        if (tradeMonth != month) {
+            if (groupTrades > 0) {
+                writeSummary();
+            }
+            month = tradeMonth;
+            groupStart = rowNum;
+            groupTrades = 0;
+            groupProfit = 0;
+        }
+        if (rowNum > LAST_TRADE_ROW) {
+            // The month in progress is grouped on each sheet, its summary follows on the last one
+            groupRows();
+            startSheet();
+            groupStart = rowNum;
+        }
+
+        Row row = sheet.createRow(rowNum);
+        if (sheet instanceof SXSSFSheet) {
+            // Older rows may already be flushed, so the level is set while the row is in the window
+            ((SXSSFSheet) sheet).setRowOutlineLevel(rowNum, 1);
+        }
+        rowNum++;
+        workbook.setDateTimeCell(row, 0, closeTime);
+        workbook.setDateTimeCell(row, 1, openTime);
+        workbook.setCell(row, TYPE, type, styles.defaultCell);
+        workbook.setCell(row, SYMBOL, symbol, styles.defaultCell);
+        setNumber(row, 4, volume);
+        setNumber(row, 5, openPrice);
+        setNumber(row, 6, closePrice);
+        setNumber(row, 7, commission);
+        setNumber(row, 8, swap);
+        workbook.setCell(row, PROFIT, profit, styles.profit(profit));
+
+        groupTrades++;
+        groupProfit += profit;
+    }
+
+    private void writeSummary() {
+        groupRows();
+        Row row = sheet.createRow(rowNum++);
+        workbook.setCell(row, 0, MonthlyProfits.monthKey(month), styles.summary);
+        workbook.setCell(row, 1, "Trades: " + groupTrades, styles.summary);
+        workbook.setCell(row, PROFIT, groupProfit, styles.profit(groupProfit));
+        groupTrades = 0;
+    }
+
+    // The XSSF backend keeps every row, so the group is set once it is complete
+    private void groupRows() {
+        if (!(sheet instanceof SXSSFSheet) && rowNum > groupStart) {
+            sheet.groupRow(groupStart, rowNum - 1);
+        }
+    }
+
+    // Missing columns (NaN) stay blank
+    private void setNumber(Row row, int column, double value) {
+        if (!Double.isNaN(value)) {
+            workbook.setCell(row, column, value, styles.defaultCell);
+        }
+    }
+
+    private void startSheet() {
+        String name = sheetNames.isEmpty() ? SHEET_NAME : SHEET_NAME + " (" + (sheetNames.size() + 1) + ")";
+        sheetNames.add(name);
+        sheet = workbook.createSheet(name);
+        // Summary rows follow their month's trades
+        sheet.setRowSumsBelow(true);
+        sheet.createFreezePane(0, 1);
+
+        Row header = sheet.createRow(0);
+        for (int column = 0; column < COLUMNS.length; column++) {
+            workbook.setCell(header, column, COLUMNS[column], styles.header);
+        }
+        rowNum = 1;
+    }
+}
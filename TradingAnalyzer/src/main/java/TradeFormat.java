@@ -0,0 +1,334 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Column layout of one broker's trade export, recognised from the header line.
+ *
+ * Each column is given by header names: alternatives separated by {@code |}, {@code #n} for the n-th
+ * column of that name (MT5 has two Time, Price and Volume columns) and a trailing {@code *} for a prefix
+ * (cTrader appends the currency or time zone). Names are compared trimmed and case-insensitively.
+ * A format applies to a header when at least the open time, close time and profit columns are found;
+ * it is then compiled into a {@link Mapping} of plain column indices used for every row.
+ *
+ * User-defined formats are read from a properties file, for example:
+ * <pre>
+ *   myBroker.delimiter=,
+ *   myBroker.dateTimePattern=dd/MM/yyyy HH:mm:ss
+ *   myBroker.openTime=Open Time
+ *   myBroker.closeTime=Close Time
+ *   myBroker.profit=Net Profit
+ *   myBroker.symbol=Instrument|Symbol
+ * </pre>
+ */
+public final class TradeFormat {
+
+    static final String DEFAULT_DATE_TIME_PATTERN = "yyyy.MM.dd HH:mm:ss";
+
+    static final String[] COLUMNS = {"openTime", "type", "volume", "symbol", "openPrice", "closeTime", "closePrice",
+            "commission", "swap", "profit"};
+
+    private static final int OPEN_TIME = 0;
+    private static final int TYPE = 1;
+    private static final int VOLUME = 2;
+    private static final int SYMBOL = 3;
+    private static final int OPEN_PRICE = 4;
+    private static final int CLOSE_TIME = 5;
+    private static final int CLOSE_PRICE = 6;
+    private static final int COMMISSION = 7;
+    private static final int SWAP = 8;
+    private static final int PROFIT = 9;
+
+    public static final TradeFormat MT5 = new TradeFormat("MT5", ';', DEFAULT_DATE_TIME_PATTERN,
+            "Time#1", "Type", "Volume#1", "Symbol", "Price#1", "Time#2", "Price#2", "Commission", "Swap", "Profit");
+
+    public static final TradeFormat MT4 = new TradeFormat("MT4", ';', DEFAULT_DATE_TIME_PATTERN,
+            "Open Time", "Type", "Size|Lots|Volume", "Item|Symbol", "Open Price|Price#1", "Close Time",
+            "Close Price|Price#2", "Commission", "Swap", "Profit");
+
+    public static final TradeFormat CTRADER = new TradeFormat("cTrader", ',', "dd/MM/yyyy HH:mm:ss.SSS",
+            "Opening Time*", "Opening Direction|Direction", "Closing Quantity*|Quantity*|Volume*", "Symbol",
+            "Entry Price*", "Closing Time*", "Closing Price*", "Commissions*|Commission*", "Swap*", "Net*");
+
+    static final List<TradeFormat> BUILT_IN = List.of(MT5, MT4, CTRADER);
+
+    final String name;
+    final char delimiter;
+    // Null for the default layout, which the parser decodes without a formatter
+    final DateTimeFormatter dateTimeFormatter;
+    // Alternatives of each column, none for a column the format does not map
+    private final ColumnName[][] columns;
+
+    /**
+     * @throws IllegalArgumentException when a column name is empty or has an occurrence below 1
+     */
+    public TradeFormat(String name, char delimiter, String dateTimePattern, String... columns) {
+        if (columns.length != COLUMNS.length) {
+            throw new IllegalArgumentException("Expected " + COLUMNS.length + " column names, got " + columns.length);
+        }
+        this.name = name;
+        this.delimiter = delimiter;
+        this.dateTimeFormatter = DEFAULT_DATE_TIME_PATTERN.equals(dateTimePattern)
+                ? null : DateTimeFormatter.ofPattern(dateTimePattern);
+        this.columns = new ColumnName[columns.length][];
+        for (int column = 0; column < columns.length; column++) {
+            this.columns[column] = parseColumn(name, COLUMNS[column], columns[column]);
+        }
+    }
+
+    /**
+     * One alternative of a column: the header name, the occurrence of that name and whether it is a prefix.
+     */
+    private static final class ColumnName {
+        final String name;
+        final int occurrence;
+        final boolean prefix;
+
+        ColumnName(String name, int occurrence, boolean prefix) {
+            this.name = name;
+            this.occurrence = occurrence;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * Column indices of a format resolved against one header, -1 for a column the export does not have.
+     */
+    public static final class Mapping {
+        final TradeFormat format;
+        final int openTime;
+        final int type;
+        final int volume;
+        final int symbol;
+        final int openPrice;
+        final int closeTime;
+        final int closePrice;
+        final int commission;
+        final int swap;
+        final int profit;
+        // Highest index of a mapped column
+        final int lastField;
+
+        private Mapping(TradeFormat format, int[] fields) {
+            this.format = format;
+            this.openTime = fields[OPEN_TIME];
+            this.type = fields[TYPE];
+            this.volume = fields[VOLUME];
+            this.symbol = fields[SYMBOL];
+            this.openPrice = fields[OPEN_PRICE];
+            this.closeTime = fields[CLOSE_TIME];
+            this.closePrice = fields[CLOSE_PRICE];
+            this.commission = fields[COMMISSION];
+            this.swap = fields[SWAP];
+            this.profit = fields[PROFIT];
+            int last = 0;
+            for (int field : fields) {
+                last = Math.max(last, field);
+            }
+            this.lastField = last;
+        }
+
+        public String formatName() {
+            return format.name;
+        }
+    }
+
+    /**
+     * @return mapping of the first format that applies to the header, null if none does
+     */
+    public static Mapping detect(String headerLine, List<TradeFormat> formats) {
+        String header = stripByteOrderMark(headerLine);
+        for (TradeFormat format : formats) {
+            Mapping mapping = format.compile(header);
+            if (mapping != null) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the header line of an export.
+     */
+    public static Mapping detect(Path csvFile, Charset charset, List<TradeFormat> formats) throws IOException {
+        // Malformed bytes are replaced, like the parsers decode them
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(csvFile), charset))) {
+            String header = reader.readLine();
+            return header == null ? null : detect(header, formats);
+        }
+    }
+
+    /**
+     * Loads user-defined formats, see the class comment for the keys. Every format needs at least
+     * openTime, closeTime and profit; the delimiter defaults to ; and the pattern to the MetaTrader one.
+     */
+    public static List<TradeFormat> load(Path propertiesFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(propertiesFile)) {
+            properties.load(in);
+        }
+
+        TreeSet<String> names = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.lastIndexOf('.');
+            if (dot <= 0) {
+                throw new IllegalArgumentException("Expected <format>.<setting> in " + propertiesFile + ", got " + key);
+            }
+            names.add(key.substring(0, dot));
+        }
+
+        List<TradeFormat> formats = new ArrayList<>();
+        for (String name : names) {
+            String[] columns = new String[COLUMNS.length];
+            for (int column = 0; column < COLUMNS.length; column++) {
+                columns[column] = properties.getProperty(name + "." + COLUMNS[column], "");
+            }
+            for (int required : new int[]{OPEN_TIME, CLOSE_TIME, PROFIT}) {
+                if (columns[required].isBlank()) {
+                    throw new IllegalArgumentException("Format " + name + " in " + propertiesFile + " has no "
+                            + COLUMNS[required] + " column");
+                }
+            }
+            String delimiter = properties.getProperty(name + ".delimiter", ";");
+            if (delimiter.length() != 1) {
+                throw new IllegalArgumentException("Format " + name + " needs a single character delimiter, got " + delimiter);
+            }
+            formats.add(new TradeFormat(name, delimiter.charAt(0),
+                    properties.getProperty(name + ".dateTimePattern", DEFAULT_DATE_TIME_PATTERN), columns));
+        }
+        return formats;
+    }
+
+    /**
+     * @return user-defined formats ahead of the built-in ones, so they can override a built-in layout
+     */
+    static List<TradeFormat> withBuiltIn(List<TradeFormat> userDefined) {
+        List<TradeFormat> formats = new ArrayList<>(userDefined);
+        formats.addAll(BUILT_IN);
+        return formats;
+    }
+
+    /**
+     * @return everything that decides how this format reads an export, results parsed under another
+     *         signature may map other columns
+     */
+    String signature() {
+        StringBuilder signature = new StringBuilder(name).append('\n').append(delimiter).append('\n')
+                .append(dateTimeFormatter == null ? DEFAULT_DATE_TIME_PATTERN : dateTimeFormatter.toString());
+        for (ColumnName[] alternatives : columns) {
+            signature.append('\n');
+            for (ColumnName alternative : alternatives) {
+                signature.append(alternative.name).append('#').append(alternative.occurrence)
+                        .append(alternative.prefix ? "*|" : "|");
+            }
+        }
+        return signature.toString();
+    }
+
+    // A UTF-8 byte order mark is decoded as part of the first column name: as itself, as replacement
+    // characters by an ASCII decoder or as three Latin-1 characters
+    private static String stripByteOrderMark(String header) {
+        if (header.startsWith("\uFEFF")) {
+            return header.substring(1);
+        }
+        if (header.startsWith("\u00EF\u00BB\u00BF")) {
+            return header.substring(3);
+        }
+        int start = 0;
+        while (start < header.length() && header.charAt(start) == '\uFFFD') {
+            start++;
+        }
+        return header.substring(start);
+    }
+
+    private Mapping compile(String header) {
+        // Split on the plain character, the delimiter may be a regex metacharacter such as | or .
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= header.length(); i++) {
+            if (i == header.length() || header.charAt(i) == delimiter) {
+                names.add(header.substring(start, i).trim().toLowerCase(Locale.ROOT));
+                start = i + 1;
+            }
+        }
+
+        int[] fields = new int[COLUMNS.length];
+        for (int column = 0; column < COLUMNS.length; column++) {
+            fields[column] = resolve(columns[column], names);
+        }
+        if (fields[OPEN_TIME] < 0 || fields[CLOSE_TIME] < 0 || fields[PROFIT] < 0) {
+            return null;
+        }
+        return new Mapping(this, fields);
+    }
+
+    private static int resolve(ColumnName[] alternatives, List<String> names) {
+        for (ColumnName alternative : alternatives) {
+            int seen = 0;
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                if ((alternative.prefix ? name.startsWith(alternative.name) : name.equals(alternative.name))
+                        && ++seen == alternative.occurrence) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // A # only starts an occurrence when digits follow it, so header names such as "Deal #" stay whole
+    private static ColumnName[] parseColumn(String format, String column, String spec) {
+        if (spec.isBlank()) {
+            return new ColumnName[0];
+        }
+        String[] alternatives = spec.split("\\|");
+        ColumnName[] names = new ColumnName[alternatives.length];
+        for (int i = 0; i < alternatives.length; i++) {
+            String name = alternatives[i].trim().toLowerCase(Locale.ROOT);
+            int occurrence = 1;
+            int hash = name.lastIndexOf('#');
+            if (hash > 0 && hash < name.length() - 1 && isDigits(name, hash + 1)) {
+                try {
+                    occurrence = Integer.parseInt(name.substring(hash + 1));
+                } catch (NumberFormatException e) {
+                    occurrence = 0;
+                }
+                name = name.substring(0, hash).trim();
+            }
+            boolean prefix = name.endsWith("*");
+            if (prefix) {
+                name = name.substring(0, name.length() - 1);
+            }
+            if (name.isEmpty() || occurrence < 1) {
+                throw new IllegalArgumentException("Format " + format + " has an invalid " + column + " column: "
+                        + alternatives[i].trim());
+            }
+            names[i] = new ColumnName(name, occurrence, prefix);
+        }
+        return names;
+    }
+
+    private static boolean isDigits(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
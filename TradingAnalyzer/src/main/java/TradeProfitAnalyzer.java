@@ -1,19 +1,20 @@
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.*;
 
 // Apache POI imports for Excel formatting
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.xssf.usermodel.XSSFColor;
-import java.awt.Color;
 
 public class TradeProfitAnalyzer {
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy.MM.dd HH:mm:ss");
-
     static class Trade {
         LocalDateTime openTime;
         LocalDateTime closeTime;
@@ -29,350 +30,606 @@ public class TradeProfitAnalyzer {
     }
 
     public static void main(String[] args) {
-        String directoryPath = "D:\\\\TradesAnalysis";
+        System.exit(run(args));
+    }
 
+    /**
+     * Runs the analyzer with the command line of {@link AnalyzerCommandLine}.
+     *
+     * @return the exit code, one of the {@code AnalyzerCommandLine.EXIT_} codes
+     */
+    static int run(String[] args) {
+        AnalyzerOptions options;
         try {
-            // Get all CSV files in the directory
-            File directory = new File(directoryPath);
-            File[] csvFiles = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".csv"));
-
-            if (csvFiles == null || csvFiles.length == 0) {
-                System.out.println("No CSV files found in directory: " + directoryPath);
-                return;
-            }
-
-            System.out.println("Found " + csvFiles.length + " CSV file(s) to process:");
-
-            for (File csvFile : csvFiles) {
-                String inputFile = csvFile.getAbsolutePath();
-                String outputFile = inputFile.replace(".csv", ".xlsx");
-
-                System.out.println("Processing: " + csvFile.getName());
-
-                try {
-                    Map<String, Double> monthlyProfits = analyzeTrades(inputFile);
-                    writeResultsToExcel(monthlyProfits, outputFile);
-                    System.out.println("  ✓ Analysis complete! Results saved to: " + outputFile);
+            options = AnalyzerCommandLine.parse(args, AnalyzerOptions.fromSystemProperties());
+        } catch (RuntimeException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(AnalyzerCommandLine.usage());
+            return AnalyzerCommandLine.EXIT_USAGE;
+        }
+        if (options == null) {
+            System.out.println(AnalyzerCommandLine.usage());
+            return AnalyzerCommandLine.EXIT_SUCCESS;
+        }
 
-                } catch (IOException e) {
-                    System.err.println("  ✗ Error processing file " + csvFile.getName() + ": " + e.getMessage());
-                }
+        try {
+            if (options.watch) {
+                new TradeDirectoryWatcher(options.inputDirectories.get(0), options).run();
+                return AnalyzerCommandLine.EXIT_SUCCESS;
             }
-
-            System.out.println("\nAll files processed successfully!");
-
+            return analyzeDirectories(options);
         } catch (Exception e) {
             System.err.println("Error processing directory: " + e.getMessage());
             e.printStackTrace();
+            return AnalyzerCommandLine.EXIT_ERROR;
         }
     }
 
-    public static Map<String, Double> analyzeTrades(String inputFilePath) throws IOException {
-        Map<String, Double> monthlyProfits = new TreeMap<>();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(inputFilePath))) {
-            String line;
-            boolean isFirstLine = true;
+    static int analyzeDirectories(AnalyzerOptions options) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        RunStatistics statistics = new RunStatistics();
 
-            while ((line = reader.readLine()) != null) {
-                // Skip empty lines and header
-                if (line.trim().isEmpty() || isFirstLine) {
-                    isFirstLine = false;
-                    continue;
-                }
-
-                // Parse CSV line (semicolon separated)
-                String[] fields = line.split(";");
-
-                // Skip balance operations, buy limits, and invalid lines
-                if (fields.length < 8 || "Balance".equals(fields[1]) || "Buy Limit".equals(fields[1])) {
-                    continue;
+        PathMatcher matcher = options.exportMatcher();
+        List<File> csvFiles = new ArrayList<>();
+        for (Path directory : options.inputDirectories) {
+            if (!Files.isDirectory(directory)) {
+                throw new NoSuchFileException(directory.toString(), null, "not a directory");
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                    file -> Files.isRegularFile(file) && matcher.matches(file.getFileName()))) {
+                List<File> matching = new ArrayList<>();
+                for (Path file : files) {
+                    matching.add(file.toFile());
                 }
+                matching.sort(Comparator.comparing(File::getName));
+                csvFiles.addAll(matching);
+            }
+        }
+        statistics.add("discover", System.nanoTime() - start, csvFiles.size(), 0, 0);
 
-                try {
-                    // Parse open time (field 0 is always open time)
-                    LocalDateTime openTime = parseDateTime(fields[0]);
-                    String type = fields[1];
-
-                    // Find the close time - look for a field that matches the date pattern
-                    LocalDateTime closeTime = null;
-                    for (int i = 6; i < Math.min(fields.length, 9); i++) {
-                        if (isValidDateTime(fields[i])) {
-                            closeTime = parseDateTime(fields[i]);
-                            break;
-                        }
-                    }
-
-                    // Find the profit - look for a numeric field in the profit position range
-                    double profit = 0.0;
-                    for (int i = 10; i < Math.min(fields.length, 13); i++) {
-                        if (isNumeric(fields[i])) {
-                            profit = parseDouble(fields[i]);
-                            break;
-                        }
-                    }
+        if (csvFiles.isEmpty()) {
+            System.out.println("No files matching " + options.glob + " found in: " + options.inputDirectories);
+            return AnalyzerCommandLine.EXIT_NO_INPUT;
+        }
 
-                    // Skip if we couldn't find close time
-                    if (closeTime == null) {
-                        continue;
-                    }
+        System.out.println("Found " + csvFiles.size() + " CSV file(s) to process:");
 
-                    // Use closing date for monthly grouping
-                    String monthKey = getMonthKey(closeTime);
+        // Incremental runs reuse the aggregates of earlier runs stored next to the exports, one cache per directory
+        Map<Path, AnalysisCache> caches = new HashMap<>();
+        if (options.incremental) {
+            for (File csvFile : csvFiles) {
+                caches.computeIfAbsent(directoryOf(csvFile), AnalysisCache::load);
+            }
+        }
 
-                    // Add profit to monthly total
-                    monthlyProfits.merge(monthKey, profit, Double::sum);
+        List<FileAnalysisResult> results = options.workers > 1
+                ? processFilesInParallel(csvFiles, options, caches)
+                : processFiles(csvFiles, options, caches);
+        statistics.addFiles(results);
 
-                } catch (Exception e) {
-                    System.err.println("Skipping invalid line: " + line);
-                    System.err.println("Error: " + e.getMessage());
-                }
+        if (options.portfolio) {
+            long portfolioStart = System.nanoTime();
+            int accounts = writePortfolio(results, options);
+            statistics.add("portfolio", System.nanoTime() - portfolioStart, accounts, 0, 0);
+        }
+        long cacheStart = System.nanoTime();
+        for (AnalysisCache cache : caches.values()) {
+            cache.save();
+        }
+        statistics.add("cache", System.nanoTime() - cacheStart, caches.size(), 0, 0);
+
+        long elapsedNanos = System.nanoTime() - start;
+        int failed = printSummary(results, elapsedNanos);
+        if (options.stats) {
+            long rows = 0;
+            long bytesRead = 0;
+            for (FileAnalysisResult result : results) {
+                rows += result.linesRead;
+                bytesRead += result.bytesRead;
             }
+            statistics.add("total", elapsedNanos, results.size(), rows, bytesRead);
+            statistics.print(System.out);
         }
+        return failed == 0 ? AnalyzerCommandLine.EXIT_SUCCESS : AnalyzerCommandLine.EXIT_FAILED_FILES;
+    }
 
-        return monthlyProfits;
+    static Path directoryOf(File csvFile) {
+        return csvFile.getAbsoluteFile().toPath().normalize().getParent();
     }
 
-    private static boolean isValidDateTime(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return false;
+    static List<FileAnalysisResult> processFiles(List<File> csvFiles, AnalyzerOptions options,
+                                                 Map<Path, AnalysisCache> caches) {
+        List<FileAnalysisResult> results = new ArrayList<>();
+        for (File csvFile : csvFiles) {
+            System.out.println("Processing: " + csvFile.getName());
+            FileAnalysisResult result = analyzeFile(csvFile, options, caches.get(directoryOf(csvFile)));
+            printResult(result);
+            results.add(result);
         }
+        return results;
+    }
+
+    /**
+     * Parses and renders the files on a fixed pool of worker threads.
+     * Every file still goes through {@link #analyzeFile(File, AnalyzerOptions, AnalysisCache)}, so the workbooks
+     * match the sequential run.
+     */
+    static List<FileAnalysisResult> processFilesInParallel(List<File> csvFiles, AnalyzerOptions options,
+                                                           Map<Path, AnalysisCache> caches) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.workers, csvFiles.size()));
         try {
-            parseDateTime(value);
-            return true;
-        } catch (Exception e) {
-            return false;
+            CompletionService<FileAnalysisResult> completionService = new ExecutorCompletionService<>(executor);
+            for (File csvFile : csvFiles) {
+                AnalysisCache cache = caches.get(directoryOf(csvFile));
+                completionService.submit(() -> analyzeFile(csvFile, options, cache));
+            }
+
+            // Report from this thread as files complete so the console lines of one file stay together
+            List<FileAnalysisResult> results = new ArrayList<>();
+            for (int i = 0; i < csvFiles.size(); i++) {
+                FileAnalysisResult result = completionService.take().get();
+                System.out.println("Processing: " + result.csvFile.getName());
+                printResult(result);
+                results.add(result);
+            }
+            return results;
+        } catch (ExecutionException e) {
+            // analyzeFile reports its own failures, anything else is a bug
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
     }
 
-    private static boolean isNumeric(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return false;
-        }
+    /**
+     * @param cache aggregates of earlier runs, null to always parse the whole file
+     */
+    static FileAnalysisResult analyzeFile(File csvFile, AnalyzerOptions options, AnalysisCache cache) {
+        long start = System.nanoTime();
+        List<Path> outputFiles = options.outputFilesFor(csvFile);
+
+        long linesRead = 0;
         try {
-            Double.parseDouble(value.trim());
-            return true;
+            Files.createDirectories(outputFiles.get(0).getParent());
+            // The cache only holds monthly totals, other reports need the whole file
+            if (cache != null && !options.needsFullParse()) {
+                return analyzeFileIncrementally(csvFile, outputFiles, options, cache, start);
+            }
+
+            long bytesRead = csvFile.length();
+            TradeReport report;
+            long parsed;
+            if (options.drillDown && options.outputFormats.contains(OutputFormat.XLSX)) {
+                // Trades are written to the workbook while parsing, so parse time includes those rows
+                try (TradeWorkbook workbook = TradeWorkbook.create(options.streamingWorkbook)) {
+                    TradeDrillDownSheet trades = new TradeDrillDownSheet(workbook);
+                    report = parseReport(csvFile, options, trades);
+                    trades.finish();
+                    parsed = System.nanoTime();
+                    writeOutputs(csvFile, report, workbook, options);
+                }
+            } else {
+                report = parseReport(csvFile, options, null);
+                parsed = System.nanoTime();
+                writeOutputs(csvFile, report, null, options);
+            }
+            linesRead = report.linesRead;
+            long written = System.nanoTime();
+            return FileAnalysisResult.success(csvFile, outputFiles, linesRead, bytesRead, report.monthlyProfits,
+                    report.symbolPerformance, report.rejects, written - start, parsed - start, written - parsed,
+                    FileAnalysisResult.Outcome.ANALYZED);
+
         } catch (Exception e) {
-            return false;
+            return FileAnalysisResult.failure(csvFile, outputFiles, linesRead, System.nanoTime() - start, e);
         }
     }
 
-    public static void writeResultsToExcel(Map<String, Double> monthlyProfits, String outputFilePath) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Monthly Profits");
-
-            // Create styles
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle titleStyle = createTitleStyle(workbook);
-            CellStyle positiveProfitStyle = createPositiveProfitStyle(workbook);
-            CellStyle negativeProfitStyle = createNegativeProfitStyle(workbook);
-            CellStyle defaultStyle = createDefaultCellStyle(workbook);
-            CellStyle summaryStyle = createSummaryStyle(workbook);
-
-            // Create title row with filename (without .csv)
-            String fileName = outputFilePath.substring(outputFilePath.lastIndexOf("\\") + 1);
-            fileName = fileName.replace(".xlsx", "");
-
-            Row titleRow = sheet.createRow(0);
-            Cell titleCell = titleRow.createCell(0);
-            titleCell.setCellValue(fileName);
-            titleCell.setCellStyle(titleStyle);
-
-            // Merge cells A1:B1 for the title
-            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 1));
-
-            // Create header row
-            Row headerRow = sheet.createRow(1);
-            Cell headerCell1 = headerRow.createCell(0);
-            headerCell1.setCellValue("Month");
-            headerCell1.setCellStyle(headerStyle);
-
-            Cell headerCell2 = headerRow.createCell(1);
-            headerCell2.setCellValue("Net Profit");
-            headerCell2.setCellStyle(headerStyle);
-
-            // Write data rows and calculate totals
-            int rowNum = 2;
-            double totalProfits = 0.0;
-            int monthCount = 0;
-
-            for (Map.Entry<String, Double> entry : monthlyProfits.entrySet()) {
-                Row row = sheet.createRow(rowNum++);
-
-                // Month column
-                Cell monthCell = row.createCell(0);
-                monthCell.setCellValue(entry.getKey());
-                monthCell.setCellStyle(defaultStyle);
-
-                // Net Profit column
-                Cell profitCell = row.createCell(1);
-                double profit = entry.getValue();
-                profitCell.setCellValue(profit);
-
-                // Apply conditional formatting based on profit value
-                if (profit < 0) {
-                    profitCell.setCellStyle(negativeProfitStyle);
+    /**
+     * Writes every selected output format of a parsed report. Rejected lines go to the Rejects sheet, or to a
+     * text file when no workbook is written; the file of an earlier run is removed once they are gone.
+     *
+     * @param workbook workbook already holding the Trades sheets, null to start a new one
+     */
+    private static void writeOutputs(File csvFile, TradeReport report, TradeWorkbook workbook, AnalyzerOptions options)
+            throws IOException {
+        writeRejectsFile(csvFile, report.rejects, options);
+        for (OutputFormat format : options.outputFormats) {
+            Path outputFile = options.outputFileFor(csvFile, format);
+            if (format != OutputFormat.XLSX) {
+                if (report.bucketedProfits != null) {
+                    ProfitsFileWriter.write(format, AnalyzerOptions.baseName(csvFile),
+                            report.bucketedProfits.granularity(), report.bucketedProfits.toMap(), outputFile);
                 } else {
-                    profitCell.setCellStyle(positiveProfitStyle);
+                    ProfitsFileWriter.write(format, AnalyzerOptions.baseName(csvFile), TradeBuckets.Granularity.MONTH,
+                            report.monthlyProfits.toMap(), outputFile);
                 }
+            } else if (workbook != null) {
+                writeReport(report, workbook, outputFile.toString(), options);
+            } else {
+                writeReport(report, outputFile.toString(), options);
+            }
+        }
+    }
 
-                // Update totals
-                totalProfits += profit;
-                monthCount++;
+    /**
+     * Writes every selected output format of the monthly totals alone. Only the workbook goes through POI,
+     * the other formats hold the profits only. Rejected lines are written as for a parsed report.
+     */
+    private static void writeOutputs(File csvFile, Map<String, Double> monthlyProfits, TradeRejects rejects,
+                                     AnalyzerOptions options) throws IOException {
+        writeRejectsFile(csvFile, rejects, options);
+        for (OutputFormat format : options.outputFormats) {
+            Path outputFile = options.outputFileFor(csvFile, format);
+            if (format != OutputFormat.XLSX) {
+                ProfitsFileWriter.write(format, AnalyzerOptions.baseName(csvFile), TradeBuckets.Granularity.MONTH,
+                        monthlyProfits, outputFile);
+            } else {
+                try (TradeWorkbook workbook = TradeWorkbook.create(options.streamingWorkbook)) {
+                    writeProfitsSheet(workbook, TradeBuckets.Granularity.MONTH, monthlyProfits, outputFile.toString());
+                    if (rejects.total() > 0) {
+                        TradeReportSheets.writeRejectsSheet(workbook, rejects);
+                    }
+                    workbook.write(outputFile.toString());
+                }
             }
+        }
+    }
 
-            // Add summary row
-            Row summaryRow = sheet.createRow(rowNum);
+    // Without a workbook the rejects go to a text file, the file of an earlier run is removed once they are gone
+    private static void writeRejectsFile(File csvFile, TradeRejects rejects, AnalyzerOptions options)
+            throws IOException {
+        Path rejectsFile = options.rejectsFileFor(csvFile);
+        if (rejects.total() > 0 && !options.outputFormats.contains(OutputFormat.XLSX)) {
+            rejects.write(AnalyzerOptions.baseName(csvFile), rejectsFile);
+        } else {
+            Files.deleteIfExists(rejectsFile);
+        }
+    }
 
-            // Months Count cell
-            Cell monthCountCell = summaryRow.createCell(0);
-            monthCountCell.setCellValue("Months Count: " + monthCount);
-            monthCountCell.setCellStyle(summaryStyle);
+    /**
+     * Parses the export once, with the sequential or the mapped parser, into every enabled aggregation.
+     * With snapshots enabled an unchanged export is loaded from its {@link TradeSnapshot} instead.
+     *
+     * @param trades Trades sheet to write every trade to in file order, null for none
+     */
+    static TradeReport parseReport(File csvFile, AnalyzerOptions options, TradeDrillDownSheet trades)
+            throws IOException {
+        if (options.snapshot) {
+            return parseReportWithSnapshot(csvFile, options, trades);
+        }
+        return parseExport(csvFile, options, trades);
+    }
 
-            // Total Profits cell
-            Cell totalProfitsCell = summaryRow.createCell(1);
-            totalProfitsCell.setCellValue("Total Profits: " + String.format("%.2f", totalProfits));
-            totalProfitsCell.setCellStyle(summaryStyle);
+    private static TradeReport parseExport(File csvFile, AnalyzerOptions options, TradeDrillDownSheet trades)
+            throws IOException {
+        // Chunks are parsed out of order, the Trades sheet needs the sequential parser
+        if (options.mapped && trades == null) {
+            MappedTradeFileParser parser = new MappedTradeFileParser(ForkJoinPool.commonPool(),
+                    Charset.defaultCharset(), options.formats);
+            parser.setRejectBudget(options.rejectBudget);
+            TradeReport report = parser.parse(csvFile.toPath(), () -> new TradeReport(options), TradeReport::merge);
+            report.linesRead = parser.getLinesRead();
+            report.rejects = parser.getRejects();
+            return report;
+        }
 
-            // Auto-size columns
-            sheet.autoSizeColumn(0);
-            sheet.autoSizeColumn(1);
+        TradeReport report = new TradeReport(options);
+        TradeCsvParser parser = new TradeCsvParser(options.formats);
+        parser.setRejectBudget(options.rejectBudget);
+        TradeRowHandler handler = trades == null ? report : row -> {
+            report.onTrade(row);
+            trades.onTrade(row);
+        };
+        try (Reader reader = new FileReader(csvFile)) {
+            parser.parse(reader, handler);
+        }
+        report.linesRead = parser.getLinesRead();
+        report.rejects = parser.getRejects();
+        return report;
+    }
 
-            // Write the workbook to file
-            try (FileOutputStream fileOut = new FileOutputStream(outputFilePath)) {
-                workbook.write(fileOut);
+    private static TradeReport parseReportWithSnapshot(File csvFile, AnalyzerOptions options,
+                                                       TradeDrillDownSheet trades) throws IOException {
+        Path csvPath = csvFile.toPath();
+        Path snapshotPath = options.snapshotFileFor(csvFile);
+        // Taken before parsing, so an export written meanwhile does not match the snapshot next time
+        long size = Files.size(csvPath);
+        long lastModified = Files.getLastModifiedTime(csvPath).toMillis();
+
+        long fingerprint = TradeSnapshot.fingerprint(options.formats, Charset.defaultCharset());
+        TradeSnapshot snapshot = TradeSnapshot.openIfCurrent(snapshotPath, csvPath, fingerprint);
+        if (snapshot != null) {
+            TradeReport report = new TradeReport(options, snapshot.toColumns());
+            report.linesRead = snapshot.linesRead();
+            // The budget may have changed since the snapshot was written
+            report.rejects = new TradeRejects(options.rejectBudget);
+            report.rejects.merge(snapshot.rejects(), 0);
+            report.rejects.checkBudget(report.linesRead);
+            if (trades != null) {
+                trades.addAll(report.columns);
             }
+            return report;
         }
+
+        TradeReport report = parseExport(csvFile, options, trades);
+        TradeSnapshot.write(report.columns, report.linesRead, report.rejects, fingerprint, snapshotPath, size,
+                lastModified);
+        return report;
     }
 
-    private static CellStyle createTitleStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
+    private static FileAnalysisResult analyzeFileIncrementally(File csvFile, List<Path> outputFiles,
+                                                               AnalyzerOptions options, AnalysisCache cache, long start)
+            throws IOException {
+        boolean outputsExist = true;
+        for (Path outputFile : outputFiles) {
+            outputsExist &= Files.exists(outputFile);
+        }
+        IncrementalAnalysis analysis = IncrementalAnalysis.analyze(csvFile.toPath(), cache.get(csvFile.getName()),
+                outputsExist, options.formats, options.portfolio, options.rejectBudget);
 
-        // Set font to Aptos Narrow, size 14 (2 pixels bigger than header), bold
-        font.setFontName("Aptos Narrow");
-        font.setFontHeightInPoints((short) 14);
-        font.setBold(true);
+        long parsed = System.nanoTime();
+        if (analysis.outcome != FileAnalysisResult.Outcome.UNCHANGED) {
+            writeOutputs(csvFile, analysis.monthlyProfits.toMap(), analysis.entry.rejects, options);
+        }
+        // Only remembered once the outputs are written, a failed run is parsed again next time
+        cache.put(csvFile.getName(), analysis.entry);
 
-        // Set background color to #83CCEB (same as header)
-        style.setFillForegroundColor(new XSSFColor(new Color(131, 204, 235), null));
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        long written = System.nanoTime();
+        return FileAnalysisResult.success(csvFile, outputFiles, analysis.linesRead, analysis.bytesRead,
+                analysis.monthlyProfits, analysis.symbolPerformance, analysis.rejects, written - start,
+                parsed - start, written - parsed, analysis.outcome);
+    }
 
-        // Set centered alignment
-        style.setAlignment(HorizontalAlignment.CENTER);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
+    /**
+     * Consolidates the aggregates every account left in its result, no export is parsed again. The workbook goes
+     * to the output directory, or next to the exports of the first input directory.
+     *
+     * @return number of accounts in the portfolio
+     */
+    static int writePortfolio(List<FileAnalysisResult> results, AnalyzerOptions options) throws IOException {
+        // Parallel runs complete in any order, the accounts are listed by directory and file name
+        boolean severalDirectories = options.inputDirectories.size() > 1;
+        List<FileAnalysisResult> accounts = new ArrayList<>(results);
+        accounts.sort(Comparator.comparing((FileAnalysisResult result) -> directoryOf(result.csvFile))
+                .thenComparing(result -> result.csvFile.getName()));
+        Portfolio portfolio = new Portfolio();
+        for (FileAnalysisResult result : accounts) {
+            if (result.isSuccess()) {
+                String account = AnalyzerOptions.baseName(result.csvFile);
+                if (severalDirectories) {
+                    account = directoryOf(result.csvFile).getFileName() + "/" + account;
+                }
+                portfolio.add(account, result.monthlyProfits, result.symbolPerformance);
+            }
+        }
+        if (portfolio.accountCount() == 0) {
+            return 0;
+        }
 
-        style.setFont(font);
+        Path directory = options.outputDirectory != null ? options.outputDirectory : options.inputDirectories.get(0);
+        Files.createDirectories(directory);
+        String outputFile = directory.resolve(Portfolio.FILE_NAME).toAbsolutePath().toString();
+        try (TradeWorkbook workbook = TradeWorkbook.create(options.streamingWorkbook)) {
+            TradeReportSheets.writePortfolioSheet(workbook, portfolio);
+            TradeReportSheets.writeContributionSheet(workbook, portfolio);
+            TradeReportSheets.writeCorrelationSheet(workbook, portfolio);
+            TradeReportSheets.writeSymbolPerformanceSheet(workbook, portfolio.symbolPerformance());
+            workbook.write(outputFile);
+        }
+        System.out.println("  ✓ Portfolio of " + portfolio.accountCount() + " account(s) saved to: " + outputFile);
+        return portfolio.accountCount();
+    }
 
-        return style;
+    static void printResult(FileAnalysisResult result) {
+        if (result.isSuccess() && result.outcome == FileAnalysisResult.Outcome.UNCHANGED) {
+            System.out.println("  ✓ Unchanged since the last run, kept: " + outputFileNames(result));
+        } else if (result.isSuccess() && result.outcome == FileAnalysisResult.Outcome.APPENDED) {
+            System.out.println("  ✓ Parsed " + result.linesRead + " appended line(s)! Results saved to: "
+                    + outputFileNames(result));
+        } else if (result.isSuccess()) {
+            System.out.println("  ✓ Analysis complete! Results saved to: " + outputFileNames(result));
+        } else {
+            System.err.println("  ✗ Error processing file " + result.csvFile.getName() + ": " + result.error.getMessage());
+        }
+        if (result.isSuccess() && result.rejects != null && result.rejects.total() > 0) {
+            System.out.println("  ! Skipped " + result.rejects.total() + " invalid line(s): " + result.rejects.summary());
+        }
     }
 
+    private static String outputFileNames(FileAnalysisResult result) {
+        StringJoiner names = new StringJoiner(", ");
+        for (Path outputFile : result.outputFiles) {
+            names.add(outputFile.toString());
+        }
+        return names.toString();
+    }
 
-    private static CellStyle createHeaderStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
+    /**
+     * @return number of failed files
+     */
+    private static int printSummary(List<FileAnalysisResult> results, long elapsedNanos) {
+        long rows = 0;
+        int failed = 0;
+        for (FileAnalysisResult result : results) {
+            rows += result.linesRead;
+            if (!result.isSuccess()) {
+                failed++;
+            }
+        }
 
-        // Set font to Aptos Narrow, size 12, bold
-        font.setFontName("Aptos Narrow");
-        font.setFontHeightInPoints((short) 12);
-        font.setBold(true);
+        double seconds = Math.max(elapsedNanos, 1) / 1_000_000_000.0;
+        System.out.printf("%nProcessed %d file(s), %d row(s) in %.3f s (%.1f files/s, %.0f rows/s)%n",
+                results.size(), rows, seconds, results.size() / seconds, rows / seconds);
 
-        // Set background color to #83CCEB
-        style.setFillForegroundColor(new XSSFColor(new Color(131, 204, 235), null));
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        if (failed == 0) {
+            System.out.println("\nAll files processed successfully!");
+        } else {
+            System.out.println("\n" + failed + " of " + results.size() + " file(s) failed, see errors above.");
+        }
+        return failed;
+    }
 
-        // Set centered alignment
-        style.setAlignment(HorizontalAlignment.CENTER);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
+    public static Map<String, Double> analyzeTrades(String inputFilePath) throws IOException {
+        MonthlyProfits monthlyProfits = new MonthlyProfits();
 
-        style.setFont(font);
+        TradeCsvParser parser = new TradeCsvParser();
+        try (Reader reader = new FileReader(inputFilePath)) {
+            parser.parse(reader, monthlyProfits);
+        }
+        if (parser.getRejects().total() > 0) {
+            System.err.println("Skipped " + parser.getRejects().total() + " invalid line(s) of " + inputFilePath + ": "
+                    + parser.getRejects().summary());
+        }
 
-        return style;
+        return monthlyProfits.toMap();
     }
 
-    private static CellStyle createPositiveProfitStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setFontName("Aptos Narrow");
-        font.setFontHeightInPoints((short) 11);
+    /**
+     * Same totals as {@link #analyzeTrades(String)} (up to floating point summation order),
+     * but the file is memory mapped and parsed in chunks on the common fork/join pool.
+     */
+    public static Map<String, Double> analyzeTradesMapped(String inputFilePath) throws IOException {
+        MappedTradeFileParser parser = new MappedTradeFileParser(ForkJoinPool.commonPool());
+        return parser.parse(new File(inputFilePath).toPath(), MonthlyProfits::new, MonthlyProfits::merge).toMap();
+    }
 
-        // Green background for positive profits
-        style.setFillForegroundColor(new XSSFColor(new Color(0, 255, 0), null)); // Pure green
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+    /**
+     * Same columns of all trades as {@link #analyzeTrades(String)} parses, for aggregations beyond the monthly totals.
+     */
+    public static TradeColumns analyzeTradesToColumns(String inputFilePath) throws IOException {
+        TradeColumns columns = new TradeColumns();
 
-        style.setFont(font);
-        style.setAlignment(HorizontalAlignment.CENTER);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
-        style.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+        try (Reader reader = new FileReader(inputFilePath)) {
+            new TradeCsvParser().parse(reader, columns);
+        }
 
-        return style;
+        return columns;
     }
 
-    private static CellStyle createNegativeProfitStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setFontName("Aptos Narrow");
-        font.setFontHeightInPoints((short) 11);
+    public static void writeResultsToExcel(Map<String, Double> monthlyProfits, String outputFilePath) throws IOException {
+        writeResultsToExcel(monthlyProfits, outputFilePath, true);
+    }
 
-        // Red background for negative profits
-        style.setFillForegroundColor(new XSSFColor(new Color(255, 0, 0), null)); // Pure red
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+    /**
+     * @param streaming write through a bounded row window (SXSSF) instead of keeping the whole workbook in memory
+     */
+    public static void writeResultsToExcel(Map<String, Double> monthlyProfits, String outputFilePath,
+                                           boolean streaming) throws IOException {
+        writeResultsToExcel(monthlyProfits, outputFilePath, streaming, TradeBuckets.Granularity.MONTH);
+    }
 
-        style.setFont(font);
-        style.setAlignment(HorizontalAlignment.CENTER);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
-        style.setDataFormat(workbook.createDataFormat().getFormat("#,##0.00"));
+    /**
+     * @param profits     bucket label to net profit, for example {@link BucketedProfits#toMap()}
+     * @param granularity names the sheet and its first column
+     */
+    public static void writeResultsToExcel(Map<String, Double> profits, String outputFilePath, boolean streaming,
+                                           TradeBuckets.Granularity granularity) throws IOException {
+        try (TradeWorkbook workbook = TradeWorkbook.create(streaming)) {
+            writeProfitsSheet(workbook, granularity, profits, outputFilePath);
 
-        return style;
+            // Write the workbook to file
+            workbook.write(outputFilePath);
+        }
     }
 
-    private static CellStyle createDefaultCellStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
-        font.setFontName("Aptos Narrow");
-        font.setFontHeightInPoints((short) 11);
-
-        style.setFont(font);
-        style.setAlignment(HorizontalAlignment.CENTER);
-        style.setVerticalAlignment(VerticalAlignment.CENTER);
+    static void writeReport(TradeReport report, String outputFilePath, AnalyzerOptions options) throws IOException {
+        try (TradeWorkbook workbook = TradeWorkbook.create(options.streamingWorkbook)) {
+            writeReport(report, workbook, outputFilePath, options);
+        }
+    }
 
-        return style;
+    /**
+     * Adds the report's sheets to a workbook and saves it. Sheets the workbook already holds, the Trades
+     * sheets written while parsing, are moved behind them.
+     */
+    static void writeReport(TradeReport report, TradeWorkbook workbook, String outputFilePath, AnalyzerOptions options)
+            throws IOException {
+        int writtenBefore = workbook.workbook().getNumberOfSheets();
+        if (report.bucketedProfits != null) {
+            writeProfitsSheet(workbook, report.bucketedProfits.granularity(), report.bucketedProfits.toMap(),
+                    outputFilePath);
+        } else {
+            writeProfitsSheet(workbook, TradeBuckets.Granularity.MONTH, report.monthlyProfits.toMap(), outputFilePath);
+        }
+        if (options.breakdown) {
+            TradeReportSheets.writeBreakdownSheet(workbook, report.columns);
+        }
+        if (options.equityCurve) {
+            TradeReportSheets.writeEquitySheet(workbook, EquityCurve.of(report.columns));
+        }
+        if (options.monteCarloSimulations > 0) {
+            MonteCarloSimulation simulation = MonteCarloSimulation.run(
+                    Arrays.copyOf(report.columns.profits, report.columns.size()),
+                    options.monteCarloSimulations, options.monteCarloSeed, ForkJoinPool.commonPool());
+            TradeReportSheets.writeMonteCarloSheet(workbook, simulation, options.monteCarloSeed);
+        }
+        if (options.rollingWindow != null) {
+            TradeReportSheets.writeRollingSheet(workbook, RollingStatistics.of(report.columns, options.rollingWindow,
+                    TradeReportSheets.ROLLING_POINTS), options.rollingWindow);
+        }
+        if (options.symbolPerformance) {
+            TradeReportSheets.writeSymbolPerformanceSheet(workbook, report.symbolPerformance);
+        }
+        if (report.rejects.total() > 0) {
+            TradeReportSheets.writeRejectsSheet(workbook, report.rejects);
+        }
+        // The profits sheet stays the first one, and the one the workbook opens on
+        for (int i = 0; i < writtenBefore; i++) {
+            workbook.workbook().setSheetOrder(workbook.workbook().getSheetName(0),
+                    workbook.workbook().getNumberOfSheets() - 1);
+        }
+        if (writtenBefore > 0) {
+            workbook.workbook().setActiveSheet(0);
+            for (int i = 0; i < workbook.workbook().getNumberOfSheets(); i++) {
+                workbook.workbook().getSheetAt(i).setSelected(i == 0);
+            }
+        }
+        workbook.write(outputFilePath);
     }
 
-    private static CellStyle createSummaryStyle(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        Font font = workbook.createFont();
+    private static void writeProfitsSheet(TradeWorkbook workbook, TradeBuckets.Granularity granularity,
+                                          Map<String, Double> monthlyProfits, String outputFilePath) {
+        WorkbookStyles styles = workbook.styles();
+        Sheet sheet = workbook.createSheet(granularity.sheetName);
 
-        // Set font to Aptos Narrow, size 11, bold
-        font.setFontName("Aptos Narrow");
-        font.setFontHeightInPoints((short) 11);
-        font.setBold(true);
+        // Create title row with filename (without .xlsx)
+        String fileName = AnalyzerOptions.baseName(new File(outputFilePath));
 
-        // Set background color to #F1A983
-        style.setFillForegroundColor(new XSSFColor(new Color(241, 169, 131), null));
-        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        // The title spans A1:B1, so like autoSizeColumn it does not count towards the column width
+        Row titleRow = sheet.createRow(0);
+        Cell titleCell = titleRow.createCell(0);
+        titleCell.setCellValue(fileName);
+        titleCell.setCellStyle(styles.title);
 
-        style.setFont(font);
-        style.setAlignment(HorizontalAlignment.LEFT);
+        // Merge cells A1:B1 for the title
+        sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, 1));
 
-        return style;
-    }
+        // Create header row
+        Row headerRow = sheet.createRow(1);
+        workbook.setCell(headerRow, 0, granularity.columnName, styles.header);
+        workbook.setCell(headerRow, 1, "Net Profit", styles.header);
 
-    private static LocalDateTime parseDateTime(String dateTimeStr) {
-        if (dateTimeStr == null || dateTimeStr.trim().isEmpty()) {
-            throw new IllegalArgumentException("Empty date time string");
-        }
-        return LocalDateTime.parse(dateTimeStr.trim(), DATE_FORMATTER);
-    }
+        // Write data rows and calculate totals
+        int rowNum = 2;
+        double totalProfits = 0.0;
+        int monthCount = 0;
 
-    private static double parseDouble(String value) {
-        if (value == null || value.trim().isEmpty()) {
-            return 0.0;
+        for (Map.Entry<String, Double> entry : monthlyProfits.entrySet()) {
+            Row row = sheet.createRow(rowNum++);
+            double profit = entry.getValue();
+
+            // Month column, then Net Profit with conditional formatting based on profit value
+            workbook.setCell(row, 0, entry.getKey(), styles.defaultCell);
+            workbook.setCell(row, 1, profit, styles.profit(profit));
+
+            // Update totals
+            totalProfits += profit;
+            monthCount++;
         }
-        return Double.parseDouble(value.trim());
-    }
 
-    private static String getMonthKey(LocalDateTime dateTime) {
-        return String.format("%04d.%02d", dateTime.getYear(), dateTime.getMonthValue());
+        // Add summary row
+        Row summaryRow = sheet.createRow(rowNum);
+        workbook.setCell(summaryRow, 0, granularity.columnName + "s Count: " + monthCount, styles.summary);
+        workbook.setCell(summaryRow, 1, "Total Profits: " + String.format("%.2f", totalProfits), styles.summary);
     }
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Lines of an export the parser could not read: a count per reason and the first few lines as a sample,
+ * with their line numbers.
+ *
+ * The parser only calls in here once a line has failed, so clean exports pay nothing. A line beyond the
+ * sample is just counted, its text is never copied out of the parse buffer.
+ *
+ * An error budget aborts the file once too many lines are rejected: a number of lines, checked on every
+ * reject, or a share of the lines read, checked once the whole file is parsed.
+ */
+final class TradeRejects {
+
+    enum Reason {
+        TOO_FEW_FIELDS("Too few fields"),
+        INVALID_OPEN_TIME("Invalid open time"),
+        INVALID_CLOSE_TIME("Invalid close time");
+
+        final String description;
+
+        Reason(String description) {
+            this.description = description;
+        }
+    }
+
+    /**
+     * A rejected line, cut to {@link #MAX_SAMPLE_LENGTH} characters.
+     */
+    static final class Sample {
+        final long lineNumber;
+        final Reason reason;
+        final String message;
+        final String line;
+
+        Sample(long lineNumber, Reason reason, String message, String line) {
+            this.lineNumber = lineNumber;
+            this.reason = reason;
+            this.message = message;
+            this.line = line;
+        }
+    }
+
+    /**
+     * Most rejected lines a file may have, as a count or as a share of the lines read.
+     */
+    static final class Budget {
+        static final Budget UNLIMITED = new Budget(-1, -1, "unlimited");
+
+        final long maxRejects;
+        final double maxShare;
+        private final String description;
+
+        private Budget(long maxRejects, double maxShare, String description) {
+            this.maxRejects = maxRejects;
+            this.maxShare = maxShare;
+            this.description = description;
+        }
+
+        /**
+         * @param spec a number of lines ({@code 100}), a percentage of the lines read ({@code 0.5%}) or {@code unlimited}
+         */
+        static Budget of(String spec) {
+            String value = spec.trim().toLowerCase(Locale.ROOT);
+            if (value.equals("unlimited")) {
+                return UNLIMITED;
+            }
+            try {
+                if (value.endsWith("%")) {
+                    double percent = Double.parseDouble(value.substring(0, value.length() - 1));
+                    if (percent >= 0 && percent <= 100) {
+                        return new Budget(-1, percent / 100, value);
+                    }
+                } else {
+                    long lines = Long.parseLong(value);
+                    if (lines >= 0) {
+                        return new Budget(lines, -1, value + " lines");
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("Unknown reject budget " + spec
+                    + ", expected a number of lines, a percentage such as 0.5% or unlimited");
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Thrown by the parser when the rejected lines exceed the {@link Budget}, which fails the whole file.
+     */
+    static final class BudgetExceededException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BudgetExceededException(String message) {
+            super(message);
+        }
+    }
+
+    static final int SAMPLE_SIZE = 100;
+    static final int MAX_SAMPLE_LENGTH = 500;
+
+    private final Budget budget;
+    private final long[] counts = new long[Reason.values().length];
+    private final List<Sample> samples = new ArrayList<>();
+    private long total;
+
+    TradeRejects(Budget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @return whether the next rejected line is kept in the sample, so the caller only builds its text if so
+     */
+    boolean isSampling() {
+        return samples.size() < SAMPLE_SIZE;
+    }
+
+    /**
+     * Counts a rejected line.
+     *
+     * @param message why the line was rejected, only read while {@link #isSampling()}
+     * @param line    text of the line, null beyond the sample
+     * @throws BudgetExceededException when this line exceeds the budget's number of lines
+     */
+    void add(Reason reason, long lineNumber, String message, String line) {
+        counts[reason.ordinal()]++;
+        total++;
+        if (line != null && isSampling()) {
+            samples.add(new Sample(lineNumber, reason, message,
+                    line.length() > MAX_SAMPLE_LENGTH ? line.substring(0, MAX_SAMPLE_LENGTH) : line));
+        }
+        if (budget.maxRejects >= 0 && total > budget.maxRejects) {
+            throw exceeded();
+        }
+    }
+
+    /**
+     * Adds the rejects of the following slice of the same export.
+     *
+     * @param lineOffset lines of the export before the slice, the slice's line numbers start at 1
+     */
+    void merge(TradeRejects other, long lineOffset) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        for (Sample sample : other.samples) {
+            if (!isSampling()) {
+                break;
+            }
+            samples.add(new Sample(sample.lineNumber + lineOffset, sample.reason, sample.message, sample.line));
+        }
+    }
+
+    /**
+     * Checks the budget once the whole export is read.
+     *
+     * @throws BudgetExceededException when the rejected lines exceed the number or the share of the lines read
+     */
+    void checkBudget(long linesRead) {
+        if (budget.maxRejects >= 0 && total > budget.maxRejects
+                || budget.maxShare >= 0 && total > budget.maxShare * linesRead) {
+            throw exceeded();
+        }
+    }
+
+    long total() {
+        return total;
+    }
+
+    long count(Reason reason) {
+        return counts[reason.ordinal()];
+    }
+
+    /**
+     * @return the first rejected lines, in file order
+     */
+    List<Sample> samples() {
+        return samples;
+    }
+
+    /**
+     * @return the counts of the reasons that occurred, such as "3 invalid open time, 1 invalid close time"
+     */
+    String summary() {
+        StringJoiner summary = new StringJoiner(", ");
+        for (Reason reason : Reason.values()) {
+            if (counts[reason.ordinal()] > 0) {
+                summary.add(counts[reason.ordinal()] + " " + reason.description.toLowerCase(Locale.ROOT));
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Writes the counts and the sample as plain text, for runs without a workbook.
+     */
+    void write(String account, Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("Rejected lines of " + account + ": " + total + "\n");
+            for (Reason reason : Reason.values()) {
+                if (counts[reason.ordinal()] > 0) {
+                    writer.write(reason.description + ": " + counts[reason.ordinal()] + "\n");
+                }
+            }
+            writer.write("\nLine\tReason\tMessage\tContent\n");
+            for (Sample sample : samples) {
+                writer.write(sample.lineNumber + "\t" + sample.reason.description + "\t" + sample.message + "\t"
+                        + sample.line + "\n");
+            }
+        }
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(total);
+        for (long count : counts) {
+            out.writeLong(count);
+        }
+        out.writeInt(samples.size());
+        for (Sample sample : samples) {
+            out.writeLong(sample.lineNumber);
+            out.writeInt(sample.reason.ordinal());
+            out.writeUTF(sample.message != null ? sample.message : "");
+            out.writeUTF(sample.line);
+        }
+    }
+
+    /**
+     * Reads rejects stored by {@link #writeTo(DataOutput)}, with no budget: they were checked when first parsed.
+     */
+    static TradeRejects readFrom(DataInput in) throws IOException {
+        TradeRejects rejects = new TradeRejects(Budget.UNLIMITED);
+        rejects.total = in.readLong();
+        for (int i = 0; i < rejects.counts.length; i++) {
+            rejects.counts[i] = in.readLong();
+        }
+        int samples = in.readInt();
+        for (int i = 0; i < samples; i++) {
+            rejects.samples.add(new Sample(in.readLong(), Reason.values()[in.readInt()], in.readUTF(), in.readUTF()));
+        }
+        return rejects;
+    }
+
+    private BudgetExceededException exceeded() {
+        return new BudgetExceededException("Aborted after " + total + " rejected line(s) (" + summary()
+                + "), the reject budget is " + budget);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Everything computed from one export in a single parse. The monthly totals are always
+ * collected, the trade-level store only when a report that needs it is enabled.
+ */
+final class TradeReport implements TradeRowHandler {
+
+    final MonthlyProfits monthlyProfits = new MonthlyProfits();
+    // Totals of the first sheet when it is not by calendar month of the export's times
+    final BucketedProfits bucketedProfits;
+    final TradeColumns columns;
+    final SymbolPerformance symbolPerformance;
+
+    long linesRead;
+    // Lines the parser skipped, for a report loaded from a snapshot those it skipped when the snapshot was written
+    TradeRejects rejects;
+
+    TradeReport(AnalyzerOptions options) {
+        this.bucketedProfits = options.customBuckets() ? new BucketedProfits(options.buckets()) : null;
+        this.columns = options.needsTradeColumns() ? new TradeColumns() : null;
+        this.symbolPerformance = options.symbolPerformance || options.portfolio ? new SymbolPerformance() : null;
+    }
+
+    /**
+     * Report of trades loaded from a {@link TradeSnapshot}, nothing is parsed.
+     */
+    TradeReport(AnalyzerOptions options, TradeColumns columns) {
+        this.columns = columns;
+        this.symbolPerformance = options.symbolPerformance || options.portfolio ? SymbolPerformance.of(columns) : null;
+        monthlyProfits.merge(columns.byMonth());
+        this.bucketedProfits = options.customBuckets() ? new BucketedProfits(options.buckets()) : null;
+        if (bucketedProfits != null) {
+            for (int i = 0; i < columns.size(); i++) {
+                bucketedProfits.add(columns.closeTimes[i], columns.profits[i]);
+            }
+        }
+    }
+
+    @Override
+    public void onTrade(TradeRow row) {
+        monthlyProfits.onTrade(row);
+        if (bucketedProfits != null) {
+            bucketedProfits.onTrade(row);
+        }
+        if (columns != null) {
+            columns.onTrade(row);
+        }
+        if (symbolPerformance != null) {
+            symbolPerformance.onTrade(row);
+        }
+    }
+
+    /**
+     * Adds the report of the following chunk of the same export.
+     */
+    void merge(TradeReport other) {
+        monthlyProfits.merge(other.monthlyProfits);
+        if (bucketedProfits != null) {
+            bucketedProfits.merge(other.bucketedProfits);
+        }
+        if (columns != null) {
+            columns.merge(other.columns);
+        }
+        if (symbolPerformance != null) {
+            symbolPerformance.merge(other.symbolPerformance);
+        }
+    }
+}
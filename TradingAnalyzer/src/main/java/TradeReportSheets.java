@@ -0,0 +1,464 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xddf.usermodel.chart.AxisCrosses;
+import org.apache.poi.xddf.usermodel.chart.AxisPosition;
+import org.apache.poi.xddf.usermodel.chart.ChartTypes;
+import org.apache.poi.xddf.usermodel.chart.MarkerStyle;
+import org.apache.poi.xddf.usermodel.chart.XDDFCategoryAxis;
+import org.apache.poi.xddf.usermodel.chart.XDDFCategoryDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFDataSourcesFactory;
+import org.apache.poi.xddf.usermodel.chart.XDDFLineChartData;
+import org.apache.poi.xddf.usermodel.chart.XDDFNumericalDataSource;
+import org.apache.poi.xddf.usermodel.chart.XDDFValueAxis;
+import org.apache.poi.xssf.usermodel.XSSFChart;
+import org.apache.poi.xssf.usermodel.XSSFDrawing;
+
+/**
+ * The optional sheets of an analysis workbook, next to the Monthly Profits sheet.
+ */
+final class TradeReportSheets {
+
+    private static final String[] WEEKDAYS = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+
+    private static final String[] CONTRIBUTION_COLUMNS = {"Account", "Trades", "Net Profit", "Contribution",
+            "Win Rate", "Profit Factor", "Best Month", "Worst Month", "Max Drawdown", "Correlation to Rest"};
+
+    private static final String[] PERFORMANCE_COLUMNS = {"Symbol", "Type", "Trades", "Win Rate", "Gross Profit",
+            "Gross Loss", "Profit Factor", "Average Win", "Average Loss", "Commission", "Swap", "Net Profit"};
+
+    // Points of the equity table and chart, a few thousand rows whatever the number of trades
+    static final int EQUITY_CHART_BUCKETS = 1000;
+
+    // Points of the rolling statistics table and chart
+    static final int ROLLING_POINTS = 2000;
+
+    private static final String[] ROLLING_COLUMNS = {"Close Time", "Trades in Window", "Mean", "Std Dev",
+            "Sharpe Ratio", "Sortino Ratio", "Win Rate", "Profit Factor"};
+
+    private static final String[] REJECT_COLUMNS = {"Line", "Reason", "Message", "Content"};
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy.MM.dd HH:mm:ss");
+
+    private TradeReportSheets() {
+    }
+
+    /**
+     * Net profit by symbol, close weekday and close hour, one table below the other.
+     */
+    static void writeBreakdownSheet(TradeWorkbook workbook, TradeColumns columns) {
+        Sheet sheet = workbook.createSheet("Breakdown");
+        int rowNum = 0;
+
+        TradeColumns.Totals bySymbol = columns.bySymbol();
+        rowNum = writeHeader(workbook, sheet, rowNum, "Symbol");
+        for (int symbol = 0; symbol < bySymbol.counts.length; symbol++) {
+            rowNum = writeTotalsRow(workbook, sheet, rowNum, columns.symbol(symbol), bySymbol, symbol);
+        }
+
+        TradeColumns.Totals byWeekday = columns.byWeekday();
+        rowNum = writeHeader(workbook, sheet, rowNum + 1, "Weekday");
+        for (int day = 0; day < WEEKDAYS.length; day++) {
+            rowNum = writeTotalsRow(workbook, sheet, rowNum, WEEKDAYS[day], byWeekday, day);
+        }
+
+        TradeColumns.Totals byHour = columns.byHour();
+        rowNum = writeHeader(workbook, sheet, rowNum + 1, "Hour");
+        for (int hour = 0; hour < 24; hour++) {
+            rowNum = writeTotalsRow(workbook, sheet, rowNum, String.format("%02d:00", hour), byHour, hour);
+        }
+    }
+
+    /**
+     * Win/loss statistics by symbol over all trade types, then by symbol and type, each table ending in a total.
+     */
+    static void writeSymbolPerformanceSheet(TradeWorkbook workbook, SymbolPerformance performance) {
+        Sheet sheet = workbook.createSheet("Symbol Performance");
+        SymbolPerformance total = performance.total();
+
+        SymbolPerformance bySymbol = performance.bySymbol();
+        int rowNum = writePerformanceHeader(workbook, sheet, 0);
+        for (int group = 0; group < bySymbol.groupCount(); group++) {
+            rowNum = writePerformanceRow(workbook, sheet, rowNum, bySymbol, group, false);
+        }
+        rowNum = writePerformanceRow(workbook, sheet, rowNum, total, 0, true);
+
+        rowNum = writePerformanceHeader(workbook, sheet, rowNum + 1);
+        for (int group : performance.groupsBySymbol()) {
+            rowNum = writePerformanceRow(workbook, sheet, rowNum, performance, group, false);
+        }
+        writePerformanceRow(workbook, sheet, rowNum, total, 0, true);
+    }
+
+    /**
+     * Drawdown statistics, then the downsampled equity curve as a table and a line chart.
+     */
+    static void writeEquitySheet(TradeWorkbook workbook, EquityCurve curve) {
+        WorkbookStyles styles = workbook.styles();
+        Sheet sheet = workbook.createSheet("Equity Curve");
+
+        int rowNum = 0;
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Trades", curve.size(), styles.defaultCell);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Net Profit", curve.netProfit(), styles.profit(curve.netProfit()));
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Max Drawdown", curve.maxDrawdown(), styles.number);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Max Drawdown Peak", formatTime(curve.maxDrawdownPeakTime()));
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Max Drawdown Trough", formatTime(curve.maxDrawdownTroughTime()));
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Longest Drawdown (days)",
+                curve.longestDrawdownSeconds() / (double) TradeTime.SECONDS_PER_DAY, styles.number);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Longest Drawdown Start", formatTime(curve.longestDrawdownStart()));
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Longest Losing Streak", curve.longestLosingStreak(), styles.defaultCell);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Losing Streak Loss", curve.longestLosingStreakLoss(), styles.number);
+        if (Double.isNaN(curve.recoveryFactor())) {
+            rowNum = writeStatistic(workbook, sheet, rowNum, "Recovery Factor", "-");
+        } else {
+            rowNum = writeStatistic(workbook, sheet, rowNum, "Recovery Factor", curve.recoveryFactor(), styles.number);
+        }
+
+        Row header = sheet.createRow(rowNum + 1);
+        workbook.setCell(header, 0, "Close Time", styles.header);
+        workbook.setCell(header, 1, "Equity", styles.header);
+        workbook.setCell(header, 2, "Drawdown", styles.header);
+        int firstPointRow = rowNum + 2;
+
+        int[] points = curve.downsample(EQUITY_CHART_BUCKETS);
+        double[] drawdowns = curve.drawdownsAt(points);
+        String[] labels = new String[points.length];
+        Double[] values = new Double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            labels[i] = formatTime(curve.times[points[i]]);
+            values[i] = curve.equity[points[i]];
+            Row row = sheet.createRow(firstPointRow + i);
+            workbook.setCell(row, 0, labels[i], styles.defaultCell);
+            workbook.setCell(row, 1, values[i], styles.number);
+            workbook.setCell(row, 2, drawdowns[i], styles.number);
+        }
+
+        if (points.length > 0) {
+            writeLineChart(workbook, sheet, "Equity", labels, values, firstPointRow, 1, 4);
+        }
+    }
+
+    /**
+     * Window statistics after evenly spaced trades, as a table and a line chart of the Sharpe ratio.
+     */
+    static void writeRollingSheet(TradeWorkbook workbook, RollingStatistics.Series series,
+                                  RollingStatistics.Window window) {
+        WorkbookStyles styles = workbook.styles();
+        Sheet sheet = workbook.createSheet("Rolling Statistics");
+
+        int rowNum = 0;
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Window", window.toString());
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Points", series.size(), styles.defaultCell);
+
+        Row header = sheet.createRow(rowNum + 1);
+        for (int column = 0; column < ROLLING_COLUMNS.length; column++) {
+            workbook.setCell(header, column, ROLLING_COLUMNS[column], styles.header);
+        }
+        int firstPointRow = rowNum + 2;
+
+        String[] labels = new String[series.size()];
+        Double[] sharpeRatios = new Double[series.size()];
+        for (int i = 0; i < series.size(); i++) {
+            labels[i] = formatTime(series.times[i]);
+            // The chart leaves a gap at undefined ratios
+            sharpeRatios[i] = Double.isNaN(series.sharpeRatios[i]) ? null : series.sharpeRatios[i];
+            Row row = sheet.createRow(firstPointRow + i);
+            workbook.setCell(row, 0, labels[i], styles.defaultCell);
+            workbook.setCell(row, 1, series.counts[i], styles.defaultCell);
+            workbook.setCell(row, 2, series.means[i], styles.profit(series.means[i]));
+            setRatio(workbook, row, 3, series.standardDeviations[i], styles.number);
+            setRatio(workbook, row, 4, series.sharpeRatios[i], styles.number);
+            setRatio(workbook, row, 5, series.sortinoRatios[i], styles.number);
+            workbook.setCell(row, 6, series.winRates[i], styles.percent);
+            setRatio(workbook, row, 7, series.profitFactors[i], styles.number);
+        }
+
+        if (series.size() > 0) {
+            writeLineChart(workbook, sheet, "Rolling Sharpe Ratio", labels, sharpeRatios, firstPointRow, 4,
+                    ROLLING_COLUMNS.length + 1);
+        }
+    }
+
+    /**
+     * Lines of the export that were skipped: the count per reason, then the first ones with their line numbers.
+     */
+    static void writeRejectsSheet(TradeWorkbook workbook, TradeRejects rejects) {
+        WorkbookStyles styles = workbook.styles();
+        Sheet sheet = workbook.createSheet("Rejects");
+
+        int rowNum = 0;
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Rejected Lines", rejects.total(), styles.defaultCell);
+        for (TradeRejects.Reason reason : TradeRejects.Reason.values()) {
+            if (rejects.count(reason) > 0) {
+                rowNum = writeStatistic(workbook, sheet, rowNum, reason.description, rejects.count(reason),
+                        styles.defaultCell);
+            }
+        }
+
+        Row header = sheet.createRow(rowNum + 1);
+        for (int column = 0; column < REJECT_COLUMNS.length; column++) {
+            workbook.setCell(header, column, REJECT_COLUMNS[column], styles.header);
+        }
+        rowNum += 2;
+        for (TradeRejects.Sample sample : rejects.samples()) {
+            Row row = sheet.createRow(rowNum++);
+            workbook.setCell(row, 0, sample.lineNumber, styles.defaultCell);
+            workbook.setCell(row, 1, sample.reason.description, styles.defaultCell);
+            workbook.setCell(row, 2, sample.message, styles.defaultCell);
+            workbook.setCell(row, 3, sample.line, styles.defaultCell);
+        }
+    }
+
+    /**
+     * Month-end equity of all accounts combined, as statistics, a table and a line chart.
+     */
+    static void writePortfolioSheet(TradeWorkbook workbook, Portfolio portfolio) {
+        WorkbookStyles styles = workbook.styles();
+        Sheet sheet = workbook.createSheet("Portfolio");
+
+        int trades = 0;
+        for (int account = 0; account < portfolio.accountCount(); account++) {
+            trades += portfolio.trades(account);
+        }
+        int rowNum = 0;
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Accounts", portfolio.accountCount(), styles.defaultCell);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Trades", trades, styles.defaultCell);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Months", portfolio.monthCount(), styles.defaultCell);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Net Profit", portfolio.netProfit(),
+                styles.profit(portfolio.netProfit()));
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Max Drawdown (Month End)", portfolio.maxDrawdown(), styles.number);
+
+        Row header = sheet.createRow(rowNum + 1);
+        workbook.setCell(header, 0, "Month", styles.header);
+        workbook.setCell(header, 1, "Equity", styles.header);
+        workbook.setCell(header, 2, "Net Profit", styles.header);
+        workbook.setCell(header, 3, "Drawdown", styles.header);
+        int firstMonthRow = rowNum + 2;
+
+        double[] profits = portfolio.combinedProfits();
+        double[] equity = portfolio.combinedEquity();
+        String[] labels = new String[profits.length];
+        Double[] values = new Double[profits.length];
+        double peak = 0;
+        for (int month = 0; month < profits.length; month++) {
+            labels[month] = MonthlyProfits.monthKey(portfolio.firstMonth() + month);
+            values[month] = equity[month];
+            peak = Math.max(peak, equity[month]);
+            Row row = sheet.createRow(firstMonthRow + month);
+            workbook.setCell(row, 0, labels[month], styles.defaultCell);
+            workbook.setCell(row, 1, equity[month], styles.number);
+            workbook.setCell(row, 2, profits[month], styles.profit(profits[month]));
+            workbook.setCell(row, 3, equity[month] - peak, styles.number);
+        }
+
+        if (profits.length > 0) {
+            writeLineChart(workbook, sheet, "Equity", labels, values, firstMonthRow, 1, 4);
+        }
+    }
+
+    /**
+     * One row per account: its share of the portfolio profit, its own statistics and how it moves with the rest.
+     */
+    static void writeContributionSheet(TradeWorkbook workbook, Portfolio portfolio) {
+        WorkbookStyles styles = workbook.styles();
+        Sheet sheet = workbook.createSheet("Contribution");
+
+        Row header = sheet.createRow(0);
+        for (int column = 0; column < CONTRIBUTION_COLUMNS.length; column++) {
+            workbook.setCell(header, column, CONTRIBUTION_COLUMNS[column], styles.header);
+        }
+
+        int rowNum = 1;
+        for (int account = 0; account < portfolio.accountCount(); account++) {
+            Row row = sheet.createRow(rowNum++);
+            double netProfit = portfolio.netProfit(account);
+            SymbolPerformance totals = portfolio.totals(account);
+            workbook.setCell(row, 0, portfolio.account(account), styles.defaultCell);
+            workbook.setCell(row, 1, portfolio.trades(account), styles.defaultCell);
+            workbook.setCell(row, 2, netProfit, styles.profit(netProfit));
+            setRatio(workbook, row, 3, portfolio.contribution(account), styles.percent);
+            setRatio(workbook, row, 4, totals == null ? Double.NaN : totals.winRate(0), styles.percent);
+            setRatio(workbook, row, 5, totals == null ? Double.NaN : totals.profitFactor(0), styles.number);
+            setRatio(workbook, row, 6, portfolio.bestMonth(account), styles.number);
+            setRatio(workbook, row, 7, portfolio.worstMonth(account), styles.number);
+            workbook.setCell(row, 8, portfolio.maxDrawdown(account), styles.number);
+            setRatio(workbook, row, 9, portfolio.correlationToRest(account), styles.number);
+        }
+    }
+
+    /**
+     * Correlation of the monthly net profits of every pair of accounts, see {@link Portfolio#correlation}.
+     */
+    static void writeCorrelationSheet(TradeWorkbook workbook, Portfolio portfolio) {
+        WorkbookStyles styles = workbook.styles();
+        Sheet sheet = workbook.createSheet("Correlation");
+        int accounts = portfolio.accountCount();
+
+        Row header = sheet.createRow(0);
+        workbook.setCell(header, 0, "Account", styles.header);
+        for (int account = 0; account < accounts; account++) {
+            workbook.setCell(header, account + 1, portfolio.account(account), styles.header);
+        }
+
+        // Symmetric, each pair is computed once
+        double[][] matrix = new double[accounts][accounts];
+        for (int first = 0; first < accounts; first++) {
+            matrix[first][first] = portfolio.trades(first) == 0 ? Double.NaN : 1;
+            for (int second = first + 1; second < accounts; second++) {
+                matrix[first][second] = portfolio.correlation(first, second);
+                matrix[second][first] = matrix[first][second];
+            }
+        }
+
+        for (int first = 0; first < accounts; first++) {
+            Row row = sheet.createRow(first + 1);
+            workbook.setCell(row, 0, portfolio.account(first), styles.summary);
+            for (int second = 0; second < accounts; second++) {
+                setRatio(workbook, row, second + 1, matrix[first][second], styles.number);
+            }
+        }
+    }
+
+    // Undefined ratios are shown as -
+    private static void setRatio(TradeWorkbook workbook, Row row, int column, double value, CellStyle style) {
+        if (Double.isNaN(value)) {
+            workbook.setCell(row, column, "-", workbook.styles().defaultCell);
+        } else {
+            workbook.setCell(row, column, value, style);
+        }
+    }
+
+    // The chart caches the values as well, the streamed rows cannot be read back
+    private static void writeLineChart(TradeWorkbook workbook, Sheet sheet, String title, String[] labels,
+                                       Double[] values, int firstPointRow, int valueColumn, int chartColumn) {
+        XSSFDrawing drawing = workbook.drawing(sheet);
+        XSSFChart chart = drawing.createChart(drawing.createAnchor(0, 0, 0, 0, chartColumn, 0, chartColumn + 14, 28));
+        chart.setTitleText(title);
+        chart.setTitleOverlay(false);
+
+        XDDFCategoryAxis timeAxis = chart.createCategoryAxis(AxisPosition.BOTTOM);
+        XDDFValueAxis equityAxis = chart.createValueAxis(AxisPosition.LEFT);
+        equityAxis.setCrosses(AxisCrosses.AUTO_ZERO);
+
+        int lastPointRow = firstPointRow + values.length - 1;
+        XDDFCategoryDataSource times = XDDFDataSourcesFactory.fromArray(labels,
+                new CellRangeAddress(firstPointRow, lastPointRow, 0, 0).formatAsString(sheet.getSheetName(), true));
+        XDDFNumericalDataSource<Double> equity = XDDFDataSourcesFactory.fromArray(values,
+                new CellRangeAddress(firstPointRow, lastPointRow, valueColumn, valueColumn)
+                        .formatAsString(sheet.getSheetName(), true));
+
+        XDDFLineChartData data = (XDDFLineChartData) chart.createData(ChartTypes.LINE, timeAxis, equityAxis);
+        XDDFLineChartData.Series series = (XDDFLineChartData.Series) data.addSeries(times, equity);
+        series.setTitle(title, null);
+        series.setSmooth(false);
+        series.setMarkerStyle(MarkerStyle.NONE);
+        chart.plot(data);
+    }
+
+    /**
+     * Percentiles of the final equity and max drawdown over all simulated sequences.
+     */
+    static void writeMonteCarloSheet(TradeWorkbook workbook, MonteCarloSimulation simulation, long seed) {
+        WorkbookStyles styles = workbook.styles();
+        Sheet sheet = workbook.createSheet("Monte Carlo");
+
+        int rowNum = 0;
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Simulations", simulation.simulations(), styles.defaultCell);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Trades per Simulation", simulation.tradesPerSimulation(),
+                styles.defaultCell);
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Seed", String.valueOf(seed));
+        rowNum = writeStatistic(workbook, sheet, rowNum, "Loss Probability", simulation.lossProbability(), styles.percent);
+
+        Row header = sheet.createRow(rowNum + 1);
+        workbook.setCell(header, 0, "Percentile", styles.header);
+        workbook.setCell(header, 1, "Final Equity", styles.header);
+        workbook.setCell(header, 2, "Max Drawdown", styles.header);
+        rowNum += 2;
+        for (double percentile : MonteCarloSimulation.PERCENTILES) {
+            Row row = sheet.createRow(rowNum++);
+            double finalEquity = simulation.finalEquityPercentile(percentile);
+            workbook.setCell(row, 0, "P" + (int) percentile, styles.defaultCell);
+            workbook.setCell(row, 1, finalEquity, styles.profit(finalEquity));
+            workbook.setCell(row, 2, simulation.maxDrawdownPercentile(percentile), styles.number);
+        }
+    }
+
+    private static int writeStatistic(TradeWorkbook workbook, Sheet sheet, int rowNum, String label, double value,
+                                      CellStyle style) {
+        Row row = sheet.createRow(rowNum);
+        workbook.setCell(row, 0, label, workbook.styles().summary);
+        workbook.setCell(row, 1, value, style);
+        return rowNum + 1;
+    }
+
+    private static int writeStatistic(TradeWorkbook workbook, Sheet sheet, int rowNum, String label, String value) {
+        Row row = sheet.createRow(rowNum);
+        workbook.setCell(row, 0, label, workbook.styles().summary);
+        workbook.setCell(row, 1, value, workbook.styles().defaultCell);
+        return rowNum + 1;
+    }
+
+    private static String formatTime(long localEpochSecond) {
+        return LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC).format(TIME_FORMAT);
+    }
+
+    private static int writePerformanceHeader(TradeWorkbook workbook, Sheet sheet, int rowNum) {
+        WorkbookStyles styles = workbook.styles();
+        Row header = sheet.createRow(rowNum);
+        for (int column = 0; column < PERFORMANCE_COLUMNS.length; column++) {
+            workbook.setCell(header, column, PERFORMANCE_COLUMNS[column], styles.header);
+        }
+        return rowNum + 1;
+    }
+
+    private static int writePerformanceRow(TradeWorkbook workbook, Sheet sheet, int rowNum,
+                                           SymbolPerformance performance, int group, boolean total) {
+        WorkbookStyles styles = workbook.styles();
+        Row row = sheet.createRow(rowNum);
+        workbook.setCell(row, 0, total ? "Total" : performance.symbol(group), total ? styles.summary : styles.defaultCell);
+        workbook.setCell(row, 1, performance.type(group), total ? styles.summary : styles.defaultCell);
+        workbook.setCell(row, 2, performance.trades(group), styles.defaultCell);
+        workbook.setCell(row, 3, performance.winRate(group), styles.percent);
+        workbook.setCell(row, 4, performance.grossProfit(group), styles.number);
+        workbook.setCell(row, 5, performance.grossLoss(group), styles.number);
+        // No losing trade, the profit factor is undefined
+        if (Double.isNaN(performance.profitFactor(group))) {
+            workbook.setCell(row, 6, "-", styles.defaultCell);
+        } else {
+            workbook.setCell(row, 6, performance.profitFactor(group), styles.number);
+        }
+        workbook.setCell(row, 7, performance.averageWin(group), styles.number);
+        workbook.setCell(row, 8, performance.averageLoss(group), styles.number);
+        workbook.setCell(row, 9, performance.commission(group), styles.number);
+        workbook.setCell(row, 10, performance.swap(group), styles.number);
+        workbook.setCell(row, 11, performance.netProfit(group), styles.profit(performance.netProfit(group)));
+        return rowNum + 1;
+    }
+
+    private static int writeHeader(TradeWorkbook workbook, Sheet sheet, int rowNum, String group) {
+        WorkbookStyles styles = workbook.styles();
+        Row header = sheet.createRow(rowNum);
+        workbook.setCell(header, 0, group, styles.header);
+        workbook.setCell(header, 1, "Trades", styles.header);
+        workbook.setCell(header, 2, "Net Profit", styles.header);
+        return rowNum + 1;
+    }
+
+    private static int writeTotalsRow(TradeWorkbook workbook, Sheet sheet, int rowNum, String label,
+                                      TradeColumns.Totals totals, int group) {
+        if (totals.counts[group] == 0) {
+            return rowNum;
+        }
+        WorkbookStyles styles = workbook.styles();
+        Row row = sheet.createRow(rowNum);
+        workbook.setCell(row, 0, label, styles.defaultCell);
+        workbook.setCell(row, 1, totals.counts[group], styles.defaultCell);
+        workbook.setCell(row, 2, totals.profits[group], styles.profit(totals.profits[group]));
+        return rowNum + 1;
+    }
+}
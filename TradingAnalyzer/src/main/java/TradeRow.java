@@ -0,0 +1,132 @@
+/**
+ * Mutable view over the trade currently decoded by {@link TradeCsvParser}.
+ * Times are local date-times of the export expressed as seconds since 1970-01-01T00:00:00.
+ *
+ * Besides the values every report needs, the other columns are only decoded when asked for,
+ * straight from the parser's line buffer.
+ */
+public final class TradeRow {
+
+    static final int TYPE_FIELD = 1;
+    static final int VOLUME_FIELD = 2;
+    static final int SYMBOL_FIELD = 3;
+    static final int OPEN_PRICE_FIELD = 4;
+
+    private final TradeCsvParser parser;
+    // Replaced by the parser when a format needs more tracked fields
+    int[] fieldEnds;
+
+    long openTime;
+    long closeTime;
+    int closeYear;
+    int closeMonth;
+    double profit;
+
+    // Current line, the fields are located through the parser's field offsets
+    char[] line;
+    int lineStart;
+    int fieldCount;
+    // Column of each value, -1 if the export has none. Without a detected format close price,
+    // commission and swap follow the close time, wherever the parser found it
+    int typeField = TYPE_FIELD;
+    int volumeField = VOLUME_FIELD;
+    int symbolField = SYMBOL_FIELD;
+    int openPriceField = OPEN_PRICE_FIELD;
+    int closePriceField;
+    int commissionField;
+    int swapField;
+
+    TradeRow(TradeCsvParser parser, int[] fieldEnds) {
+        this.parser = parser;
+        this.fieldEnds = fieldEnds;
+    }
+
+    public long openTime() {
+        return openTime;
+    }
+
+    public long closeTime() {
+        return closeTime;
+    }
+
+    public int closeYear() {
+        return closeYear;
+    }
+
+    public int closeMonth() {
+        return closeMonth;
+    }
+
+    /**
+     * @return year * 12 + (month - 1) of the close time
+     */
+    public int closeMonthIndex() {
+        return closeYear * 12 + closeMonth - 1;
+    }
+
+    public double profit() {
+        return profit;
+    }
+
+    /**
+     * @return traded lots
+     */
+    public double volume() {
+        return number(volumeField);
+    }
+
+    public double openPrice() {
+        return number(openPriceField);
+    }
+
+    public double closePrice() {
+        return number(closePriceField);
+    }
+
+    public double commission() {
+        return number(commissionField);
+    }
+
+    public double swap() {
+        return number(swapField);
+    }
+
+    /**
+     * @return dictionary id of the trimmed Symbol column
+     */
+    public int symbol(StringDictionary symbols) {
+        return text(symbolField, symbols);
+    }
+
+    /**
+     * @return dictionary id of the trimmed Type column (Buy, Sell, ...)
+     */
+    public int type(StringDictionary types) {
+        return text(typeField, types);
+    }
+
+    /**
+     * @return value of the column, NaN if it is missing, empty or not a number
+     */
+    double number(int field) {
+        if (field < 0 || field >= fieldCount || !parser.parseNumber(line, fieldFrom(field), fieldTo(field))) {
+            return Double.NaN;
+        }
+        return parser.lastNumber();
+    }
+
+    int text(int field, StringDictionary dictionary) {
+        if (field < 0 || field >= fieldCount) {
+            return dictionary.idOf(line, 0, 0);
+        }
+        return dictionary.idOf(line, fieldFrom(field), fieldTo(field));
+    }
+
+    private int fieldFrom(int field) {
+        return lineStart + (field == 0 ? 0 : fieldEnds[field - 1] + 1);
+    }
+
+    private int fieldTo(int field) {
+        return lineStart + fieldEnds[field];
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Receives every closed trade decoded by {@link TradeCsvParser}.
+ * The row instance is reused between calls, copy what you need before returning.
+ */
+public interface TradeRowHandler {
+
+    void onTrade(TradeRow row);
+}
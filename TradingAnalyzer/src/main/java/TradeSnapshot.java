@@ -0,0 +1,397 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary copy of a parsed export, written once after the first parse and memory mapped afterwards.
+ *
+ * Layout, all little-endian:
+ * <pre>
+ *   header      magic, version, record count, source size, source last modified, CRC32C, records offset,
+ *               parse fingerprint, lines read
+ *   dictionaries  symbol and type values, count then length-prefixed UTF-8
+ *   rejects     length-prefixed counts and sample of the rejected lines, see {@link TradeRejects#writeTo}
+ *   records     {@value #RECORD_SIZE} bytes each, 8-byte aligned:
+ *               open time, close time, profit, volume, open price, close price, commission, swap,
+ *               symbol id, type id
+ * </pre>
+ * The checksum covers everything after the header. A snapshot is only used while the export and the parse
+ * configuration ({@link #fingerprint}) are those it was written from. Records are read in place through the accessors,
+ * so aggregations over a snapshot never create an object per trade.
+ */
+public final class TradeSnapshot {
+
+    static final String FILE_EXTENSION = ".snapshot";
+
+    private static final int MAGIC = 0x53445254;
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 72;
+
+    private static final int OPEN_TIME = 0;
+    private static final int CLOSE_TIME = 8;
+    private static final int PROFIT = 16;
+    private static final int VOLUME = 24;
+    private static final int OPEN_PRICE = 32;
+    private static final int CLOSE_PRICE = 40;
+    private static final int COMMISSION = 48;
+    private static final int SWAP = 56;
+    private static final int SYMBOL = 64;
+    private static final int TYPE = 68;
+
+    private static final int WRITE_BUFFER_SIZE = 1024 * RECORD_SIZE;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int recordsOffset;
+    private final long sourceSize;
+    private final long sourceLastModified;
+    private final long fingerprint;
+    private final long linesRead;
+    private final String[] symbols;
+    private final String[] types;
+    private final TradeRejects rejects;
+
+    private TradeSnapshot(ByteBuffer buffer, int size, int recordsOffset, long sourceSize, long sourceLastModified,
+                          long fingerprint, long linesRead, String[] symbols, String[] types, TradeRejects rejects) {
+        this.buffer = buffer;
+        this.size = size;
+        this.recordsOffset = recordsOffset;
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+        this.fingerprint = fingerprint;
+        this.linesRead = linesRead;
+        this.symbols = symbols;
+        this.types = types;
+        this.rejects = rejects;
+    }
+
+    /**
+     * @param formats formats the export's header is matched against
+     * @param charset charset the export is decoded with
+     * @return hash of the parse configuration, a snapshot written under another one may hold other columns
+     */
+    static long fingerprint(List<TradeFormat> formats, Charset charset) {
+        CRC32C hash = new CRC32C();
+        hash.update(charset.name().getBytes(StandardCharsets.UTF_8));
+        for (TradeFormat format : formats) {
+            hash.update(0);
+            hash.update(format.signature().getBytes(StandardCharsets.UTF_8));
+        }
+        return hash.getValue();
+    }
+
+    /**
+     * Writes the columns to a temporary file first, so an interrupted write never leaves a truncated snapshot.
+     *
+     * @param linesRead          lines of the export, header and rejected lines included
+     * @param rejects            lines the parser rejected
+     * @param fingerprint        {@link #fingerprint} of the parse the columns come from
+     * @param sourceSize         size of the export the columns were parsed from
+     * @param sourceLastModified its last modified time in milliseconds
+     */
+    static void write(TradeColumns columns, long linesRead, TradeRejects rejects, long fingerprint, Path path,
+                      long sourceSize, long sourceLastModified) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32C checksum = new CRC32C();
+
+            ByteBuffer dictionaries = encodeDictionaries(columns);
+            ByteBuffer rejectSummary = encodeRejects(rejects);
+            int recordsOffset = align(HEADER_SIZE + dictionaries.remaining() + rejectSummary.remaining());
+            long fileSize = recordsOffset + (long) columns.size * RECORD_SIZE;
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Too many trades for one snapshot: " + columns.size);
+            }
+
+            channel.position(HEADER_SIZE);
+            ByteBuffer padded = ByteBuffer.allocate(recordsOffset - HEADER_SIZE);
+            padded.put(dictionaries).put(rejectSummary).clear();
+            writeFully(channel, padded, checksum);
+
+            ByteBuffer records = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < columns.size; i++) {
+                if (records.remaining() < RECORD_SIZE) {
+                    records.flip();
+                    writeFully(channel, records, checksum);
+                    records.clear();
+                }
+                records.putLong(columns.openTimes[i])
+                        .putLong(columns.closeTimes[i])
+                        .putDouble(columns.profits[i])
+                        .putDouble(columns.volumes[i])
+                        .putDouble(columns.openPrices[i])
+                        .putDouble(columns.closePrices[i])
+                        .putDouble(columns.commissions[i])
+                        .putDouble(columns.swaps[i])
+                        .putInt(columns.symbolIds[i])
+                        .putInt(columns.typeIds[i]);
+            }
+            records.flip();
+            writeFully(channel, records, checksum);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(columns.size)
+                    .putLong(sourceSize)
+                    .putLong(sourceLastModified)
+                    .putLong(checksum.getValue())
+                    .putLong(recordsOffset)
+                    .putLong(fingerprint)
+                    .putLong(linesRead)
+                    .flip();
+            channel.position(0);
+            writeFully(channel, header, null);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot and verifies its header and checksum.
+     *
+     * @throws IOException if the file is not a snapshot of this version or is corrupted
+     */
+    public static TradeSnapshot open(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a trade snapshot: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Unknown trade snapshot format: " + path);
+        }
+        long count = buffer.getLong(8);
+        long recordsOffset = buffer.getLong(40);
+        if (count < 0 || recordsOffset < HEADER_SIZE || recordsOffset + count * RECORD_SIZE != buffer.capacity()) {
+            throw new IOException("Truncated trade snapshot: " + path);
+        }
+
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate().position(HEADER_SIZE));
+        if (checksum.getValue() != buffer.getLong(32)) {
+            throw new IOException("Checksum mismatch in trade snapshot: " + path);
+        }
+
+        ByteBuffer dictionaries = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(HEADER_SIZE);
+        String[] symbols = decodeDictionary(dictionaries);
+        String[] types = decodeDictionary(dictionaries);
+        TradeRejects rejects = decodeRejects(dictionaries);
+        return new TradeSnapshot(buffer, (int) count, (int) recordsOffset, buffer.getLong(16), buffer.getLong(24),
+                buffer.getLong(48), buffer.getLong(56), symbols, types, rejects);
+    }
+
+    /**
+     * @param fingerprint {@link #fingerprint} of the current parse configuration
+     * @return the snapshot of an export if one exists and was written from its current content with the same
+     *         parse configuration, otherwise null
+     */
+    static TradeSnapshot openIfCurrent(Path path, Path csvFile, long fingerprint) throws IOException {
+        TradeSnapshot snapshot;
+        try {
+            snapshot = open(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable trade snapshot " + path + ": " + e.getMessage());
+            return null;
+        }
+        if (snapshot.sourceSize != Files.size(csvFile)
+                || snapshot.sourceLastModified != Files.getLastModifiedTime(csvFile).toMillis()
+                || snapshot.fingerprint != fingerprint) {
+            return null;
+        }
+        return snapshot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return lines of the export, header and rejected lines included
+     */
+    public long linesRead() {
+        return linesRead;
+    }
+
+    /**
+     * @return lines the parser rejected, without a budget: it is checked by the caller
+     */
+    TradeRejects rejects() {
+        return rejects;
+    }
+
+    public long openTime(int index) {
+        return buffer.getLong(record(index) + OPEN_TIME);
+    }
+
+    public long closeTime(int index) {
+        return buffer.getLong(record(index) + CLOSE_TIME);
+    }
+
+    public double profit(int index) {
+        return buffer.getDouble(record(index) + PROFIT);
+    }
+
+    public double volume(int index) {
+        return buffer.getDouble(record(index) + VOLUME);
+    }
+
+    public double openPrice(int index) {
+        return buffer.getDouble(record(index) + OPEN_PRICE);
+    }
+
+    public double closePrice(int index) {
+        return buffer.getDouble(record(index) + CLOSE_PRICE);
+    }
+
+    public double commission(int index) {
+        return buffer.getDouble(record(index) + COMMISSION);
+    }
+
+    public double swap(int index) {
+        return buffer.getDouble(record(index) + SWAP);
+    }
+
+    public int symbolId(int index) {
+        return buffer.getInt(record(index) + SYMBOL);
+    }
+
+    public int typeId(int index) {
+        return buffer.getInt(record(index) + TYPE);
+    }
+
+    public String symbol(int id) {
+        return symbols[id];
+    }
+
+    public String type(int id) {
+        return types[id];
+    }
+
+    /**
+     * Group by close month straight from the mapping, same totals as {@link TradeColumns#byMonth()}.
+     */
+    public MonthlyProfits byMonth() {
+        MonthlyProfits monthlyProfits = new MonthlyProfits();
+        for (int i = 0; i < size; i++) {
+            monthlyProfits.add(TradeTime.monthIndex(closeTime(i)), profit(i));
+        }
+        return monthlyProfits;
+    }
+
+    /**
+     * Copies the records into a {@link TradeColumns} for the reports that work on the in-memory store.
+     */
+    public TradeColumns toColumns() {
+        TradeColumns columns = new TradeColumns();
+        for (String symbol : symbols) {
+            columns.symbols.idOf(symbol);
+        }
+        for (String type : types) {
+            columns.types.idOf(type);
+        }
+        for (int i = 0; i < size; i++) {
+            int record = record(i);
+            columns.add(buffer.getLong(record + OPEN_TIME), buffer.getLong(record + CLOSE_TIME),
+                    buffer.getDouble(record + PROFIT), buffer.getDouble(record + VOLUME),
+                    buffer.getDouble(record + OPEN_PRICE), buffer.getDouble(record + CLOSE_PRICE),
+                    buffer.getDouble(record + COMMISSION), buffer.getDouble(record + SWAP),
+                    buffer.getInt(record + SYMBOL), buffer.getInt(record + TYPE));
+        }
+        return columns;
+    }
+
+    private int record(int index) {
+        return recordsOffset + index * RECORD_SIZE;
+    }
+
+    private static ByteBuffer encodeDictionaries(TradeColumns columns) {
+        byte[][] symbols = encode(columns.symbols);
+        byte[][] types = encode(columns.types);
+        int length = 8;
+        for (byte[] value : symbols) {
+            length += 4 + value.length;
+        }
+        for (byte[] value : types) {
+            length += 4 + value.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[][] dictionary : new byte[][][]{symbols, types}) {
+            buffer.putInt(dictionary.length);
+            for (byte[] value : dictionary) {
+                buffer.putInt(value.length).put(value);
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static byte[][] encode(StringDictionary dictionary) {
+        byte[][] values = new byte[dictionary.size()][];
+        for (int id = 0; id < values.length; id++) {
+            values[id] = dictionary.valueOf(id).getBytes(StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static ByteBuffer encodeRejects(TradeRejects rejects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        rejects.writeTo(new DataOutputStream(bytes));
+        return ByteBuffer.allocate(4 + bytes.size()).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(bytes.size())
+                .put(bytes.toByteArray())
+                .flip();
+    }
+
+    private static TradeRejects decodeRejects(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return TradeRejects.readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private static String[] decodeDictionary(ByteBuffer buffer) {
+        String[] values = new String[buffer.getInt()];
+        for (int id = 0; id < values.length; id++) {
+            byte[] value = new byte[buffer.getInt()];
+            buffer.get(value);
+            values[id] = new String(value, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, CRC32C checksum) throws IOException {
+        if (checksum != null) {
+            checksum.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFDrawing;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Analysis workbook with shared styles and column widths computed from the written values.
+ *
+ * The streaming backend keeps only {@link #ROW_WINDOW} rows per sheet in memory, older rows
+ * are flushed to a temporary file, so sheets can be of any length. Widths are therefore tracked
+ * while cells are written instead of measured afterwards with autoSizeColumn.
+ */
+public final class TradeWorkbook implements Closeable {
+
+    static final int ROW_WINDOW = 100;
+
+    // Excel caps a column at 255 characters
+    private static final int MAX_COLUMN_CHARS = 255;
+    private static final int COLUMN_PADDING_CHARS = 3;
+
+    // Excel date serial of 1970-01-01
+    private static final double EXCEL_EPOCH_DAY = 25569;
+
+    private final Workbook workbook;
+    private final WorkbookStyles styles;
+    private final Map<Sheet, int[]> columnChars = new IdentityHashMap<>();
+
+    private TradeWorkbook(Workbook workbook) {
+        this.workbook = workbook;
+        this.styles = new WorkbookStyles(workbook);
+    }
+
+    public static TradeWorkbook create(boolean streaming) {
+        return new TradeWorkbook(streaming ? new SXSSFWorkbook(ROW_WINDOW) : new XSSFWorkbook());
+    }
+
+    public WorkbookStyles styles() {
+        return styles;
+    }
+
+    public Workbook workbook() {
+        return workbook;
+    }
+
+    public Sheet createSheet(String name) {
+        Sheet sheet = workbook.createSheet(name);
+        columnChars.put(sheet, new int[8]);
+        return sheet;
+    }
+
+    /**
+     * Drawing layer for charts. SXSSF has no chart support of its own, but drawings live on the
+     * underlying XSSF sheet, which stays in memory while the rows stream out.
+     */
+    public XSSFDrawing drawing(Sheet sheet) {
+        XSSFSheet xssfSheet = workbook instanceof SXSSFWorkbook
+                ? ((SXSSFWorkbook) workbook).getXSSFWorkbook().getSheet(sheet.getSheetName())
+                : (XSSFSheet) sheet;
+        return xssfSheet.createDrawingPatriarch();
+    }
+
+    public Cell setCell(Row row, int column, String value, CellStyle style) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+        track(row.getSheet(), column, value.length());
+        return cell;
+    }
+
+    /**
+     * Writes a number, sized as if displayed with the #,##0.00 format.
+     */
+    public Cell setCell(Row row, int column, double value, CellStyle style) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+        track(row.getSheet(), column, formattedLength(value));
+        return cell;
+    }
+
+    /**
+     * Writes a local epoch second (see {@link TradeRow}) as an Excel date serial, displayed with the
+     * {@link WorkbookStyles#dateTime} style.
+     */
+    public Cell setDateTimeCell(Row row, int column, long localEpochSecond) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(EXCEL_EPOCH_DAY + localEpochSecond / (double) TradeTime.SECONDS_PER_DAY);
+        cell.setCellStyle(styles.dateTime);
+        track(row.getSheet(), column, WorkbookStyles.DATE_TIME_FORMAT.length());
+        return cell;
+    }
+
+    /**
+     * Sizes every tracked column and saves the workbook.
+     */
+    public void write(String outputFilePath) throws IOException {
+        for (Map.Entry<Sheet, int[]> entry : columnChars.entrySet()) {
+            int[] chars = entry.getValue();
+            for (int column = 0; column < chars.length; column++) {
+                if (chars[column] > 0) {
+                    int width = Math.min(MAX_COLUMN_CHARS, chars[column] + COLUMN_PADDING_CHARS);
+                    entry.getKey().setColumnWidth(column, width * 256);
+                }
+            }
+        }
+
+        try (FileOutputStream fileOut = new FileOutputStream(outputFilePath)) {
+            workbook.write(fileOut);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (workbook instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) workbook).dispose();
+        }
+        workbook.close();
+    }
+
+    private void track(Sheet sheet, int column, int length) {
+        int[] chars = columnChars.get(sheet);
+        if (column >= chars.length) {
+            int[] grown = new int[Math.max(column + 1, chars.length * 2)];
+            System.arraycopy(chars, 0, grown, 0, chars.length);
+            chars = grown;
+            columnChars.put(sheet, chars);
+        }
+        if (length > chars[column]) {
+            chars[column] = length;
+        }
+    }
+
+    // Digits, thousands separators, sign and two decimals, without formatting the value
+    static int formattedLength(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return 3;
+        }
+        double magnitude = Math.abs(value);
+        int integerDigits = magnitude < 10 ? 1 : (int) Math.log10(magnitude) + 1;
+        int separators = (integerDigits - 1) / 3;
+        return (value < 0 ? 1 : 0) + integerDigits + separators + 3;
+    }
+}
@@ -0,0 +1,91 @@
+import java.awt.Color;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+
+/**
+ * The cell styles of an analysis workbook, created once per workbook and shared by every sheet.
+ */
+public final class WorkbookStyles {
+
+    private static final String FONT_NAME = "Aptos Narrow";
+    private static final String PROFIT_FORMAT = "#,##0.00";
+    private static final String PERCENT_FORMAT = "0.00%";
+    // Same layout as the MetaTrader exports
+    static final String DATE_TIME_FORMAT = "yyyy.mm.dd hh:mm:ss";
+
+    final CellStyle title;
+    final CellStyle header;
+    final CellStyle positiveProfit;
+    final CellStyle negativeProfit;
+    final CellStyle defaultCell;
+    final CellStyle number;
+    final CellStyle percent;
+    final CellStyle dateTime;
+    final CellStyle summary;
+
+    WorkbookStyles(Workbook workbook) {
+        short profitFormat = workbook.createDataFormat().getFormat(PROFIT_FORMAT);
+        Font regularFont = createFont(workbook, 11, false);
+
+        // Title is 2 points bigger than the header, both on #83CCEB
+        title = createFilledStyle(workbook, createFont(workbook, 14, true), new Color(131, 204, 235));
+        header = createFilledStyle(workbook, createFont(workbook, 12, true), new Color(131, 204, 235));
+
+        // Pure green / pure red background for positive / negative profits
+        positiveProfit = createFilledStyle(workbook, regularFont, new Color(0, 255, 0));
+        positiveProfit.setDataFormat(profitFormat);
+        negativeProfit = createFilledStyle(workbook, regularFont, new Color(255, 0, 0));
+        negativeProfit.setDataFormat(profitFormat);
+
+        defaultCell = workbook.createCellStyle();
+        defaultCell.setFont(regularFont);
+        defaultCell.setAlignment(HorizontalAlignment.CENTER);
+        defaultCell.setVerticalAlignment(VerticalAlignment.CENTER);
+
+        // Unfilled, for ratios and costs that are not profits
+        number = workbook.createCellStyle();
+        number.cloneStyleFrom(defaultCell);
+        number.setDataFormat(profitFormat);
+        percent = workbook.createCellStyle();
+        percent.cloneStyleFrom(defaultCell);
+        percent.setDataFormat(workbook.createDataFormat().getFormat(PERCENT_FORMAT));
+        dateTime = workbook.createCellStyle();
+        dateTime.cloneStyleFrom(defaultCell);
+        dateTime.setDataFormat(workbook.createDataFormat().getFormat(DATE_TIME_FORMAT));
+
+        // Bold on #F1A983, left aligned
+        summary = workbook.createCellStyle();
+        summary.setFont(createFont(workbook, 11, true));
+        summary.setFillForegroundColor(new XSSFColor(new Color(241, 169, 131), null));
+        summary.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        summary.setAlignment(HorizontalAlignment.LEFT);
+    }
+
+    CellStyle profit(double value) {
+        return value < 0 ? negativeProfit : positiveProfit;
+    }
+
+    private static CellStyle createFilledStyle(Workbook workbook, Font font, Color color) {
+        CellStyle style = workbook.createCellStyle();
+        style.setFont(font);
+        style.setFillForegroundColor(new XSSFColor(color, null));
+        style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        style.setAlignment(HorizontalAlignment.CENTER);
+        style.setVerticalAlignment(VerticalAlignment.CENTER);
+        return style;
+    }
+
+    private static Font createFont(Workbook workbook, int heightInPoints, boolean bold) {
+        Font font = workbook.createFont();
+        font.setFontName(FONT_NAME);
+        font.setFontHeightInPoints((short) heightInPoints);
+        font.setBold(bold);
+        return font;
+    }
+}
@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Incremental runs must give the totals of a full parse, also after a run that failed halfway.
+ */
+class IncrementalAnalysisTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedLinesGiveTheTotalsOfAFullParse() throws IOException {
+        Path export = directory.resolve("account.csv");
+        Random random = new Random(5);
+        writeTrades(export, random, 500, true);
+        AnalyzerOptions options = options();
+        AnalysisCache cache = AnalysisCache.load(directory);
+
+        assertEquals(FileAnalysisResult.Outcome.ANALYZED, analyze(export, options, cache).outcome);
+        assertEquals(FileAnalysisResult.Outcome.UNCHANGED, analyze(export, options, cache).outcome);
+
+        writeTrades(export, random, 200, false);
+        FileAnalysisResult appended = analyze(export, options, cache);
+        assertEquals(FileAnalysisResult.Outcome.APPENDED, appended.outcome);
+        assertEquals(200, appended.linesRead);
+        assertEquals(fullParse(export), appended.monthlyProfits.toMap());
+    }
+
+    @Test
+    void failedAppendIsParsedAgainWithoutCountingItTwice() throws IOException {
+        Path export = directory.resolve("account.csv");
+        Random random = new Random(9);
+        writeTrades(export, random, 500, true);
+        AnalyzerOptions options = options();
+        AnalysisCache cache = AnalysisCache.load(directory);
+        assertTrue(analyze(export, options, cache).isSuccess());
+
+        // A directory where the results go makes writing them fail after the tail is parsed
+        writeTrades(export, random, 200, false);
+        Path output = options.outputFileFor(export.toFile(), OutputFormat.CSV);
+        Files.delete(output);
+        Files.createDirectory(output);
+        assertFalse(analyze(export, options, cache).isSuccess());
+
+        // Saved anyway at the end of a batch, as analyzeDirectories does
+        cache.save();
+        Files.delete(output);
+
+        FileAnalysisResult retried = analyze(export, options, AnalysisCache.load(directory));
+        assertTrue(retried.isSuccess());
+        assertEquals(FileAnalysisResult.Outcome.APPENDED, retried.outcome);
+        assertEquals(fullParse(export), retried.monthlyProfits.toMap());
+    }
+
+    @Test
+    void cachedRejectsAreKeptWhenLinesAreAppended() throws IOException {
+        Path export = directory.resolve("account.csv");
+        Random random = new Random(13);
+        writeTrades(export, random, 10, true);
+        appendLine(export, "broken;line");
+        AnalyzerOptions options = options();
+        AnalysisCache cache = AnalysisCache.load(directory);
+        assertEquals(1, analyze(export, options, cache).rejects.total());
+
+        writeTrades(export, random, 10, false);
+        appendLine(export, "still;broken");
+        FileAnalysisResult appended = analyze(export, options, cache);
+        assertEquals(1, appended.rejects.total());
+
+        // The rejects file lists both, numbered in the whole file
+        List<String> lines = Files.readAllLines(options.rejectsFileFor(export.toFile()));
+        assertEquals("Rejected lines of account: 2", lines.get(0));
+        assertTrue(lines.get(lines.size() - 2).startsWith("12\t"), lines.toString());
+        assertTrue(lines.get(lines.size() - 1).startsWith("23\t"), lines.toString());
+    }
+
+    private static AnalyzerOptions options() {
+        AnalyzerOptions options = new AnalyzerOptions();
+        options.incremental = true;
+        options.outputFormats = EnumSet.of(OutputFormat.CSV);
+        return options;
+    }
+
+    private static FileAnalysisResult analyze(Path export, AnalyzerOptions options, AnalysisCache cache) {
+        return TradeProfitAnalyzer.analyzeFile(export.toFile(), options, cache);
+    }
+
+    private static Map<String, Double> fullParse(Path export) throws IOException {
+        return TradeProfitAnalyzer.analyzeTrades(export.toString());
+    }
+
+    private static void appendLine(Path export, String line) throws IOException {
+        Files.writeString(export, line + "\n", Charset.defaultCharset(), StandardOpenOption.APPEND);
+    }
+
+    private static void writeTrades(Path export, Random random, int trades, boolean header) throws IOException {
+        // Same charset as the analyzer reads with
+        try (Writer writer = Files.newBufferedWriter(export, Charset.defaultCharset(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (header) {
+                writer.write("Time;Type;Volume;Symbol;Price;Volume;Time;Price;Commission;Swap;Profit\n");
+            }
+            for (int i = 0; i < trades; i++) {
+                writer.write(MappedTradeFileParserTest.tradeLine(random) + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Chunks parsed in parallel and merged must give what the sequential parser gives for the whole file.
+ */
+class MappedTradeFileParserTest {
+
+    private static final String HEADER = "Time;Type;Volume;Symbol;Price;Volume;Time;Price;Commission;Swap;Profit";
+    private static final String[] SYMBOLS = {"EURUSD", "BTCUSD", "USDJPY", "XAUUSD"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchesTheSequentialParse() throws IOException {
+        // Several times the smallest chunk, so lines and the rejects are spread over many chunks
+        Path export = writeExport(directory.resolve("export.csv"), 120_000);
+
+        TradeCsvParser sequential = new TradeCsvParser();
+        TradeColumns expected = new TradeColumns();
+        try (Reader reader = Files.newBufferedReader(export, StandardCharsets.UTF_8)) {
+            sequential.parse(reader, expected);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MappedTradeFileParser mapped = new MappedTradeFileParser(pool, StandardCharsets.UTF_8);
+            TradeColumns actual = mapped.parse(export, TradeColumns::new, TradeColumns::merge);
+
+            assertEquals(sequential.getLinesRead(), mapped.getLinesRead());
+            // Chunks are merged in file order, so every trade lands in the same row
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.openTimes[i], actual.openTimes[i], "open time of trade " + i);
+                assertEquals(expected.closeTimes[i], actual.closeTimes[i], "close time of trade " + i);
+                assertEquals(expected.profits[i], actual.profits[i], "profit of trade " + i);
+                assertEquals(expected.symbol(expected.symbolIds[i]), actual.symbol(actual.symbolIds[i]),
+                        "symbol of trade " + i);
+            }
+            assertTotals(expected.byMonth().toMap(), actual.byMonth().toMap());
+
+            // Chunk rejects are renumbered in file order
+            TradeRejects expectedRejects = sequential.getRejects();
+            TradeRejects actualRejects = mapped.getRejects();
+            assertTrue(expectedRejects.total() > 0);
+            assertEquals(expectedRejects.total(), actualRejects.total());
+            assertEquals(expectedRejects.summary(), actualRejects.summary());
+            assertEquals(expectedRejects.samples().size(), actualRejects.samples().size());
+            for (int i = 0; i < expectedRejects.samples().size(); i++) {
+                TradeRejects.Sample expectedSample = expectedRejects.samples().get(i);
+                TradeRejects.Sample actualSample = actualRejects.samples().get(i);
+                assertEquals(expectedSample.lineNumber, actualSample.lineNumber);
+                assertEquals(expectedSample.reason, actualSample.reason);
+                assertEquals(expectedSample.line, actualSample.line);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void checksTheRejectBudgetOverTheWholeFile() throws IOException {
+        Path export = writeExport(directory.resolve("export.csv"), 60_000);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MappedTradeFileParser mapped = new MappedTradeFileParser(pool, StandardCharsets.UTF_8);
+            // Every chunk alone stays below the budget, the file does not
+            mapped.setRejectBudget(TradeRejects.Budget.of("20"));
+            TradeRejects.BudgetExceededException exceeded = assertThrows(TradeRejects.BudgetExceededException.class,
+                    () -> mapped.parse(export, MonthlyProfits::new, MonthlyProfits::merge));
+            assertTrue(exceeded.getMessage().contains("the reject budget is 20 lines"), exceeded.getMessage());
+
+            mapped.setRejectBudget(TradeRejects.Budget.of("1%"));
+            mapped.parse(export, MonthlyProfits::new, MonthlyProfits::merge);
+            assertEquals(60, mapped.getRejects().total());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Sums of the chunks are merged, so they may differ from the sequential ones in the last bits
+    private static void assertTotals(Map<String, Double> expected, Map<String, Double> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<String, Double> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), actual.get(entry.getKey()), 1e-6, entry.getKey());
+        }
+    }
+
+    /**
+     * Writes an export of the given number of trades, with an invalid line after every thousandth one.
+     */
+    static Path writeExport(Path file, int trades) throws IOException {
+        Random random = new Random(3);
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER + "\n");
+            for (int i = 0; i < trades; i++) {
+                writer.write(tradeLine(random) + "\n");
+                if (i % 1000 == 999) {
+                    writer.write((i / 1000 % 2 == 0 ? "broken;line"
+                            : "2024.01.02 10:00:00;Buy;0.1;EURUSD;1.1;0.1;not a date;1.2;;;5.5") + "\n");
+                }
+            }
+        }
+        return file;
+    }
+
+    static String tradeLine(Random random) {
+        int month = 1 + random.nextInt(12);
+        int day = 1 + random.nextInt(28);
+        String time = String.format("2024.%02d.%02d %02d:%02d:%02d", month, day, random.nextInt(24),
+                random.nextInt(60), random.nextInt(60));
+        double profit = Math.round((random.nextDouble() - 0.45) * 20_000) / 100.0;
+        return time + ";" + (random.nextBoolean() ? "Buy" : "Sell") + ";0.1;" + SYMBOLS[random.nextInt(SYMBOLS.length)]
+                + ";1.1;0.1;" + time + ";1.2;;;" + profit;
+    }
+}
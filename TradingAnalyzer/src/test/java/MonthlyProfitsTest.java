@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The month-indexed arrays must give the same totals as the TreeMap of month keys they replaced.
+ */
+class MonthlyProfitsTest {
+
+    @Test
+    void matchesMapMergeInAnyMonthOrder() {
+        Random random = new Random(7);
+        MonthlyProfits monthlyProfits = new MonthlyProfits();
+        Map<String, Double> expected = new TreeMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            // Months before the first one and far beyond the initial capacity grow the arrays both ways
+            int monthIndex = 2000 * 12 + random.nextInt(40 * 12) - 20 * 12;
+            double profit = Math.round((random.nextDouble() - 0.45) * 100_000) / 100.0;
+            monthlyProfits.add(monthIndex, profit);
+            expected.merge(MonthlyProfits.monthKey(monthIndex), profit, Double::sum);
+        }
+
+        assertEquals(expected, monthlyProfits.toMap());
+        assertEquals(10_000, monthlyProfits.getTradeCount());
+    }
+
+    @Test
+    void keepsMonthsWithoutTradesOut() {
+        MonthlyProfits monthlyProfits = new MonthlyProfits();
+        monthlyProfits.add(2024 * 12 + 11, -5.5);
+        monthlyProfits.add(2024 * 12 + 1, 10.25);
+        // A month that nets to zero still had trades
+        monthlyProfits.add(2024 * 12 + 5, 3);
+        monthlyProfits.add(2024 * 12 + 5, -3);
+
+        assertEquals(Map.of("2024.02", 10.25, "2024.06", 0.0, "2024.12", -5.5), monthlyProfits.toMap());
+        assertEquals(2024 * 12 + 1, monthlyProfits.firstTradeMonth());
+        assertEquals(2024 * 12 + 11, monthlyProfits.lastTradeMonth());
+        assertArrayEquals(new double[]{0, 10.25, 0, 0, 0, 0}, monthlyProfits.totals(2024 * 12, 2024 * 12 + 5));
+        assertEquals(-1, new MonthlyProfits().firstTradeMonth());
+        assertEquals(Map.of(), new MonthlyProfits().toMap());
+    }
+
+    @Test
+    void mergesPartialAccumulators() {
+        MonthlyProfits first = new MonthlyProfits();
+        first.add(2023 * 12, 1.5);
+        first.add(2023 * 12 + 6, 2);
+        MonthlyProfits second = new MonthlyProfits();
+        second.add(2022 * 12 + 3, 4);
+        second.add(2023 * 12 + 6, -0.5);
+
+        first.merge(second);
+        first.merge(new MonthlyProfits());
+
+        assertEquals(Map.of("2022.04", 4.0, "2023.01", 1.5, "2023.07", 1.5), first.toMap());
+        assertEquals(4, first.getTradeCount());
+    }
+
+    @Test
+    void roundTripsThroughTheCacheFormat() throws IOException {
+        MonthlyProfits monthlyProfits = new MonthlyProfits();
+        monthlyProfits.add(2025 * 12 + 10, 61.86);
+        monthlyProfits.add(2026 * 12, 24.64);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        monthlyProfits.writeTo(new DataOutputStream(bytes));
+        MonthlyProfits read = MonthlyProfits.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(monthlyProfits.toMap(), read.toMap());
+        assertEquals(monthlyProfits.getTradeCount(), read.getTradeCount());
+    }
+}
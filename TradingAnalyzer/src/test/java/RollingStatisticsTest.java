@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The running sums must give the statistics of the window recomputed from scratch after every trade.
+ */
+class RollingStatisticsTest {
+
+    private static final double TOLERANCE = 1e-9;
+
+    @Test
+    void tradeWindowMatchesRecomputation() {
+        assertMatchesRecomputation(RollingStatistics.Window.ofTrades(20), 5_000, 60);
+    }
+
+    @Test
+    void timeWindowMatchesRecomputation() {
+        // Irregular gaps make the window hold anything from one trade to a few hundred
+        assertMatchesRecomputation(RollingStatistics.Window.ofSeconds(12 * 3600, "12h"), 5_000, 600);
+    }
+
+    @Test
+    void equalProfitsHaveNoDeviation() {
+        RollingStatistics statistics = new RollingStatistics(RollingStatistics.Window.ofTrades(10));
+        for (int i = 0; i < 1_000; i++) {
+            statistics.add(i, 0.1);
+        }
+
+        assertEquals(10, statistics.count());
+        assertEquals(0.1, statistics.mean(), TOLERANCE);
+        assertEquals(0, statistics.standardDeviation());
+        assertTrue(Double.isNaN(statistics.sharpeRatio()));
+        assertTrue(Double.isNaN(statistics.sortinoRatio()));
+        assertTrue(Double.isNaN(statistics.profitFactor()));
+        assertEquals(1, statistics.winRate());
+    }
+
+    @Test
+    void parsesWindows() {
+        assertEquals(100, RollingStatistics.Window.of("100").trades);
+        assertEquals(12 * 3600, RollingStatistics.Window.of("12h").seconds);
+        assertEquals(30 * TradeTime.SECONDS_PER_DAY, RollingStatistics.Window.of(" 30D ").seconds);
+        assertEquals(4 * 7 * TradeTime.SECONDS_PER_DAY, RollingStatistics.Window.of("4w").seconds);
+        assertThrows(IllegalArgumentException.class, () -> RollingStatistics.Window.of("1"));
+        assertThrows(IllegalArgumentException.class, () -> RollingStatistics.Window.of("0d"));
+        assertThrows(IllegalArgumentException.class, () -> RollingStatistics.Window.of("week"));
+    }
+
+    private static void assertMatchesRecomputation(RollingStatistics.Window window, int trades, int maxGapSeconds) {
+        Random random = new Random(11);
+        long[] closeTimes = new long[trades];
+        double[] profits = new double[trades];
+        RollingStatistics statistics = new RollingStatistics(window);
+        long time = 1_700_000_000L;
+        for (int i = 0; i < trades; i++) {
+            time += random.nextInt(maxGapSeconds * 2);
+            closeTimes[i] = time;
+            // Large and small profits, a few break-even trades
+            profits[i] = random.nextInt(20) == 0 ? 0 : random.nextGaussian() * (random.nextBoolean() ? 1000 : 1);
+            statistics.add(closeTimes[i], profits[i]);
+
+            int first = i;
+            while (first > 0 && (window.trades > 0 ? i - first + 1 < window.trades
+                    : closeTimes[i] - closeTimes[first - 1] < window.seconds)) {
+                first--;
+            }
+            assertStatistics(profits, first, i + 1, statistics, "after trade " + i);
+        }
+    }
+
+    private static void assertStatistics(double[] profits, int from, int to, RollingStatistics statistics,
+                                         String message) {
+        int count = to - from;
+        double sum = 0;
+        double grossProfit = 0;
+        double grossLoss = 0;
+        double downsideSquares = 0;
+        int wins = 0;
+        int losses = 0;
+        for (int i = from; i < to; i++) {
+            sum += profits[i];
+            if (profits[i] > 0) {
+                wins++;
+                grossProfit += profits[i];
+            } else if (profits[i] < 0) {
+                losses++;
+                grossLoss -= profits[i];
+                downsideSquares += profits[i] * profits[i];
+            }
+        }
+        double mean = sum / count;
+        double squaredDeviations = 0;
+        for (int i = from; i < to; i++) {
+            squaredDeviations += (profits[i] - mean) * (profits[i] - mean);
+        }
+        double deviation = count < 2 ? Double.NaN : Math.sqrt(squaredDeviations / (count - 1));
+
+        assertEquals(count, statistics.count(), message);
+        assertClose(mean, statistics.mean(), message + ", mean");
+        assertClose(deviation, statistics.standardDeviation(), message + ", standard deviation");
+        assertClose(deviation > 0 ? mean / deviation : Double.NaN, statistics.sharpeRatio(), message + ", Sharpe");
+        assertClose(losses == 0 ? Double.NaN : mean / Math.sqrt(downsideSquares / count), statistics.sortinoRatio(),
+                message + ", Sortino");
+        assertEquals((double) wins / count, statistics.winRate(), message + ", win rate");
+        assertClose(losses == 0 ? Double.NaN : grossProfit / grossLoss, statistics.profitFactor(),
+                message + ", profit factor");
+    }
+
+    // Relative to the size of the values, the running sums round differently than a fresh pass
+    private static void assertClose(double expected, double actual, String message) {
+        if (Double.isNaN(expected)) {
+            assertTrue(Double.isNaN(actual), message + ": expected NaN but was " + actual);
+        } else {
+            assertEquals(expected, actual, TOLERANCE * Math.max(1, Math.abs(expected)), message);
+        }
+    }
+}
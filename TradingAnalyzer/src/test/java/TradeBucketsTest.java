@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.IsoFields;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bucket indices are computed with integer arithmetic and cached zone offsets, they must match what
+ * java.time gives for the same local times, around daylight saving transitions in particular.
+ */
+class TradeBucketsTest {
+
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    private static final ZoneId LONDON = ZoneId.of("Europe/London");
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+    private static final ZoneId SYDNEY = ZoneId.of("Australia/Sydney");
+
+    @Test
+    void convertsAcrossDaylightSavingTransitions() {
+        // UTC-8 has its midnight just after New York's spring transition, an hour off lands on the wrong day
+        ZoneId[][] zones = {{UTC, LONDON}, {LONDON, UTC}, {NEW_YORK, LONDON}, {UTC, SYDNEY}, {SYDNEY, NEW_YORK},
+                {NEW_YORK, ZoneId.of("Etc/GMT+8")}};
+        LocalDateTime[] transitions = {
+                LocalDateTime.of(2024, 3, 10, 0, 0), LocalDateTime.of(2024, 3, 31, 0, 0),
+                LocalDateTime.of(2024, 4, 7, 0, 0), LocalDateTime.of(2024, 10, 6, 0, 0),
+                LocalDateTime.of(2024, 10, 27, 0, 0), LocalDateTime.of(2024, 11, 3, 0, 0)
+        };
+        for (TradeBuckets.Granularity granularity : new TradeBuckets.Granularity[]{TradeBuckets.Granularity.DAY,
+                TradeBuckets.Granularity.WEEK, TradeBuckets.Granularity.MONTH, TradeBuckets.Granularity.QUARTER}) {
+            for (ZoneId[] pair : zones) {
+                TradeBuckets buckets = new TradeBuckets(granularity, pair[0], pair[1]);
+                for (LocalDateTime transition : transitions) {
+                    // Every quarter hour of two days on both sides, in order so the offset cache is crossed
+                    for (LocalDateTime local = transition.minusDays(2); local.isBefore(transition.plusDays(2));
+                         local = local.plusMinutes(15)) {
+                        assertBucket(buckets, local, pair[0], pair[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void countsMonthsInTheTargetZone() {
+        TradeBuckets buckets = new TradeBuckets(TradeBuckets.Granularity.MONTH, UTC, LONDON);
+        // Still March in UTC, already April in British Summer Time
+        assertEquals("2024.04", buckets.label(buckets.index(epochSecond(LocalDateTime.of(2024, 3, 31, 23, 30)))));
+        // Back on Greenwich Mean Time, the same clock time stays in October
+        assertEquals("2024.10", buckets.label(buckets.index(epochSecond(LocalDateTime.of(2024, 10, 31, 23, 30)))));
+    }
+
+    @Test
+    void sessionsFollowTheirMarketsDaylightSavingTime() {
+        TradeBuckets buckets = new TradeBuckets(TradeBuckets.Granularity.SESSION, UTC, UTC);
+        // New York opens at 12:00 UTC in summer and at 13:00 UTC in winter, London at 07:00 and 08:00 UTC
+        assertEquals("New York", session(buckets, LocalDateTime.of(2024, 7, 10, 12, 30)));
+        assertEquals("London", session(buckets, LocalDateTime.of(2024, 1, 10, 12, 30)));
+        assertEquals("London", session(buckets, LocalDateTime.of(2024, 7, 10, 7, 30)));
+        assertEquals("Asia", session(buckets, LocalDateTime.of(2024, 1, 10, 7, 30)));
+        // Between the US and the European switch New York opens an hour earlier, London does not
+        assertEquals("New York", session(buckets, LocalDateTime.of(2024, 3, 20, 12, 30)));
+        assertEquals("Asia", session(buckets, LocalDateTime.of(2024, 3, 20, 7, 30)));
+        // New York runs past midnight UTC until Tokyo opens
+        assertEquals("New York", session(buckets, LocalDateTime.of(2024, 1, 9, 23, 30)));
+        assertEquals("Asia", session(buckets, LocalDateTime.of(2024, 1, 10, 0, 0)));
+    }
+
+    private static void assertBucket(TradeBuckets buckets, LocalDateTime local, ZoneId source, ZoneId target) {
+        String actual = buckets.label(buckets.index(epochSecond(local)));
+        String message = local + " " + source + " to " + target + " by " + buckets.granularity();
+        ZoneOffsetTransition transition = source.getRules().getTransition(local);
+        if (transition == null) {
+            assertEquals(expectedLabel(buckets.granularity(), local.atZone(source).toInstant(), target), actual, message);
+        } else {
+            // A local time in a gap or an overlap may be read with the offset before or after the transition
+            Set<String> expected = new HashSet<>();
+            expected.add(expectedLabel(buckets.granularity(), local.toInstant(transition.getOffsetBefore()), target));
+            expected.add(expectedLabel(buckets.granularity(), local.toInstant(transition.getOffsetAfter()), target));
+            assertTrue(expected.contains(actual), message + ": " + actual + " not in " + expected);
+        }
+    }
+
+    private static String expectedLabel(TradeBuckets.Granularity granularity, Instant instant, ZoneId target) {
+        LocalDate date = instant.atZone(target).toLocalDate();
+        switch (granularity) {
+            case DAY:
+                return String.format("%04d.%02d.%02d", date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+            case WEEK:
+                return String.format("%04d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR),
+                        date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case QUARTER:
+                return String.format("%04d Q%d", date.getYear(), date.get(IsoFields.QUARTER_OF_YEAR));
+            default:
+                return String.format("%04d.%02d", date.getYear(), date.getMonthValue());
+        }
+    }
+
+    private static String session(TradeBuckets buckets, LocalDateTime utc) {
+        return buckets.label(buckets.index(epochSecond(utc)));
+    }
+
+    // Local times are read by the parser as if they were UTC
+    private static long epochSecond(LocalDateTime local) {
+        return local.toEpochSecond(ZoneOffset.UTC);
+    }
+}
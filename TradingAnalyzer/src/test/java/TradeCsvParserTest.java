@@ -0,0 +1,186 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The fast number and date paths must accept and decode exactly what {@link Double#parseDouble} and
+ * {@link LocalDateTime#parse} do.
+ */
+class TradeCsvParserTest {
+
+    private static final String HEADER = "Time;Type;Volume;Symbol;Price;Volume;Time;Price;Commission;Swap;Profit\n";
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy.MM.dd HH:mm:ss");
+
+    @Test
+    void parsesNumbersLikeParseDouble() {
+        String[] values = {
+                "0", "-0", "-0.0", "+0.0", "0.000", "1", "-1", "+1.5", "42.25", "  42.25 ", "0.1", "0.30000000000000004",
+                "123456789012345", "1234567890123456", "12345678901234567890", "3.14159265358979323846",
+                "0.000000000000000000001", "999999999999999.9", "-9007199254740993", "5.", ".5", "-.5",
+                "1e5", "1E-5", "-2.5e+3", "1.7976931348623157E308", "4.9E-324", "1e400", "1d", "2.5f", "0x1p3",
+                "NaN", "-Infinity"
+        };
+        for (String value : values) {
+            assertSameAsParseDouble(value);
+        }
+    }
+
+    @Test
+    void rejectsMalformedNumbers() {
+        String[] values = {"", "   ", "-", "+", ".", "-.", "1.2.3", "1,5", "1_000", "abc", "12a", "--1", "1e", "e5"};
+        for (String value : values) {
+            assertSameAsParseDouble(value);
+        }
+    }
+
+    @Test
+    void parsesRandomDecimalsLikeParseDouble() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            StringBuilder value = new StringBuilder();
+            if (random.nextBoolean()) {
+                value.append('-');
+            }
+            int digits = 1 + random.nextInt(20);
+            int dot = random.nextInt(digits + 1);
+            for (int digit = 0; digit < digits; digit++) {
+                if (digit == dot) {
+                    value.append('.');
+                }
+                value.append((char) ('0' + random.nextInt(10)));
+            }
+            assertSameAsParseDouble(value.toString());
+        }
+    }
+
+    @Test
+    void parsesDatesLikeLocalDateTime() throws IOException {
+        String[] values = {
+                "2024.01.05 10:00:00", " 2024.01.05 10:00:00 ", "2024.02.29 23:59:59", "2000.02.29 00:00:00",
+                "1970.01.01 00:00:00", "1969.12.31 23:59:59", "0001.01.01 00:00:00", "9999.12.31 23:59:59",
+                // The SMART resolver moves an overflowing day to the end of the month
+                "2023.02.29 12:00:00", "1900.02.29 12:00:00", "2024.04.31 08:30:00"
+        };
+        for (String value : values) {
+            Long expected = referenceTime(value);
+            assertNotNull(expected, value);
+            assertEquals(expected, closeTime(value), value);
+        }
+    }
+
+    @Test
+    void rejectsMalformedDates() throws IOException {
+        String[] values = {
+                "2024.13.01 00:00:00", "2024.00.10 00:00:00", "2024.01.32 00:00:00", "2024.01.01 24:00:00",
+                "2024.01.01 23:60:00", "2024.1.01 00:00:00", "2024-01-01 00:00:00", "2024.01.01T00:00:00",
+                "2024.01.01", "24.01.01 00:00:00", "20a4.01.01 00:00:00", "2024.01.01 00:00:00.5"
+        };
+        for (String value : values) {
+            assertEquals(referenceTime(value), closeTime(value), value);
+        }
+    }
+
+    @Test
+    void monthlyTotalsMatchTheBaseline() throws IOException {
+        // Totals of the original String.split / LocalDateTime.parse / Double.parseDouble analyzer
+        Map<String, Double> expected = new LinkedHashMap<>();
+        expected.put("2025.11", 61.86000000000001);
+        expected.put("2025.12", 142.33);
+        expected.put("2026.01", 24.64);
+
+        MonthlyProfits monthlyProfits = new MonthlyProfits();
+        TradeCsvParser parser = new TradeCsvParser();
+        try (Reader reader = new InputStreamReader(
+                TradeCsvParserTest.class.getResourceAsStream("/RoadToGreen2.csv"), StandardCharsets.UTF_8)) {
+            parser.parse(reader, monthlyProfits);
+        }
+
+        assertEquals(expected, monthlyProfits.toMap());
+        assertEquals(61, monthlyProfits.getTradeCount());
+        assertEquals(0, parser.getRejects().total());
+    }
+
+    @Test
+    void keepsTradesWithoutANumericProfit() throws IOException {
+        // As the original analyzer did: the profit counts as 0 and the month of the trade is kept
+        String trades = "2024.01.02 10:00:00;Buy;0.1;EURUSD;1.1;0.1;2024.03.05 12:00:00;1.2;;;n/a\n"
+                + "2024.01.02 10:00:00;Buy;0.1;EURUSD;1.1;0.1;2024.04.05 12:00:00;1.2;;;5.5\n";
+        // Columns mapped from the header, and probed per row
+        for (TradeCsvParser parser : new TradeCsvParser[]{new TradeCsvParser(), new TradeCsvParser(true, null)}) {
+            MonthlyProfits monthlyProfits = new MonthlyProfits();
+            parser.parse(new StringReader(HEADER + trades), monthlyProfits);
+
+            assertEquals(Map.of("2024.03", 0.0, "2024.04", 5.5), monthlyProfits.toMap());
+            assertEquals(0, parser.getRejects().total());
+        }
+    }
+
+    @Test
+    void stopsOnceTheRejectBudgetIsExceeded() throws IOException {
+        StringBuilder export = new StringBuilder(HEADER);
+        for (int i = 0; i < 100; i++) {
+            export.append(i % 25 == 0 ? "broken;line\n"
+                    : "2024.01.02 10:00:00;Buy;0.1;EURUSD;1.1;0.1;2024.01.02 12:00:00;1.2;;;1.5\n");
+        }
+
+        // 4 rejected lines out of 101
+        assertThrows(TradeRejects.BudgetExceededException.class, () -> parseWithBudget(export, "3"));
+        assertEquals(4, parseWithBudget(export, "4").total());
+        assertThrows(TradeRejects.BudgetExceededException.class, () -> parseWithBudget(export, "3%"));
+        assertEquals(4, parseWithBudget(export, "4%").total());
+    }
+
+    private static TradeRejects parseWithBudget(CharSequence export, String budget) throws IOException {
+        TradeCsvParser parser = new TradeCsvParser();
+        parser.setRejectBudget(TradeRejects.Budget.of(budget));
+        parser.parse(new StringReader(export.toString()), new MonthlyProfits());
+        return parser.getRejects();
+    }
+
+    private static void assertSameAsParseDouble(String value) {
+        TradeCsvParser parser = new TradeCsvParser();
+        char[] chars = value.toCharArray();
+        boolean parsed = parser.parseNumber(chars, 0, chars.length);
+        try {
+            double expected = Double.parseDouble(value);
+            assertTrue(parsed, value);
+            // Bit for bit, so -0.0 and NaN are told apart as well
+            assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(parser.lastNumber()), value);
+        } catch (NumberFormatException e) {
+            assertFalse(parsed, value);
+        }
+    }
+
+    private static Long referenceTime(String value) {
+        try {
+            LocalDateTime dateTime = LocalDateTime.parse(value.trim(), DATE_FORMATTER);
+            return dateTime.toEpochSecond(ZoneOffset.UTC);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Close time of a single trade, null if the parser rejected the line
+    private static Long closeTime(String value) throws IOException {
+        String line = "2024.01.02 10:00:00;Buy;0.1;EURUSD;1.1;0.1;" + value + ";1.2;;;5.5\n";
+        Long[] closeTime = {null};
+        new TradeCsvParser().parse(new StringReader(HEADER + line), row -> closeTime[0] = row.closeTime());
+        return closeTime[0];
+    }
+}
@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A report loaded from a snapshot must be the report of a fresh parse, rejected lines included, and a snapshot
+ * must not outlive the export or the parse configuration it was written from.
+ */
+class TradeSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsColumnsRejectsAndLinesRead() throws IOException {
+        Path export = MappedTradeFileParserTest.writeExport(directory.resolve("account.csv"), 3_000);
+        AnalyzerOptions options = options();
+
+        FileAnalysisResult parsed = analyze(export, options);
+        assertTrue(parsed.isSuccess());
+        Path snapshotFile = options.snapshotFileFor(export.toFile());
+        long fingerprint = TradeSnapshot.fingerprint(options.formats, Charset.defaultCharset());
+        TradeSnapshot snapshot = TradeSnapshot.openIfCurrent(snapshotFile, export, fingerprint);
+        assertNotNull(snapshot);
+        assertEquals(3_000, snapshot.size());
+        assertEquals(parsed.linesRead, snapshot.linesRead());
+        assertEquals(parsed.monthlyProfits.toMap(), snapshot.toColumns().byMonth().toMap());
+
+        // A rejects file removed meanwhile is written again from the snapshot
+        Path rejectsFile = options.rejectsFileFor(export.toFile());
+        List<String> rejectLines = Files.readAllLines(rejectsFile);
+        Files.delete(rejectsFile);
+        FileAnalysisResult loaded = analyze(export, options);
+        assertTrue(loaded.isSuccess());
+        assertEquals(parsed.linesRead, loaded.linesRead);
+        assertEquals(parsed.monthlyProfits.toMap(), loaded.monthlyProfits.toMap());
+        assertEquals(3, loaded.rejects.total());
+        assertEquals(parsed.rejects.summary(), loaded.rejects.summary());
+        assertEquals(rejectLines, Files.readAllLines(rejectsFile));
+    }
+
+    @Test
+    void checksTheCurrentRejectBudgetOnLoad() throws IOException {
+        Path export = MappedTradeFileParserTest.writeExport(directory.resolve("account.csv"), 3_000);
+        AnalyzerOptions options = options();
+        assertTrue(analyze(export, options).isSuccess());
+
+        options.rejectBudget = TradeRejects.Budget.of("2");
+        FileAnalysisResult loaded = analyze(export, options);
+        assertFalse(loaded.isSuccess());
+        assertInstanceOf(TradeRejects.BudgetExceededException.class, loaded.error);
+    }
+
+    @Test
+    void isNotUsedOnceTheExportOrTheFormatsChange() throws IOException {
+        Path export = MappedTradeFileParserTest.writeExport(directory.resolve("account.csv"), 3_000);
+        AnalyzerOptions options = options();
+        FileAnalysisResult parsed = analyze(export, options);
+        Path snapshotFile = options.snapshotFileFor(export.toFile());
+        long fingerprint = TradeSnapshot.fingerprint(options.formats, Charset.defaultCharset());
+
+        Files.setLastModifiedTime(export, FileTime.fromMillis(Files.getLastModifiedTime(export).toMillis() + 2_000));
+        assertNull(TradeSnapshot.openIfCurrent(snapshotFile, export, fingerprint));
+        assertTrue(analyze(export, options).isSuccess());
+        assertNotNull(TradeSnapshot.openIfCurrent(snapshotFile, export, fingerprint));
+
+        // Matched ahead of MT5, the closing price is taken for the profit
+        options.formats = TradeFormat.withBuiltIn(List.of(new TradeFormat("Prices", ';',
+                TradeFormat.DEFAULT_DATE_TIME_PATTERN, "Time#1", "Type", "Volume#1", "Symbol", "Price#1", "Time#2",
+                "Price#2", "Commission", "Swap", "Price#2")));
+        assertNotEquals(fingerprint, TradeSnapshot.fingerprint(options.formats, Charset.defaultCharset()));
+        assertNull(TradeSnapshot.openIfCurrent(snapshotFile, export, TradeSnapshot.fingerprint(options.formats,
+                Charset.defaultCharset())));
+        FileAnalysisResult remapped = analyze(export, options);
+        assertTrue(remapped.isSuccess());
+        assertNotEquals(parsed.monthlyProfits.toMap(), remapped.monthlyProfits.toMap());
+
+        options.snapshot = false;
+        assertEquals(analyze(export, options).monthlyProfits.toMap(), remapped.monthlyProfits.toMap());
+    }
+
+    private static AnalyzerOptions options() {
+        AnalyzerOptions options = new AnalyzerOptions();
+        options.snapshot = true;
+        options.outputFormats = EnumSet.of(OutputFormat.CSV);
+        return options;
+    }
+
+    private static FileAnalysisResult analyze(Path export, AnalyzerOptions options) {
+        return TradeProfitAnalyzer.analyzeFile(export.toFile(), options, null);
+    }
+}
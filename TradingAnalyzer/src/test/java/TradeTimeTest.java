@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The calendar arithmetic on epoch seconds must agree with java.time over the whole four-digit year range.
+ */
+class TradeTimeTest {
+
+    @Test
+    void monthIndexMatchesLocalDate() {
+        for (long epochDay = LocalDate.of(1, 1, 1).toEpochDay(); epochDay <= LocalDate.of(9999, 12, 31).toEpochDay();
+             epochDay += 13) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            int expected = date.getYear() * 12 + date.getMonthValue() - 1;
+            assertEquals(expected, TradeTime.monthIndex(epochDay * TradeTime.SECONDS_PER_DAY), date.toString());
+            assertEquals(expected, TradeTime.monthIndex((epochDay + 1) * TradeTime.SECONDS_PER_DAY - 1), date.toString());
+            assertEquals(epochDay, TradeTime.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+
+    @Test
+    void dayOfWeekAndHourMatchLocalDateTime() {
+        for (long epochSecond = -86_400L * 800; epochSecond < 86_400L * 800; epochSecond += 3_607) {
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+            assertEquals(dateTime.getDayOfWeek().getValue() - 1, TradeTime.dayOfWeek(epochSecond), dateTime.toString());
+            assertEquals(dateTime.getHour(), TradeTime.hourOfDay(epochSecond), dateTime.toString());
+        }
+    }
+}
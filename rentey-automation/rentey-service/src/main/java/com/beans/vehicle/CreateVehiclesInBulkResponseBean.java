@@ -0,0 +1,22 @@
+package com.beans.vehicle;
+
+import com.beans.interfaces.ResponsePayload;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response bean for the bulk vehicle provisioning operation.
+ * Failed batches and failed receives do not stop the run; they are counted and their errors listed.
+ */
+public record CreateVehiclesInBulkResponseBean(
+        @JsonProperty("requested") Integer requested,
+        @JsonProperty("created") Integer created,
+        @JsonProperty("failed") Integer failed,
+        @JsonProperty("received") Integer received,
+        @JsonProperty("receiveFailed") Integer receiveFailed,
+        @JsonProperty("elapsedMillis") Long elapsedMillis,
+        @JsonProperty("plateNumbers") List<String> plateNumbers,
+        @JsonProperty("errors") List<String> errors
+) implements ResponsePayload {
+}
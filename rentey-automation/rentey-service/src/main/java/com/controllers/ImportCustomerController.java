@@ -31,16 +31,20 @@ public class ImportCustomerController {
      * This endpoint accepts a CreateOrUpdateCustomerRequestBean payload and calls
      * the CustomerService directly to create or update the customer record.
      *
+     * @param concurrency The number of customers imported at once (optional, default: csv.import.concurrency).
+     * @param ratePerSecond The most customer calls started per second, 0 for no limit (optional, default: csv.import.rate-per-second).
      * @return ResponseEntity containing the response from the createOrUpdateCustomer API
      */
     @GetMapping(
             path = IMPORT_CUSTOMER_FROM_CSV_FILE
     )
-    public ResponseEntity<Object> importCustomer() {
+    public ResponseEntity<Object> importCustomer(
+            @RequestParam(required = false) Integer concurrency,
+            @RequestParam(required = false) Double ratePerSecond) {
 
         try {
             // Call the service directly to create or update customer
-            CreateOrUpdateCustomerResponseBean response = importCustomerService.importCustomerRecordsToSystemFromCsvFile();
+            CreateOrUpdateCustomerResponseBean response = importCustomerService.importCustomerRecordsToSystemFromCsvFile(concurrency, ratePerSecond);
             logger.info("Successfully created/updated customer");
             return ResponseEntity
                     .status(HttpStatus.OK)
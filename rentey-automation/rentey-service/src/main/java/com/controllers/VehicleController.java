@@ -4,6 +4,7 @@ import com.beans.general.AbpResponseBean;
 import com.beans.general.GetAllItemsComboboxItemsResponseBean;
 import com.beans.general.UploadBase64FileRequestBean;
 import com.beans.general.UploadBase64FileResponseBean;
+import com.beans.vehicle.CreateVehiclesInBulkResponseBean;
 import com.beans.vehicle.CreateVehiclesRequestBean;
 import com.beans.vehicle.CreateVehiclesResponseBean;
 import com.beans.vehicle.GetAllAccidentPoliciesResponseBean;
@@ -263,6 +264,49 @@ public class VehicleController {
         return vehicleOperationsService.createVehicleWithRandomPlateNumber(countryName, branchName);
     }
 
+    /**
+     * Create vehicles in bulk with unique random plate and chassis numbers.
+     * This endpoint automatically calls the authorization-service to get the refreshToken
+     * and uses it in the Authorization header when calling the external API.
+     * The reference data is resolved once and the vehicles are sent in CreateVehicles batches,
+     * with a bounded number of batches in flight; created vehicles can be received right away.
+     *
+     * @param countryName The country name for the vehicles (required).
+     * @param branchName The branch name for the vehicles (required).
+     * @param count The number of vehicles to create (required, 1 to 10000).
+     * @param batchSize The number of vehicles per CreateVehicles call (default: 50, 1 to 500).
+     * @param concurrency The number of calls in flight at once (default: 4).
+     * @param receive Whether to receive every created vehicle (default: false).
+     * @return The counts of created and received vehicles, the created plate numbers and the errors.
+     */
+    @GetMapping(path = VEHICLE_CREATE_IN_BULK, produces = "application/json")
+    public CreateVehiclesInBulkResponseBean createVehiclesInBulk(
+            @RequestParam(required = true) String countryName,
+            @RequestParam(required = true) String branchName,
+            @RequestParam(required = true) Integer count,
+            @RequestParam(required = false, defaultValue = "50") Integer batchSize,
+            @RequestParam(required = false, defaultValue = "4") Integer concurrency,
+            @RequestParam(required = false, defaultValue = "false") Boolean receive) {
+
+        if (countryName == null || countryName.isEmpty()) {
+            throw new IllegalArgumentException("countryName parameter is required and cannot be empty.");
+        }
+        if (branchName == null || branchName.isEmpty()) {
+            throw new IllegalArgumentException("branchName parameter is required and cannot be empty.");
+        }
+        if (count == null || count < 1 || count > 10000) {
+            throw new IllegalArgumentException("count parameter is required and must be between 1 and 10000.");
+        }
+        if (batchSize < 1 || batchSize > 500) {
+            throw new IllegalArgumentException("batchSize parameter must be between 1 and 500.");
+        }
+        if (concurrency < 1 || concurrency > 32) {
+            throw new IllegalArgumentException("concurrency parameter must be between 1 and 32.");
+        }
+
+        return vehicleOperationsService.createVehiclesInBulk(countryName, branchName, count, batchSize, concurrency, receive);
+    }
+
     /**
      * Create a vehicle with random plate number and then receive it.
      * This endpoint automatically calls the authorization-service to get the refreshToken
@@ -3,11 +3,16 @@ package com.pojo;
 import com.beans.booking.CreateBookingRequestBean;
 import com.beans.booking.CreateBookingResponseBean;
 import com.beans.customer.CreateOrUpdateCustomerResponseBean;
+import com.util.StageTimer;
+
+import java.util.Map;
 
 public class CreateBookingResponseWrapper {
     public CreateBookingResponseBean createBookingResponseBean;
     public CreateBookingRequestBean createBookingRequestBean;
     public CreateOrUpdateCustomerResponseBean customerResponseBean;
+    // Timing of every API call of the flow, by stage name
+    public Map<String, StageTimer.StageTiming> stageTimings;
 
     public CreateBookingResponseWrapper(CreateBookingResponseBean createBookingResponseBean, CreateBookingRequestBean createBookingRequestBean) {
         this.createBookingResponseBean = createBookingResponseBean;
@@ -44,5 +49,13 @@ public class CreateBookingResponseWrapper {
         this.createBookingRequestBean = createBookingRequestBean;
     }
 
+    public Map<String, StageTimer.StageTiming> getStageTimings() {
+        return stageTimings;
+    }
+
+    public void setStageTimings(Map<String, StageTimer.StageTiming> stageTimings) {
+        this.stageTimings = stageTimings;
+    }
+
 
 }
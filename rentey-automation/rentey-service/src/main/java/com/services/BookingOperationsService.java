@@ -7,8 +7,12 @@ import com.enums.LookupTypes;
 import com.pojo.CreateBookingResponseWrapper;
 import com.util.DateUtil;
 import com.util.PropertyManager;
+import com.util.StageTimer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuple6;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +26,20 @@ public class BookingOperationsService {
 
     private static final Map<String, String> userDefinedVariables = PropertyManager.loadPropertyFileIntoMap("user-defined-variables.properties");
 
+    private static final String BOOKING_COUNTRY_SETTING_KEYS = "keys=App.CountryManagement.MinimumHoursToBooking&keys=App.CountryManagement.MinimumHoursToBrokerBooking&keys=App.CountryManagement.EnablePaymentOnSystemBooking&keys=App.CountryManagement.MaximumHoursToExecuteImmediateBooking&keys=App.CountryManagement.EnableExternalAuthorizationOnBooking&keys=App.CountryManagement.ContractMinimumHours&keys=App.CountryManagement.MaxDaysWhenAddContract&keys=App.CountryManagement.FreeHours&keys=App.CountryManagement.EnableFuelCost&keys=App.CountryManagement.MaxOdometerChange&keys=App.CountryManagement.MediumMaxAmount&keys=App.CountryManagement.ApplyExternalDriverAuthorizationOn";
+
+    /**
+     * Pickup and dropoff date of the booking (format: yyyy-MM-dd HH:mm:ss).
+     */
+    private record BookingDates(String pickupDate, String dropOffDate) {
+    }
+
+    /**
+     * Model and category of the booked vehicle, as returned by the available models combobox.
+     */
+    private record BookingModel(String modelId, String categoryId) {
+    }
+
     @Autowired
     private BookingService bookingService;
 
@@ -45,96 +63,147 @@ public class BookingOperationsService {
 
     /**
      * Build CreateBookingRequestBean by orchestrating multiple API calls and building the request.
+     * Calls run as soon as the values they need are resolved: the new customer and the reference data the
+     * booking screen loads start right away, only true data dependencies (country → branch and booking dates →
+     * available models → best rental rate, customer → validatePreventRentingRestriction) are serialised.
+     * The timing of every stage is logged and returned in the wrapper.
      *
      * @param countryName The country name.
      * @param branchName The branch name.
      * @return CreateBookingRequestBean instance.
      */
     public CreateBookingResponseWrapper CreateBookingWithNewCustomer(String countryName, String branchName) {
-        String countryId = countryService.getOperationalCountryIdFromName(countryName);
-        String branchId = countryService.getBranchIdByName(countryId, branchName);
-        countryService.getCountrySettings(Integer.parseInt(countryId), countryService.buildKeysForSettingsToGet("keys=App.CountryManagement.MinimumHoursToBooking&keys=App.CountryManagement.MinimumHoursToBrokerBooking&keys=App.CountryManagement.EnablePaymentOnSystemBooking&keys=App.CountryManagement.MaximumHoursToExecuteImmediateBooking&keys=App.CountryManagement.EnableExternalAuthorizationOnBooking&keys=App.CountryManagement.ContractMinimumHours&keys=App.CountryManagement.MaxDaysWhenAddContract&keys=App.CountryManagement.FreeHours&keys=App.CountryManagement.EnableFuelCost&keys=App.CountryManagement.MaxOdometerChange&keys=App.CountryManagement.MediumMaxAmount&keys=App.CountryManagement.ApplyExternalDriverAuthorizationOn"));
-        contractService.getExtrasNamesExcludedFromBookingPaymentDetails();
-        contractService.getCountriesPhone();
-        lookupsService.getLookupItemIdByLookupTypeIdAndItemDisplayName(62, "Saudi Citizen");
-        lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.MARITAL_STATUSES, "Single");
-        lookupsService.getLookupItemIdByLookupTypeIdAndItemDisplayName(6, "Male");
-        lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.VIP_LEVELS, "Level One");
-        lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.LEVEL, "Father");
-        lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.CREDIT_CARD_TYPES, "Visa");
-        lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.BANK_NAMES, "Visa");
-        lookupsService.getItemsByType(266, false);
-        var createBookingDateInputs = bookingService.getCreateBookingDateInputs(Integer.parseInt(countryId));
+        StageTimer timer = new StageTimer("CreateBookingWithNewCustomer");
+        String carModelName = userDefinedVariables.get("automationCarModelName");
+        String carCategoryName = userDefinedVariables.get("automationCarCategoryName");
+        Integer year = Integer.valueOf(userDefinedVariables.get("automationYear"));
 
-        String pickupDate = createBookingDateInputs.result().minimumPickupDate();
-        String dropOffDate = DateUtil.addTimeToDate(pickupDate,1,0,0,0);
+        // Values several calls depend on are cached, so each is resolved once
+        Mono<Integer> countryId = timer.call("getOperationalCountryIdFromName",
+                () -> Integer.parseInt(countryService.getOperationalCountryIdFromName(countryName))).cache();
+        Mono<Integer> branchId = countryId.flatMap(country -> timer.call("getBranchIdByName",
+                () -> Integer.parseInt(countryService.getBranchIdByName(String.valueOf(country), branchName)))).cache();
+        Mono<BookingDates> bookingDates = countryId.flatMap(country -> timer.call("getCreateBookingDateInputs",
+                        () -> bookingService.getCreateBookingDateInputs(country)))
+                .map(dateInputs -> {
+                    String pickupDate = dateInputs.result().minimumPickupDate();
+                    return new BookingDates(pickupDate, DateUtil.addTimeToDate(pickupDate, 1, 0, 0, 0));
+                }).cache();
+        Mono<CreateOrUpdateCustomerResponseBean> customer = timer.call("createCustomerWithRandomData",
+                () -> customerOperationsService.createCustomerWithRandomData(countryName)).cache();
+        Mono<BookingModel> bookingModel = Mono.zip(branchId, bookingDates)
+                .flatMap(branchAndDates -> timer.call("getBranchAvailableModelsForBookingComboboxItems", () -> {
+                    GetBranchAvailableModelsForBookingComboboxItemsRequestBean availableModelsRequest = buildGetAvailableModelsRequest(
+                            branchAndDates.getT1(),
+                            branchAndDates.getT2().pickupDate(),
+                            branchAndDates.getT2().dropOffDate(),
+                            "120",
+                            -1,
+                            -1,
+                            -1
+                    );
+                    bookingService.getBranchAvailableModelsForBookingComboboxItems(availableModelsRequest);
+                    return new BookingModel(
+                            bookingService.getModelIdByModelName(availableModelsRequest, carModelName),
+                            bookingService.getCategoryIddByCategoryName(availableModelsRequest, carCategoryName));
+                })).cache();
+        Mono<GetBestRentalRateForModelResponseBean> bestRentalRate = Mono.zip(countryId, branchId, bookingModel, bookingDates)
+                .flatMap(inputs -> timer.call("getBestRentalRateForModel", () -> bookingService.getBestRentalRateForModel(
+                        inputs.getT1(),
+                        inputs.getT2(),
+                        Integer.valueOf(inputs.getT3().modelId()),
+                        year,
+                        inputs.getT4().pickupDate(),
+                        inputs.getT4().dropOffDate())));
 
-        ValidateDurationAndLocationsRequestBean validateRequest = buildValidateDurationAndLocationRequest(
-                Integer.parseInt(countryId),
-                Integer.parseInt(branchId),
-                Integer.parseInt(branchId),
-                pickupDate,
-                dropOffDate,
-                6102,
-                true,
-                null,
-                null
+        // Reference data the booking screen loads; nothing below uses the values
+        Mono<Void> referenceData = Mono.when(
+                countryId.flatMap(country -> timer.run("getCountrySettings",
+                        () -> countryService.getCountrySettings(country, countryService.buildKeysForSettingsToGet(BOOKING_COUNTRY_SETTING_KEYS)))),
+                countryId.flatMap(country -> timer.run("getRentalSchemaIdByNameAndByPeriodTypeName",
+                        () -> settingsService.getRentalSchemaIdByNameAndByPeriodTypeName(country, userDefinedVariables.get("automationRentalRateSchemaName"), "Daily"))),
+                timer.run("getExtrasNamesExcludedFromBookingPaymentDetails", contractService::getExtrasNamesExcludedFromBookingPaymentDetails),
+                timer.run("getCountriesPhone", contractService::getCountriesPhone),
+                timer.run("lookup Saudi Citizen", () -> lookupsService.getLookupItemIdByLookupTypeIdAndItemDisplayName(62, "Saudi Citizen")),
+                timer.run("lookup MARITAL_STATUSES", () -> lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.MARITAL_STATUSES, "Single")),
+                timer.run("lookup Male", () -> lookupsService.getLookupItemIdByLookupTypeIdAndItemDisplayName(6, "Male")),
+                timer.run("lookup VIP_LEVELS", () -> lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.VIP_LEVELS, "Level One")),
+                timer.run("lookup LEVEL", () -> lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.LEVEL, "Father")),
+                timer.run("lookup CREDIT_CARD_TYPES", () -> lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.CREDIT_CARD_TYPES, "Visa")),
+                timer.run("lookup BANK_NAMES", () -> lookupsService.getLookupItemIdByLookupTypeNameAndItemDisplayName(LookupTypes.BANK_NAMES, "Visa")),
+                timer.run("getItemsByType", () -> lookupsService.getItemsByType(266, false)),
+                timer.run("getCarModelIdByName", () -> vehicleService.getCarModelIdByName(vehicleService.getAllCarModels(), carModelName)),
+                timer.run("getIntegratedLoyaltiesFromLoyaltyApi", contractService::getIntegratedLoyaltiesFromLoyaltyApi),
+                timer.run("getExternalLoyaltiesConfigurationsItemsFromLoyaltyApi", () -> contractService.getExternalLoyaltiesConfigurationsItemsFromLoyaltyApi(false)),
+                timer.run("getPaymentMethodsComboboxItems", () -> lookupsService.getPaymentMethodsComboboxItems(false, false)),
+                timer.run("getComboboxItemsValueByDisplayText", () -> lookupsService.getComboboxItemsValueByDisplayText("Card", 19))
         );
 
-        bookingService.validateDurationAndLocations(
-                validateRequest,
-                pickupDate,
-                dropOffDate
+        // Validations the booking screen makes before the booking is created
+        Mono<Void> validations = Mono.when(
+                Mono.zip(countryId, branchId, bookingDates).flatMap(inputs -> timer.run("validateDurationAndLocations",
+                        () -> bookingService.validateDurationAndLocations(
+                                buildValidateDurationAndLocationRequest(
+                                        inputs.getT1(),
+                                        inputs.getT2(),
+                                        inputs.getT2(),
+                                        inputs.getT3().pickupDate(),
+                                        inputs.getT3().dropOffDate(),
+                                        6102,
+                                        true,
+                                        null,
+                                        null
+                                ),
+                                inputs.getT3().pickupDate(),
+                                inputs.getT3().dropOffDate()))),
+                Mono.zip(customer, branchId, bookingModel, bookingDates).flatMap(inputs -> timer.run("validatePreventRentingRestriction",
+                        () -> bookingService.validatePreventRentingRestriction(
+                                inputs.getT1().result().id(),
+                                inputs.getT2(),
+                                Integer.parseInt(inputs.getT3().modelId()),
+                                inputs.getT4().pickupDate()))),
+                customer.flatMap(newCustomer -> timer.run("getCustomerContractInformationByName",
+                        () -> bookingService.getCustomerContractInformationByName(newCustomer.result().fullName().displayName()))),
+                Mono.zip(customer, branchId).flatMap(inputs -> timer.run("getExternalLoyaltiesWithAllowRedeemComboboxFromLoyaltyApi",
+                        () -> contractService.getExternalLoyaltiesWithAllowRedeemComboboxFromLoyaltyApi(inputs.getT1().result().id(), inputs.getT2())))
+//              contractService.getContractExtraItems(Integer.valueOf(branchId), Integer.valueOf(vehicleCategoryId), rentalSchemaPeriodId, 1801, 230, 120, false, 32100);
         );
 
-        GetBranchAvailableModelsForBookingComboboxItemsRequestBean availableModelsRequest = buildGetAvailableModelsRequest(
-                Integer.parseInt(branchId),
-                pickupDate,
-                dropOffDate,
-                "120",
-                -1,
-                -1,
-                -1
-        );
+        // Zip subscribes to everything at once; the booking inputs are there once the validations and reference data are done too
+        Tuple6<Integer, Integer, BookingDates, BookingModel, CreateOrUpdateCustomerResponseBean, GetBestRentalRateForModelResponseBean> inputs = Mono.zip(
+                        Mono.zip(countryId, branchId, bookingDates, bookingModel, customer, bestRentalRate),
+                        Mono.when(referenceData, validations).thenReturn(Boolean.TRUE))
+                .map(Tuple2::getT1)
+                .block();
 
-        vehicleService.getCarModelIdByName(
-                vehicleService.getAllCarModels(),
-                userDefinedVariables.get("automationCarModelName"));
-
-        bookingService.getBranchAvailableModelsForBookingComboboxItems(availableModelsRequest);
-        String vehicleModelId = bookingService.getModelIdByModelName(availableModelsRequest, userDefinedVariables.get("automationCarModelName"));
-        String vehicleCategoryId = bookingService.getCategoryIddByCategoryName(availableModelsRequest, userDefinedVariables.get("automationCarCategoryName"));
-        CreateOrUpdateCustomerResponseBean customerResponseBean = customerOperationsService.createCustomerWithRandomData(countryName);
-        bookingService.validatePreventRentingRestriction(customerResponseBean.result().id(), Integer.parseInt(branchId), Integer.parseInt(vehicleModelId), pickupDate);
-        bookingService.getCustomerContractInformationByName(customerResponseBean.result().fullName().displayName());
-        int rentalSchemaPeriodId = settingsService.getRentalSchemaIdByNameAndByPeriodTypeName(Integer.parseInt(countryId), userDefinedVariables.get("automationRentalRateSchemaName"), "Daily");
-        contractService.getIntegratedLoyaltiesFromLoyaltyApi();
-        contractService.getExternalLoyaltiesConfigurationsItemsFromLoyaltyApi(false);
-        contractService.getExternalLoyaltiesWithAllowRedeemComboboxFromLoyaltyApi(customerResponseBean.result().id(), Integer.parseInt(branchId));
-//        contractService.getContractExtraItems(Integer.valueOf(branchId), Integer.valueOf(vehicleCategoryId), rentalSchemaPeriodId, 1801, 230, 120, false, 32100);
-        lookupsService.getPaymentMethodsComboboxItems(false, false);
-        GetBestRentalRateForModelResponseBean bestRentalRateResponse = bookingService.getBestRentalRateForModel(Integer.valueOf(countryId), Integer.valueOf(branchId), Integer.valueOf(vehicleModelId), Integer.valueOf(userDefinedVariables.get("automationYear")), pickupDate, dropOffDate);
-        lookupsService.getComboboxItemsValueByDisplayText("Card", 19);
+        int countryIdValue = inputs.getT1();
+        int branchIdValue = inputs.getT2();
+        String pickupDate = inputs.getT3().pickupDate();
+        String dropOffDate = inputs.getT3().dropOffDate();
+        String vehicleModelId = inputs.getT4().modelId();
+        String vehicleCategoryId = inputs.getT4().categoryId();
+        CreateOrUpdateCustomerResponseBean customerResponseBean = inputs.getT5();
+        GetBestRentalRateForModelResponseBean bestRentalRateResponse = inputs.getT6();
 
         // Build calculate billing information request using data from previous responses
         CalculateBillingInformationRequestBean calculateBillingInformationRequest = buildCalculateBillingInformationRequest(
                 new ArrayList<>(),
                 new ArrayList<>(),
                 vehicleModelId,
-                Integer.valueOf(userDefinedVariables.get("automationYear")),
+                year,
                 null,
                 bestRentalRateResponse.result().rentalRateId(),
                 dropOffDate,
                 pickupDate,
                 210,
                 2306,
-                Integer.parseInt(branchId),
-                Integer.parseInt(branchId),
+                branchIdValue,
+                branchIdValue,
                 customerResponseBean.result().id().intValue(),
                 vehicleCategoryId,
                 ""
         );
-        bookingService.calculateBillingInformation(calculateBillingInformationRequest);
+        timer.time("calculateBillingInformation", () -> bookingService.calculateBillingInformation(calculateBillingInformationRequest));
 
         // Build create booking request using data from previous responses
         CreateBookingRequestBuilder builder = CreateBookingRequestBuilder.create();
@@ -151,14 +220,14 @@ public class BookingOperationsService {
 
         // Build the complete request
         CreateBookingRequestBean createBookingRequest = builder
-                .withCountryId(Integer.parseInt(countryId))
+                .withCountryId(countryIdValue)
                 .withPickupDate(pickupDate)
                 .withDropoffDate(dropOffDate)
-                .withPickupBranchId(Integer.parseInt(branchId))
-                .withDropoffBranchId(Integer.parseInt(branchId))
+                .withPickupBranchId(branchIdValue)
+                .withDropoffBranchId(branchIdValue)
                 .withCategoryId(vehicleCategoryId)
                 .withModelId(vehicleModelId)
-                .withYear(Integer.valueOf(userDefinedVariables.get("automationYear")))
+                .withYear(year)
                 .withDriverId(customerResponseBean.result().id().intValue())
                 .withRentalRateId(bestRentalRateResponse.result().rentalRateId())
                 .withTransferCostId(null)
@@ -174,8 +243,10 @@ public class BookingOperationsService {
                 .withUserDiscounts(new ArrayList<>())
                 .withBookingOffers(new ArrayList<>())
                 .build();
-        CreateBookingResponseBean createBookingResponseBean= bookingService.createBooking(createBookingRequest);
+        CreateBookingResponseBean createBookingResponseBean = timer.time("createBooking", () -> bookingService.createBooking(createBookingRequest));
+        timer.log();
         CreateBookingResponseWrapper createBookingResponseWrapper = new CreateBookingResponseWrapper(createBookingResponseBean,createBookingRequest,customerResponseBean);
+        createBookingResponseWrapper.setStageTimings(timer.getStages());
         return createBookingResponseWrapper;
     }
 
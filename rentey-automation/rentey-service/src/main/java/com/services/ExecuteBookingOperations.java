@@ -5,20 +5,19 @@ import com.beans.booking.CreateBookingResponseBean;
 import com.beans.booking.GetAllBookingsResponseBean;
 import com.beans.booking.GetBookingForQuickSearchResponseBean;
 import com.beans.contract.*;
-import com.beans.customer.GetCountriesPhoneResponseBean;
 import com.beans.driver.AuthorizeDriverRequestBean;
 import com.beans.driver.CancelDriverAuthorizationIfCancellationRequiredRequestBean;
 import com.beans.driver.CancelDriverAuthorizationIfCancellationRequiredResponseBean;
 import com.beans.driver.GetAllApplicableDriverAuthorizationComboboxItemsResponseBean;
 import com.beans.general.AbpResponseBean;
-import com.beans.general.GetAllItemsComboboxItemsResponseBean;
-import com.beans.lookups.GetItemsByTypeResponseBean;
 import com.beans.validation.IsValidPhoneResponseBean;
 import com.beans.vehicle.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pojo.CreateBookingResponseWrapper;
+import com.util.StageTimer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -76,6 +75,21 @@ public class ExecuteBookingOperations {
         String bookingNumber = createBookingResponseWrapper.getCreateBookingResponseBean().result().bookingNumber();
         Long bookingId = Long.valueOf(createBookingResponseWrapper.getCreateBookingResponseBean().result().bookingId());
 
+        // Prefetch the reference data the execute booking screen loads; it does not depend on the booking,
+        // so it runs while the booking is validated below instead of adding to the critical path
+        StageTimer timer = new StageTimer("ExecuteCreatedBookingWithNewCustomerAndNewVehicle reference data");
+        Mono<Void> referenceData = Mono.when(
+                timer.run("getTenantSettingBySettingKey", () -> settingsService.getTenantSettingBySettingKey("App.TenantManagement.EnablePageTracking")),
+                timer.run("getAllItemsComboboxItems contract states", () -> lookupsService.getAllItemsComboboxItems(26, false, true)),
+                timer.run("getItemsByType privacy policy types", () -> lookupsService.getItemsByType(266, false)),
+                timer.run("getCountriesPhone", contractService::getCountriesPhone),
+                timer.run("getAllCarModels", vehicleService::getAllCarModels),
+                timer.run("getAllItemsComboboxItems fuel levels", () -> lookupsService.getAllItemsComboboxItems(12, false, false)),
+                timer.run("getExternalLoyaltiesConfigurationsItemsFromLoyaltyApi", () -> contractService.getExternalLoyaltiesConfigurationsItemsFromLoyaltyApi(false))
+        ).cache();
+        // Started now, the cached outcome is awaited before executing; a failure surfaces there, not here
+        referenceData.subscribe(null, error -> { });
+
         // Step 2: Get all bookings using the booking number
         String getAllBookingsRequest = "page=1&pageSize=15&filter=bookingNumber~eq~'" + bookingNumber + "'&sort=pickupDate-";
         GetAllBookingsResponseBean getAllBookingsResponse = bookingService.getAllBookings(getAllBookingsRequest);
@@ -93,13 +107,6 @@ public class ExecuteBookingOperations {
         Long customerId = getAllBookingsResponse.result().data().get(0).driverId();
         executeBookingService.getLiteCustomer(customerId);
         IsValidPhoneResponseBean isValidPhone = bookingService.isValidPhone(createBookingResponseWrapper.getCustomerResponseBean().result().contactInformation().primaryPhone().split("-")[1], createBookingResponseWrapper.getCustomerResponseBean().result().contactInformation().primaryPhone().split("-")[0]);
-        settingsService.getTenantSettingBySettingKey("App.TenantManagement.EnablePageTracking");
-        GetAllItemsComboboxItemsResponseBean contractStates = lookupsService.getAllItemsComboboxItems(26, false, true);
-        GetItemsByTypeResponseBean privacyPolicyTypes = lookupsService.getItemsByType(266, false);
-        GetCountriesPhoneResponseBean countriesPhone = contractService.getCountriesPhone();
-        GetAllCarModelsResponseBean vehicleModels = vehicleService.getAllCarModels();
-        GetAllItemsComboboxItemsResponseBean fuelLevels = lookupsService.getAllItemsComboboxItems(12, false, false);
-        GetExternalLoyaltiesConfigurationsItemsFromLoyaltyApiResponseBean externalLoyaltiesConfigurationsItems = contractService.getExternalLoyaltiesConfigurationsItemsFromLoyaltyApi(false);
 
         String dropoffDate = null;
         Integer modeId = 32200;
@@ -164,6 +171,10 @@ public class ExecuteBookingOperations {
                 readyVehiclesResponse, calculateBillingResponse, vehicleCheckPrepResponse,
                 vehicleIdFromBooking, customerId, pickupBranchId, pickupDateFromBooking, dropoffDate,
                 readyVehicleBlockingKey, bookingId, cancelDriverAuthRequest, authorizeDriverRequest);
+
+        // The prefetch must be done before executing, so a failed reference data call still fails the scenario
+        referenceData.block();
+        timer.log();
         return executeBookingService.executeBooking(executeBookingRequest);
 
     }
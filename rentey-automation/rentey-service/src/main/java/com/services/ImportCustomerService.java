@@ -8,6 +8,7 @@ import com.builders.CustomerDataBuilder;
 import com.pojo.CustomerCsvData;
 import com.util.CustomerCsvImportUtil;
 import com.util.DateUtil;
+import com.util.RequestThrottle;
 import com.util.StringUtil;
 import com.util.XlsxWriterUtil;
 import org.slf4j.Logger;
@@ -15,14 +16,31 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class ImportCustomerService {
 
     private static final Logger logger = LoggerFactory.getLogger(ImportCustomerService.class);
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(60);
+    private static final int MAX_RETRIES = 3;
+    // Statuses the API answers without processing the request, so the customer can be sent again. A 502 or 504
+    // may come after the request was processed, sending it again could import the customer twice
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 503);
+
+    /**
+     * Result of one imported row.
+     */
+    private record ImportResult(CreateOrUpdateCustomerResponseBean response, String responseCode, String responseMessage) {
+    }
 
     @Autowired
     private CustomerService customerService;
@@ -49,6 +67,12 @@ public class ImportCustomerService {
     @Value("${csv.export.directory}")
     private String exportDirectory;
 
+    @Value("${csv.import.concurrency:1}")
+    private int importConcurrency;
+
+    @Value("${csv.import.rate-per-second:0}")
+    private double importRatePerSecond;
+
 
     /**
      * Loads the country ISO code to country name mapping from the properties file.
@@ -60,58 +84,39 @@ public class ImportCustomerService {
 
     }
 
+    /**
+     * Imports the customers of the CSV files and writes the result of every row to an XLSX file.
+     * Up to concurrency customers are imported at once; with a rate limit, at most ratePerSecond calls start per second.
+     * When the API answers 429 or 5xx, new calls are paused for everyone with a growing back-off, and the row is
+     * retried if the API cannot have processed it (429, 503). Other 5xx answers are the result of their row.
+     *
+     * @param concurrency   The most customers imported at once, null for the csv.import.concurrency setting (1 imports one by one).
+     * @param ratePerSecond The most calls started per second, null for the csv.import.rate-per-second setting (0 for no limit).
+     * @return The response of the last row, null if no records were processed.
+     */
     @LogRequestAndResponseOnDesk
     @LogExecutionTime
-    public CreateOrUpdateCustomerResponseBean importCustomerRecordsToSystemFromCsvFile() {
+    public CreateOrUpdateCustomerResponseBean importCustomerRecordsToSystemFromCsvFile(Integer concurrency, Double ratePerSecond) {
         List<CustomerCsvData> customerCsvDataList = customerCsvImportUtil.getCsvFiles();
-        List<CreateOrUpdateCustomerResponseBean> responses = new ArrayList<>();
-        List<String> responseCodes = new ArrayList<>();
-        List<String> responseMessages = new ArrayList<>();
-
-        logger.info("Starting import of {} customer records from CSV", customerCsvDataList.size());
-
-        for (CustomerCsvData customerCsvData : customerCsvDataList) {
-            try {
-                CreateOrUpdateCustomerRequestBean createOrUpdateCustomerRequestBean = buildRequestFromCsvData(customerCsvData);
-                CreateOrUpdateCustomerResponseBean response = customerService.createOrUpdateCustomer(createOrUpdateCustomerRequestBean);
-                responses.add(response);
-
-                // Extract response code and message
-                String responseCode = extractResponseCode(response);
-                String responseMessage = extractResponseMessage(response);
-                responseCodes.add(responseCode);
-                responseMessages.add(responseMessage);
-
-                logger.info("Successfully imported customer: {} {} {} - Code: {}, Message: {}",
-                        customerCsvData.firstName(), customerCsvData.secondName(), customerCsvData.familyName(),
-                        responseCode, responseMessage);
-            } catch (org.springframework.web.reactive.function.client.WebClientResponseException e) {
-                // Handle WebClient response exceptions
-                String errorCode = String.valueOf(e.getStatusCode().value());
-                String errorMessage = extractErrorMessageFromException(e);
-                responseCodes.add(errorCode);
-                responseMessages.add(errorMessage);
-                responses.add(null); // Add null to maintain list alignment
-
-                logger.error("Failed to import customer: {} {} {} - Status: {}, Error: {}",
-                        customerCsvData.firstName(), customerCsvData.secondName(), customerCsvData.familyName(),
-                        errorCode, errorMessage, e);
-            } catch (Exception e) {
-                // Handle other exceptions
-                String errorCode = "ERROR";
-                String errorMessage = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-                responseCodes.add(errorCode);
-                responseMessages.add(errorMessage);
-                responses.add(null); // Add null to maintain list alignment
-
-                logger.error("Failed to import customer: {} {} {} - Error: {}",
-                        customerCsvData.firstName(), customerCsvData.secondName(), customerCsvData.familyName(),
-                        errorMessage, e);
-            }
-        }
+        int inFlight = Math.max(concurrency != null ? concurrency : importConcurrency, 1);
+        double rate = ratePerSecond != null ? ratePerSecond : importRatePerSecond;
+        RequestThrottle throttle = new RequestThrottle(rate, INITIAL_BACKOFF, MAX_BACKOFF);
+
+        logger.info("Starting import of {} customer records from CSV with concurrency {} and rate limit {}/s",
+                customerCsvDataList.size(), inFlight, rate > 0 ? rate : "no");
+
+        // flatMapSequential emits the results in row order, so they stay aligned with the CSV rows in the XLSX file
+        List<ImportResult> results = Flux.fromIterable(customerCsvDataList)
+                .flatMapSequential(customerCsvData -> Mono.fromCallable(() -> importCustomer(customerCsvData, throttle))
+                        .subscribeOn(Schedulers.boundedElastic()), inFlight)
+                .collectList()
+                .block();
+        List<String> responseCodes = results.stream().map(ImportResult::responseCode).toList();
+        List<String> responseMessages = results.stream().map(ImportResult::responseMessage).toList();
+        long imported = results.stream().filter(result -> result.response() != null && Boolean.TRUE.equals(result.response().success())).count();
 
         logger.info("Completed import process. Successfully imported {}/{} customers",
-                responses.size(), customerCsvDataList.size());
+                imported, customerCsvDataList.size());
 
         // Write results to XLSX file
         try {
@@ -132,7 +137,91 @@ public class ImportCustomerService {
         }
 
         // Return the last response or null if no records were processed
-        return responses.isEmpty() ? null : responses.get(responses.size() - 1);
+        return results.isEmpty() ? null : results.get(results.size() - 1).response();
+    }
+
+    /**
+     * Imports one customer row.
+     *
+     * @param customerCsvData The CSV row.
+     * @param throttle        The throttle shared by the rows of the import.
+     * @return The response, null if the call failed, with the response code and message written to the XLSX file.
+     */
+    private ImportResult importCustomer(CustomerCsvData customerCsvData, RequestThrottle throttle) {
+        try {
+            CreateOrUpdateCustomerRequestBean createOrUpdateCustomerRequestBean = buildRequestFromCsvData(customerCsvData);
+            CreateOrUpdateCustomerResponseBean response = createOrUpdateCustomerWithBackOff(createOrUpdateCustomerRequestBean, throttle);
+
+            // Extract response code and message
+            String responseCode = extractResponseCode(response);
+            String responseMessage = extractResponseMessage(response);
+
+            logger.info("Successfully imported customer: {} {} {} - Code: {}, Message: {}",
+                    customerCsvData.firstName(), customerCsvData.secondName(), customerCsvData.familyName(),
+                    responseCode, responseMessage);
+            return new ImportResult(response, responseCode, responseMessage);
+        } catch (WebClientResponseException e) {
+            // Handle WebClient response exceptions
+            String errorCode = String.valueOf(e.getStatusCode().value());
+            String errorMessage = extractErrorMessageFromException(e);
+
+            logger.error("Failed to import customer: {} {} {} - Status: {}, Error: {}",
+                    customerCsvData.firstName(), customerCsvData.secondName(), customerCsvData.familyName(),
+                    errorCode, errorMessage, e);
+            return new ImportResult(null, errorCode, errorMessage);
+        } catch (Exception e) {
+            // Handle other exceptions
+            String errorCode = "ERROR";
+            String errorMessage = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+
+            logger.error("Failed to import customer: {} {} {} - Error: {}",
+                    customerCsvData.firstName(), customerCsvData.secondName(), customerCsvData.familyName(),
+                    errorMessage, e);
+            return new ImportResult(null, errorCode, errorMessage);
+        }
+    }
+
+    /**
+     * Calls createOrUpdateCustomer once the throttle allows it. A 429 or 5xx answer pauses the following calls of
+     * the import; the call is retried if the API cannot have processed it.
+     *
+     * @param request  The customer request.
+     * @param throttle The throttle shared by the rows of the import.
+     * @return The response of the API.
+     * @throws InterruptedException If the thread is interrupted while waiting for the throttle.
+     */
+    private CreateOrUpdateCustomerResponseBean createOrUpdateCustomerWithBackOff(CreateOrUpdateCustomerRequestBean request,
+                                                                                 RequestThrottle throttle) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            throttle.acquire();
+            try {
+                CreateOrUpdateCustomerResponseBean response = customerService.createOrUpdateCustomer(request);
+                throttle.onSuccess();
+                return response;
+            } catch (WebClientResponseException e) {
+                int status = e.getStatusCode().value();
+                if (status != 429 && status < 500) {
+                    throw e;
+                }
+                Duration pause = throttle.backOff(extractRetryAfter(e));
+                if (!RETRYABLE_STATUSES.contains(status) || attempt > MAX_RETRIES) {
+                    throw e;
+                }
+                logger.warn("Customer API returned {}, pausing new calls for {} ms before retry {} of {}",
+                        status, pause.toMillis(), attempt, MAX_RETRIES);
+            }
+        }
+    }
+
+    /**
+     * Extracts the pause a 429 or 503 response asks for from its Retry-After header, in seconds.
+     */
+    private Duration extractRetryAfter(WebClientResponseException e) {
+        String retryAfter = e.getHeaders().getFirst("Retry-After");
+        if (retryAfter != null && retryAfter.trim().matches("\\d+")) {
+            return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+        }
+        return null;
     }
 
     /**
@@ -248,7 +337,7 @@ public class ImportCustomerService {
     /**
      * Extracts error message from WebClientResponseException.
      */
-    private String extractErrorMessageFromException(org.springframework.web.reactive.function.client.WebClientResponseException e) {
+    private String extractErrorMessageFromException(WebClientResponseException e) {
         try {
             String responseBody = e.getResponseBodyAsString();
             if (responseBody != null && !responseBody.trim().isEmpty()) {
@@ -7,18 +7,28 @@ import com.beans.vehicle.*;
 import com.enums.VehicleCheckTypes;
 import com.util.NumberUtil;
 import com.util.PropertyManager;
+import com.util.StageTimer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Service for vehicle operations that orchestrate multiple API calls.
@@ -39,6 +49,19 @@ public class VehicleOperationsService {
     @Autowired
     private CountryService countryService;
 
+    /**
+     * Ids of the reference data a new vehicle is created with.
+     */
+    private record VehicleReferenceData(String insuranceCompanyId, String accidentPolicyId, String branchId,
+                                        String fuelTypeId, String fuelLevelId, String colorId, String usageTypeId,
+                                        String licenseTypeId, String trimLevelId, String vendorId, String carModelId) {
+    }
+
+    /**
+     * A CreateVehicles batch, with the error if it failed.
+     */
+    private record BatchResult(List<CreateVehiclesRequestBean.VehicleDto> batch, String error) {
+    }
 
     /**
      * Create a vehicle with a random plate number by calling multiple APIs to gather required data.
@@ -53,103 +76,239 @@ public class VehicleOperationsService {
         int countryId = Integer.parseInt(countryService.getOperationalCountryIdFromName(countryName));
         logger.info("Creating vehicle with random plate number for countryId: {}", countryId);
 
-        // Call VehicleService methods through injected service to ensure caching works
-        String insuranceCompanyId = vehicleService.getInsuranceCompanyIdByName(
-                vehicleService.getInsuranceCompanyComboboxItems(countryId),
-                userDefinedVariables.get("automationOrganizationName"));
-
-        String accidentPolicyId = vehicleService.getAccidentPolicyNumberByOrganizationName(
-                vehicleService.getAllAccidentPolicies(countryId),
-                userDefinedVariables.get("automationOrganizationName"));
-
-        String branchId = countryService.getBranchIdByName(
-                countryService.getUserBranchesForCombobox(countryId, new ArrayList<>(List.of(8900, 8902))),
-                branchName);
-
-        String vehicleFuelTypeId = lookupsService.getComboboxItemValueByDisplayText(
-                vehicleService.getFuelTypesForCombobox(countryId),
-                userDefinedVariables.get("automationFuelTypeName"));
-
-        String vehicleFuelLevelId = lookupsService.getComboboxItemValueByDisplayText(
-                lookupsService.getAllItemsComboboxItems(12), "100%");
-
-        String vehicleColorId = lookupsService.getComboboxItemValueByDisplayText(
-                lookupsService.getAllItemsComboboxItems(13),
-                userDefinedVariables.get("automationColourName"));
-
-        String vehicleUsageTypeId = lookupsService.getComboboxItemValueByDisplayText(
-                lookupsService.getAllItemsComboboxItems(11), "Rental");
-
-        String vehicleLicenseTypeId = lookupsService.getComboboxItemValueByDisplayText(
-                lookupsService.getAllItemsComboboxItems(10), "Private");
+        VehicleReferenceData referenceData = resolveVehicleReferenceData(countryId, branchName);
+        String randomPlateNumber = generateRandomPlateNumber();
+        String chassisNo = NumberUtil.generateRandomNumericString(17);
+        CreateVehiclesRequestBean.VehicleDto vehicleDto = buildVehicleDto(referenceData, countryId, randomPlateNumber, chassisNo);
 
-        String vehicleTrimLevelId = lookupsService.getComboboxItemValueByDisplayText(
-                lookupsService.getAllItemsComboboxItems(14),
-                userDefinedVariables.get("automationTrimLevel"));
+        // Create request with single vehicle
+        List<CreateVehiclesRequestBean.VehicleDto> vehicleDtos = new ArrayList<>();
+        vehicleDtos.add(vehicleDto);
+        CreateVehiclesRequestBean request = new CreateVehiclesRequestBean(vehicleDtos);
 
-        String vehicleVendorId = vehicleService.getVendorIdByName(
-                vehicleService.getVendorComboboxItems(),
-                userDefinedVariables.get("automationVendorName"));
+        logger.info("Created vehicle request with plate number: {}", randomPlateNumber);
 
-        String carModelId = vehicleService.getCarModelIdByName(
-                vehicleService.getAllCarModels(),
-                userDefinedVariables.get("automationCarModelName"));
+        // Call createVehicles through VehicleService
+        CreateVehiclesResponseBean createVehiclesResponseBean = vehicleService.createVehicles(request);
+        CreateVehiclesResponseBean.vehiclePlateNumber = randomPlateNumber;
 
-        String randomPlateNumber = generateRandomPlateNumber();
-        String chassisNo = NumberUtil.generateRandomNumericString(17);
+        return createVehiclesResponseBean;
+    }
 
-        // Build the vehicle DTO
-        CreateVehiclesRequestBean.VehicleDto vehicleDto = new CreateVehiclesRequestBean.VehicleDto(
+    /**
+     * Build the DTO of a new vehicle from the resolved reference data.
+     *
+     * @param referenceData The resolved reference data ids.
+     * @param countryId     The country id.
+     * @param plateNumber   The plate number of the vehicle.
+     * @param chassisNo     The chassis number of the vehicle.
+     * @return The vehicle DTO.
+     */
+    private CreateVehiclesRequestBean.VehicleDto buildVehicleDto(VehicleReferenceData referenceData, int countryId,
+                                                                 String plateNumber, String chassisNo) {
+        return new CreateVehiclesRequestBean.VehicleDto(
                 null, // isBulkUploaded
                 "22", // odometer
-                Integer.parseInt(vehicleFuelLevelId), // fuelLevelId
-                branchId, // branchId (default if not provided)
+                Integer.parseInt(referenceData.fuelLevelId()), // fuelLevelId
+                referenceData.branchId(), // branchId (default if not provided)
                 new CreateVehiclesRequestBean.VehicleManufacturingInfo(
-                        carModelId, // modelId
+                        referenceData.carModelId(), // modelId
                         2020, // year (2020-2024)
                         chassisNo // chassisNo
                 ),
                 new CreateVehiclesRequestBean.VehicleLicenseInfo(
-                        vehicleLicenseTypeId, // licenseTypeId
-                        vehicleUsageTypeId, // usageTypeId
-                        randomPlateNumber // plateNo
+                        referenceData.licenseTypeId(), // licenseTypeId
+                        referenceData.usageTypeId(), // usageTypeId
+                        plateNumber // plateNo
                 ),
                 new CreateVehiclesRequestBean.VehicleInsuranceInfo(
                         OffsetDateTime.now().plusYears(1).toString().replace("T", " ").substring(0, 19), // expiryDate (1 year from now)
                         "2180878653", // number
-                        insuranceCompanyId, // insuranceCompanyId
-                        Integer.parseInt(accidentPolicyId) // accidentPolicyId
+                        referenceData.insuranceCompanyId(), // insuranceCompanyId
+                        Integer.parseInt(referenceData.accidentPolicyId()) // accidentPolicyId
                 ),
                 new CreateVehiclesRequestBean.LocationInfo(
-                        branchId != null ? branchId : "1012" // currentLocationId
+                        referenceData.branchId() != null ? referenceData.branchId() : "1012" // currentLocationId
                 ),
                 new CreateVehiclesRequestBean.PurchaseInfo(
-                        vehicleVendorId, // vendorId
+                        referenceData.vendorId(), // vendorId
                         OffsetDateTime.of(LocalDateTime.now(), ZoneOffset.UTC), // date formatted as "2025-12-07T12:41:40"
                         String.valueOf(35000 + random.nextInt(50000))
                 ),
                 new CreateVehiclesRequestBean.VehicleSpecs(
-                        vehicleColorId, // colorId
-                        vehicleTrimLevelId, // trimLevelId
-                        vehicleFuelTypeId, // fuelTypeId
+                        referenceData.colorId(), // colorId
+                        referenceData.trimLevelId(), // trimLevelId
+                        referenceData.fuelTypeId(), // fuelTypeId
                         50 + random.nextInt(30),
                         2000
                 ),
                 String.valueOf(countryId) // countryId
         );
+    }
 
-        // Create request with single vehicle
-        List<CreateVehiclesRequestBean.VehicleDto> vehicleDtos = new ArrayList<>();
-        vehicleDtos.add(vehicleDto);
-        CreateVehiclesRequestBean request = new CreateVehiclesRequestBean(vehicleDtos);
+    /**
+     * Create vehicles in bulk with unique random plate and chassis numbers.
+     * The reference data is resolved once; the vehicles are sent in CreateVehicles batches of batchSize, with at most
+     * concurrency batches in flight. When receive is set, the vehicles of every created batch are received right away,
+     * also with at most concurrency in flight, while the next batches are still being created.
+     * A failed batch or receive is counted and listed in the errors; it does not stop the run.
+     *
+     * @param countryName The country name for the vehicles (required).
+     * @param branchName  The branch name for the vehicles (required).
+     * @param count       The number of vehicles to create.
+     * @param batchSize   The number of vehicles per CreateVehicles call.
+     * @param concurrency The number of calls in flight at once, for creating and for receiving.
+     * @param receive     Whether to receive every created vehicle.
+     * @return The counts of created and received vehicles, the created plate numbers and the errors.
+     */
+    @LogExecutionTime
+    public CreateVehiclesInBulkResponseBean createVehiclesInBulk(String countryName, String branchName, int count,
+                                                                 int batchSize, int concurrency, boolean receive) {
+        long startNanos = System.nanoTime();
+        int countryId = Integer.parseInt(countryService.getOperationalCountryIdFromName(countryName));
+        logger.info("Creating {} vehicles in batches of {} with concurrency {} for countryId: {}", count, batchSize, concurrency, countryId);
 
-        logger.info("Created vehicle request with plate number: {}", randomPlateNumber);
+        VehicleReferenceData referenceData = resolveVehicleReferenceData(countryId, branchName);
+        int branchId = Integer.parseInt(referenceData.branchId());
 
-        // Call createVehicles through VehicleService
-        CreateVehiclesResponseBean createVehiclesResponseBean = vehicleService.createVehicles(request);
-        CreateVehiclesResponseBean.vehiclePlateNumber = randomPlateNumber;
+        // Sets, so every plate and chassis number of the run is unique
+        Set<String> plateNumbers = new LinkedHashSet<>();
+        while (plateNumbers.size() < count) {
+            plateNumbers.add(generateRandomPlateNumber());
+        }
+        Set<String> chassisNumbers = new HashSet<>();
+        List<CreateVehiclesRequestBean.VehicleDto> vehicleDtos = new ArrayList<>(count);
+        for (String plateNumber : plateNumbers) {
+            String chassisNo;
+            do {
+                chassisNo = NumberUtil.generateRandomNumericString(17);
+            } while (!chassisNumbers.add(chassisNo));
+            vehicleDtos.add(buildVehicleDto(referenceData, countryId, plateNumber, chassisNo));
+        }
+        List<List<CreateVehiclesRequestBean.VehicleDto>> batches = new ArrayList<>();
+        for (int from = 0; from < count; from += batchSize) {
+            batches.add(vehicleDtos.subList(from, Math.min(from + batchSize, count)));
+        }
 
-        return createVehiclesResponseBean;
+        List<String> createdPlateNumbers = Collections.synchronizedList(new ArrayList<>());
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger receiveFailed = new AtomicInteger();
+
+        Flux<String> created = Flux.fromIterable(batches)
+                .flatMap(batch -> Mono.fromCallable(() -> createBatch(batch))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(error -> Mono.just(new BatchResult(batch, error.getMessage()))), concurrency)
+                .flatMapIterable(result -> {
+                    List<String> batchPlateNumbers = result.batch().stream()
+                            .map(vehicleDto -> vehicleDto.vehicleLicenseInfo().plateNo())
+                            .toList();
+                    if (result.error() != null) {
+                        logger.error("Failed to create batch of {} vehicles: {}", batchPlateNumbers.size(), result.error());
+                        errors.add("Create batch " + batchPlateNumbers.get(0) + " .. " + batchPlateNumbers.get(batchPlateNumbers.size() - 1) + ": " + result.error());
+                        return List.<String>of();
+                    }
+                    createdPlateNumbers.addAll(batchPlateNumbers);
+                    return batchPlateNumbers;
+                });
+        if (receive) {
+            created = created.flatMap(plateNumber -> Mono.fromCallable(() -> receiveCreatedVehicle(countryId, branchId, plateNumber))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doOnNext(response -> received.incrementAndGet())
+                    .map(response -> plateNumber)
+                    .onErrorResume(error -> {
+                        receiveFailed.incrementAndGet();
+                        errors.add("Receive " + plateNumber + ": " + error.getMessage());
+                        return Mono.empty();
+                    }), concurrency);
+        }
+        created.then().block();
+
+        long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        logger.info("Created {} of {} vehicles, received {}, in {} ms", createdPlateNumbers.size(), count, received.get(), elapsedMillis);
+        return new CreateVehiclesInBulkResponseBean(
+                count,
+                createdPlateNumbers.size(),
+                count - createdPlateNumbers.size(),
+                received.get(),
+                receiveFailed.get(),
+                elapsedMillis,
+                new ArrayList<>(createdPlateNumbers),
+                new ArrayList<>(errors)
+        );
+    }
+
+    /**
+     * Send one CreateVehicles call with a batch of vehicles.
+     *
+     * @param batch The vehicles of the batch.
+     * @return The batch, with the error if the call did not succeed.
+     */
+    private BatchResult createBatch(List<CreateVehiclesRequestBean.VehicleDto> batch) {
+        CreateVehiclesResponseBean response = vehicleService.createVehicles(new CreateVehiclesRequestBean(batch));
+        if (response == null || !Boolean.TRUE.equals(response.success())) {
+            return new BatchResult(batch, String.valueOf(response != null ? response.error() : "Unknown error"));
+        }
+        return new BatchResult(batch, null);
+    }
+
+    /**
+     * Resolve the ids of the reference data a new vehicle needs. The lookups do not depend on each other, so they
+     * all run at once; the first one that fails or does not find its item ("-1") fails the whole resolution.
+     *
+     * @param countryId  The country id.
+     * @param branchName The branch name.
+     * @return The resolved ids.
+     */
+    private VehicleReferenceData resolveVehicleReferenceData(int countryId, String branchName) {
+        StageTimer timer = new StageTimer("resolveVehicleReferenceData");
+        String organizationName = userDefinedVariables.get("automationOrganizationName");
+
+        // Call VehicleService methods through injected service to ensure caching works
+        VehicleReferenceData referenceData = Mono.zip(ids -> new VehicleReferenceData(
+                                (String) ids[0], (String) ids[1], (String) ids[2], (String) ids[3], (String) ids[4], (String) ids[5],
+                                (String) ids[6], (String) ids[7], (String) ids[8], (String) ids[9], (String) ids[10]),
+                        lookupId(timer, "insurance company", organizationName, () -> vehicleService.getInsuranceCompanyIdByName(
+                                vehicleService.getInsuranceCompanyComboboxItems(countryId), organizationName)),
+                        lookupId(timer, "accident policy", organizationName, () -> vehicleService.getAccidentPolicyNumberByOrganizationName(
+                                vehicleService.getAllAccidentPolicies(countryId), organizationName)),
+                        lookupId(timer, "branch", branchName, () -> countryService.getBranchIdByName(
+                                countryService.getUserBranchesForCombobox(countryId, new ArrayList<>(List.of(8900, 8902))), branchName)),
+                        lookupId(timer, "fuel type", userDefinedVariables.get("automationFuelTypeName"), () -> lookupsService.getComboboxItemValueByDisplayText(
+                                vehicleService.getFuelTypesForCombobox(countryId), userDefinedVariables.get("automationFuelTypeName"))),
+                        lookupId(timer, "fuel level", "100%", () -> lookupsService.getComboboxItemValueByDisplayText(
+                                lookupsService.getAllItemsComboboxItems(12), "100%")),
+                        lookupId(timer, "colour", userDefinedVariables.get("automationColourName"), () -> lookupsService.getComboboxItemValueByDisplayText(
+                                lookupsService.getAllItemsComboboxItems(13), userDefinedVariables.get("automationColourName"))),
+                        lookupId(timer, "usage type", "Rental", () -> lookupsService.getComboboxItemValueByDisplayText(
+                                lookupsService.getAllItemsComboboxItems(11), "Rental")),
+                        lookupId(timer, "license type", "Private", () -> lookupsService.getComboboxItemValueByDisplayText(
+                                lookupsService.getAllItemsComboboxItems(10), "Private")),
+                        lookupId(timer, "trim level", userDefinedVariables.get("automationTrimLevel"), () -> lookupsService.getComboboxItemValueByDisplayText(
+                                lookupsService.getAllItemsComboboxItems(14), userDefinedVariables.get("automationTrimLevel"))),
+                        lookupId(timer, "vendor", userDefinedVariables.get("automationVendorName"), () -> vehicleService.getVendorIdByName(
+                                vehicleService.getVendorComboboxItems(), userDefinedVariables.get("automationVendorName"))),
+                        lookupId(timer, "car model", userDefinedVariables.get("automationCarModelName"), () -> vehicleService.getCarModelIdByName(
+                                vehicleService.getAllCarModels(), userDefinedVariables.get("automationCarModelName"))))
+                .block();
+        timer.log();
+        return referenceData;
+    }
+
+    /**
+     * Wrap a lookup that returns "-1" when the item is not found in a Mono that fails in that case.
+     *
+     * @param timer    The timer the lookup is recorded in.
+     * @param itemType The kind of item looked up, for the stage name and the error message.
+     * @param itemName The name of the item looked up, for the error message.
+     * @param lookup   The blocking lookup.
+     * @return Mono of the item id.
+     */
+    private Mono<String> lookupId(StageTimer timer, String itemType, String itemName, Supplier<String> lookup) {
+        return timer.call(itemType, lookup)
+                .flatMap(id -> "-1".equals(id)
+                        ? Mono.error(new RuntimeException("Failed to resolve " + itemType + " '" + itemName + "' for the vehicle"))
+                        : Mono.just(id));
     }
 
     /**
@@ -177,33 +336,7 @@ public class VehicleOperationsService {
                 countryService.getUserBranchesForCombobox(countryId, new ArrayList<>(List.of(8900, 8902))),
                 branchName);
 
-        GetAllBranchVehiclesResponseBean vehiclesResponse = vehicleService.getAllBranchVehicles(countryId, Integer.parseInt(branchId), CreateVehiclesResponseBean.vehiclePlateNumber);
-        GetAllBranchVehiclesResponseBean.BranchVehicle createdVehicle = vehiclesResponse.result().data().get(0);
-        Integer vehicleId = createdVehicle.id();
-        String plateNumber = createdVehicle.plateNo();
-        logger.info("Found created vehicle with ID: {}, plate number: {}", vehicleId, plateNumber);
-
-        Integer checkTypeId = VehicleCheckTypes.RECEIVE_VEHICLE.getId();
-        Integer sourceId = 120;
-        GetVehicleCheckPreparationDataResponseBean preparationData = vehicleService.getVehicleCheckPreparationData(vehicleId, checkTypeId, sourceId);
-
-        if (preparationData == null || preparationData.result() == null) {
-            logger.error("Failed to get vehicle check preparation data");
-            throw new RuntimeException("Failed to get vehicle check preparation data");
-        }
-        GetVehicleCheckPreparationDataResponseBean.VehicleCheckPreparationDataResult prepResult =
-                preparationData.result();
-
-        ReceiveNewVehicleRequestBean receiveRequest = buildReceiveNewVehicleRequest(
-                vehicleId,
-                prepResult,
-                createdVehicle,
-                checkTypeId
-        );
-
-        // Step 6: Call receiveNewVehicle
-        logger.info("Receiving new vehicle with ID: {}", vehicleId);
-        return vehicleService.receiveNewVehicle(receiveRequest);
+        return receiveCreatedVehicle(countryId, Integer.parseInt(branchId), CreateVehiclesResponseBean.vehiclePlateNumber);
     }
 
     /**
@@ -230,11 +363,23 @@ public class VehicleOperationsService {
                 countryService.getUserBranchesForCombobox(countryId, new ArrayList<>(List.of(8900, 8902))),
                 branchName);
 
-        GetAllBranchVehiclesResponseBean vehiclesResponse = vehicleService.getAllBranchVehicles(countryId, Integer.parseInt(branchId), CreateVehiclesResponseBean.vehiclePlateNumber);
+        return receiveCreatedVehicle(countryId, Integer.parseInt(branchId), CreateVehiclesResponseBean.vehiclePlateNumber);
+    }
+
+
+    /**
+     * Find a created vehicle by its plate number and receive it by calling the ReceiveNewVehicle API.
+     *
+     * @param countryId   The country id of the vehicle.
+     * @param branchId    The branch id of the vehicle.
+     * @param plateNumber The plate number the vehicle was created with.
+     * @return The response containing the result of the receive new vehicle operation.
+     */
+    private AbpResponseBean receiveCreatedVehicle(int countryId, int branchId, String plateNumber) {
+        GetAllBranchVehiclesResponseBean vehiclesResponse = vehicleService.getAllBranchVehicles(countryId, branchId, plateNumber);
         GetAllBranchVehiclesResponseBean.BranchVehicle createdVehicle = vehiclesResponse.result().data().get(0);
         Integer vehicleId = createdVehicle.id();
-        String plateNumber = createdVehicle.plateNo();
-        logger.info("Found created vehicle with ID: {}, plate number: {}", vehicleId, plateNumber);
+        logger.info("Found created vehicle with ID: {}, plate number: {}", vehicleId, createdVehicle.plateNo());
 
         Integer checkTypeId = VehicleCheckTypes.RECEIVE_VEHICLE.getId();
         Integer sourceId = 120;
@@ -254,12 +399,10 @@ public class VehicleOperationsService {
                 checkTypeId
         );
 
-        // Step 6: Call receiveNewVehicle
         logger.info("Receiving new vehicle with ID: {}", vehicleId);
         return vehicleService.receiveNewVehicle(receiveRequest);
     }
 
-
     /**
      * Build the ReceiveNewVehicle request payload from preparation data.
      */
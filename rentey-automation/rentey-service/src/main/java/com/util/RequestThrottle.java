@@ -0,0 +1,68 @@
+package com.util;
+
+import java.time.Duration;
+
+/**
+ * Paces calls to a remote API that several threads make at once.
+ * Every call waits in {@link #acquire()} for its start slot: slots are spaced by the rate limit, if there is one, and
+ * pushed back for everyone when a call reports that the API is overloaded through {@link #backOff(Duration)}.
+ * The back-off doubles with every overload report and halves with every successful call.
+ */
+public class RequestThrottle {
+
+    private final long intervalNanos;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    // Guarded by this
+    private long nextStartNanos = System.nanoTime();
+    private long backoffNanos;
+
+    /**
+     * @param ratePerSecond  The most calls started per second, 0 or less for no limit.
+     * @param initialBackoff The pause after the first overload report.
+     * @param maxBackoff     The longest pause after repeated overload reports.
+     */
+    public RequestThrottle(double ratePerSecond, Duration initialBackoff, Duration maxBackoff) {
+        this.intervalNanos = ratePerSecond > 0 ? (long) (1_000_000_000L / ratePerSecond) : 0;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    /**
+     * Block until the calling thread may start its call.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        long startNanos;
+        synchronized (this) {
+            startNanos = Math.max(System.nanoTime(), nextStartNanos);
+            nextStartNanos = startNanos + intervalNanos;
+        }
+        long waitNanos = startNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+        }
+    }
+
+    /**
+     * Push back the start of every following call after the API reported an overload (429 or 5xx).
+     *
+     * @param retryAfter The pause the API asked for, null if it did not.
+     * @return The pause applied.
+     */
+    public synchronized Duration backOff(Duration retryAfter) {
+        backoffNanos = backoffNanos == 0 ? initialBackoffNanos : Math.min(backoffNanos * 2, maxBackoffNanos);
+        long pauseNanos = retryAfter != null ? Math.max(retryAfter.toNanos(), backoffNanos) : backoffNanos;
+        nextStartNanos = Math.max(nextStartNanos, System.nanoTime() + pauseNanos);
+        return Duration.ofNanos(pauseNanos);
+    }
+
+    /**
+     * Record a successful call, which shortens the next back-off.
+     */
+    public synchronized void onSuccess() {
+        backoffNanos = backoffNanos / 2 < initialBackoffNanos ? 0 : backoffNanos / 2;
+    }
+}
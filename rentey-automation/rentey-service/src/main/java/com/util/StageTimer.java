@@ -0,0 +1,120 @@
+package com.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Records when each stage of a multi-call flow started and how long it took, relative to the start of the flow.
+ * Stages that ran concurrently overlap, so the longest chain of stages shows the critical path.
+ *
+ * The service calls are blocking, so {@link #call} and {@link #run} wrap them in a Mono on the bounded elastic
+ * scheduler (the same way AuthorizationHeaderFilter runs the blocking token call); combining those Monos with
+ * Mono.zip / Mono.when runs the calls concurrently.
+ */
+public class StageTimer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StageTimer.class);
+
+    /**
+     * Timing of one stage.
+     *
+     * @param startedAtMillis When the stage started, in milliseconds since the start of the flow.
+     * @param durationMillis  How long the stage took, in milliseconds.
+     */
+    public record StageTiming(long startedAtMillis, long durationMillis) {
+    }
+
+    private final String flowName;
+    private final long startNanos = System.nanoTime();
+    private final Map<String, StageTiming> stages = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public StageTimer(String flowName) {
+        this.flowName = flowName;
+    }
+
+    /**
+     * Run a blocking call on the calling thread and record it as a stage, also when it fails.
+     *
+     * @param stage The stage name.
+     * @param call  The blocking call.
+     * @return The result of the call.
+     */
+    public <T> T time(String stage, Supplier<T> call) {
+        long stageStart = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            long stageEnd = System.nanoTime();
+            stages.put(stage, new StageTiming((stageStart - startNanos) / 1_000_000, (stageEnd - stageStart) / 1_000_000));
+        }
+    }
+
+    /**
+     * Wrap a blocking call whose result is needed in a Mono that runs it on the bounded elastic scheduler.
+     * The call starts when the Mono is subscribed; use cache() when several stages depend on it.
+     *
+     * @param stage The stage name.
+     * @param call  The blocking call.
+     * @return Mono of the result, an error if the call fails or returns null.
+     */
+    public <T> Mono<T> call(String stage, Supplier<T> call) {
+        return Mono.fromCallable(() -> time(stage, call))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException(flowName + ": " + stage + " returned no result")))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Wrap a blocking call whose result is not needed, such as a lookup the UI makes, in a Mono that runs it
+     * on the bounded elastic scheduler.
+     *
+     * @param stage The stage name.
+     * @param call  The blocking call.
+     * @return Mono that completes when the call is done, an error if it fails.
+     */
+    public Mono<Void> run(String stage, Runnable call) {
+        return Mono.<Void>fromRunnable(() -> time(stage, () -> {
+                    call.run();
+                    return null;
+                }))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @return The timings recorded so far, by stage name in the order the stages finished.
+     */
+    public Map<String, StageTiming> getStages() {
+        synchronized (stages) {
+            return new LinkedHashMap<>(stages);
+        }
+    }
+
+    /**
+     * @return Milliseconds since the start of the flow.
+     */
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * Log every stage in the order the stages started, with the total time of the flow.
+     */
+    public void log() {
+        List<Map.Entry<String, StageTiming>> byStart = new ArrayList<>(getStages().entrySet());
+        byStart.sort(Comparator.comparingLong(entry -> entry.getValue().startedAtMillis()));
+        logger.info("[STAGE TIMING] {} took {} ms in {} stages", flowName, getElapsedMillis(), byStart.size());
+        for (Map.Entry<String, StageTiming> entry : byStart) {
+            logger.info("[STAGE TIMING] {} - {}: started at +{} ms, took {} ms", flowName, entry.getKey(),
+                    entry.getValue().startedAtMillis(), entry.getValue().durationMillis());
+        }
+    }
+}